@@ -0,0 +1,121 @@
+package com.ilyassan.albaraka;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares a JMH JSON result file with a stored baseline and exits with status 1 if any benchmark regressed.
+ * <p>
+ * Benchmarks are matched by name, mode and parameters. A benchmark has regressed when its score is worse than the
+ * baseline by more than the threshold (lower is better for time modes, higher for throughput) and the difference
+ * is larger than the two scores' error margins combined, so noise within the confidence intervals is not
+ * reported. Benchmarks missing from either file are listed but do not fail the comparison.
+ * <p>
+ * Usage: {@code JmhBaselineComparator <baseline.json> <result.json> [threshold]}, with the threshold as a fraction
+ * (default 0.10).
+ */
+public final class JmhBaselineComparator {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private JmhBaselineComparator() {
+    }
+
+    record Score(String mode, double score, double error, String unit) {
+
+        boolean higherIsBetter() {
+            return "thrpt".equals(mode);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: JmhBaselineComparator <baseline.json> <result.json> [threshold]");
+            System.exit(2);
+        }
+        File baselineFile = new File(args[0]);
+        if (!baselineFile.exists()) {
+            System.err.println("No baseline at " + baselineFile + "; record one with -Djmh.result=" + baselineFile);
+            System.exit(2);
+        }
+
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 0.10;
+        Map<String, Score> baseline = read(baselineFile);
+        Map<String, Score> current = read(new File(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-90s %14s %14s %-8s %9s  %s%n", "Benchmark", "Baseline", "Current", "Unit", "Change", "");
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score now = entry.getValue();
+            Score before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-90s %14s %14.3f %-8s %9s  %s%n", entry.getKey(), "-", now.score(), now.unit(), "", "new");
+                continue;
+            }
+
+            double change = (now.score() - before.score()) / before.score();
+            double worse = now.higherIsBetter() ? -change : change;
+            boolean significant = Math.abs(now.score() - before.score()) > before.error() + now.error();
+            String verdict = "";
+            if (worse > threshold && significant) {
+                verdict = "REGRESSION";
+                regressions++;
+            } else if (worse < -threshold && significant) {
+                verdict = "improved";
+            }
+            System.out.printf("%-90s %14.3f %14.3f %-8s %+8.1f%%  %s%n",
+                    entry.getKey(), before.score(), now.score(), now.unit(), change * 100, verdict);
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.printf("%-90s %14.3f %14s %-8s %9s  %s%n", key, baseline.get(key).score(), "-",
+                        baseline.get(key).unit(), "", "missing");
+            }
+        }
+
+        if (regressions > 0) {
+            System.out.printf("%d benchmark(s) regressed by more than %.0f%%%n", regressions, threshold * 100);
+            System.exit(1);
+        }
+        System.out.printf("No regressions beyond %.0f%%%n", threshold * 100);
+    }
+
+    static Map<String, Score> read(File file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode run : MAPPER.readTree(file)) {
+            JsonNode metric = run.get("primaryMetric");
+            scores.put(key(run), new Score(run.get("mode").asText(), number(metric.get("score")),
+                    number(metric.get("scoreError")), metric.get("scoreUnit").asText()));
+        }
+        return scores;
+    }
+
+    private static String key(JsonNode run) {
+        StringBuilder key = new StringBuilder(run.get("benchmark").asText().replace("com.ilyassan.albaraka.", ""));
+        JsonNode params = run.get("params");
+        if (params != null) {
+            Map<String, String> sorted = new TreeMap<>();
+            for (Iterator<Map.Entry<String, JsonNode>> it = params.fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> param = it.next();
+                sorted.put(param.getKey(), param.getValue().asText());
+            }
+            key.append(sorted);
+        }
+        return key.append(" [").append(run.get("mode").asText()).append(']').toString();
+    }
+
+    // JMH writes NaN, for an error margin from a single iteration, as a string
+    private static double number(JsonNode node) {
+        if (node == null || !node.isNumber()) {
+            return 0;
+        }
+        return node.asDouble();
+    }
+}
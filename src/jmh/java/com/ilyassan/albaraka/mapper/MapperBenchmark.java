@@ -0,0 +1,100 @@
+package com.ilyassan.albaraka.mapper;
+
+import com.ilyassan.albaraka.dto.AccountResponse;
+import com.ilyassan.albaraka.dto.TransactionResponse;
+import com.ilyassan.albaraka.dto.UserResponse;
+import com.ilyassan.albaraka.entity.Account;
+import com.ilyassan.albaraka.entity.Transaction;
+import com.ilyassan.albaraka.entity.TransactionStatus;
+import com.ilyassan.albaraka.entity.User;
+import com.ilyassan.albaraka.entity.UserRole;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the generated MapStruct mappers on fully populated entities, per object and for a page of transaction
+ * history as returned by {@code GET /api/transactions/me}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    private final TransactionMapper transactionMapper = new TransactionMapperImpl();
+
+    private final AccountMapper accountMapper = new AccountMapperImpl();
+
+    private final UserMapper userMapper = new UserMapperImpl();
+
+    private User user;
+
+    private Account account;
+
+    private List<Transaction> page;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime now = LocalDateTime.now();
+        user = User.builder().id(7L).email("client@example.com").password("").firstName("Ilyass")
+                .lastName("Anida").role(UserRole.CLIENT).createdAt(now).updatedAt(now).build();
+        account = Account.builder().id(42L).accountNumber("ALBARAKA202512171630459A7B8C9D").user(user)
+                .balance(new BigDecimal("15230.75")).createdAt(now).updatedAt(now).build();
+
+        page = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            page.add(Transaction.builder()
+                    .id((long) i)
+                    .account(account)
+                    .type(i % 3 == 0 ? "TRANSFER" : "DEPOSIT")
+                    .amount(BigDecimal.valueOf(10_000 + i * 37L, 2))
+                    .status(TransactionStatus.COMPLETED)
+                    .beneficiaryAccountId(i % 3 == 0 ? 43L : null)
+                    .createdAt(now.minusMinutes(i))
+                    .updatedAt(now.minusMinutes(i))
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public TransactionResponse transaction() {
+        return transactionMapper.toTransactionResponse(page.get(0));
+    }
+
+    @Benchmark
+    public List<TransactionResponse> transactionPage() {
+        List<TransactionResponse> responses = new ArrayList<>(page.size());
+        for (Transaction transaction : page) {
+            responses.add(transactionMapper.toTransactionResponse(transaction));
+        }
+        return responses;
+    }
+
+    @Benchmark
+    public AccountResponse account() {
+        return accountMapper.toAccountResponse(account);
+    }
+
+    @Benchmark
+    public UserResponse user() {
+        return userMapper.toUserResponse(user);
+    }
+}
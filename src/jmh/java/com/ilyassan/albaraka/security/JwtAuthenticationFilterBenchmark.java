@@ -0,0 +1,107 @@
+package com.ilyassan.albaraka.security;
+
+import com.ilyassan.albaraka.entity.User;
+import com.ilyassan.albaraka.entity.UserRole;
+import com.ilyassan.albaraka.repository.TokenRevocationRepository;
+import com.ilyassan.albaraka.repository.UserRepository;
+import com.ilyassan.albaraka.service.TokenRevocationService;
+import jakarta.servlet.FilterChain;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of {@link JwtAuthenticationFilter} for an authenticated request in the steady state: cached
+ * token verification, the revocation filter check, a principal cache hit and building the security context. With
+ * {@code recording=true} a JFR recording with the default settings runs throughout, which measures the cost of the
+ * filter's {@code JwtAuthentication} event when it is actually written.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    @Param({"false", "true"})
+    public boolean recording;
+
+    private JwtAuthenticationFilter filter;
+
+    private MockHttpServletRequest request;
+
+    private MockHttpServletResponse response;
+
+    private FilterChain chain;
+
+    private Recording jfr;
+
+    @Setup
+    public void setUp() throws Exception {
+        JwtTokenProvider tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "verifiedTokenCache", new VerifiedTokenCache(10_000));
+        User user = User.builder().id(7L).email("client@example.com").password("").role(UserRole.CLIENT)
+                .enabled(true).build();
+
+        UserRepository userRepository = Mockito.mock(UserRepository.class);
+        Mockito.when(userRepository.findByEmail("client@example.com")).thenReturn(Optional.of(user));
+        CustomUserDetailsService userDetailsService = new CustomUserDetailsService();
+        ReflectionTestUtils.setField(userDetailsService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(userDetailsService, "principalCache", new PrincipalCache(10_000, Duration.ofHours(1)));
+
+        TokenRevocationService revocationService = new TokenRevocationService(100_000, 0.001);
+        ReflectionTestUtils.setField(revocationService, "tokenRevocationRepository",
+                Mockito.mock(TokenRevocationRepository.class));
+
+        filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "tokenProvider", tokenProvider);
+        ReflectionTestUtils.setField(filter, "userDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(filter, "tokenRevocationService", revocationService);
+
+        request = new MockHttpServletRequest("GET", "/api/accounts/me");
+        request.addHeader("Authorization", "Bearer " + tokenProvider.generateToken(user, 42L));
+        response = new MockHttpServletResponse();
+        chain = (req, res) -> { };
+
+        if (recording) {
+            jfr = new Recording(Configuration.getConfiguration("default"));
+            jfr.start();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (jfr != null) {
+            jfr.close();
+        }
+    }
+
+    @Benchmark
+    public Object authenticate() throws Exception {
+        filter.doFilterInternal(request, response, chain);
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        SecurityContextHolder.clearContext();
+        return principal;
+    }
+}
@@ -0,0 +1,59 @@
+package com.ilyassan.albaraka.security;
+
+import com.ilyassan.albaraka.entity.User;
+import com.ilyassan.albaraka.entity.UserRole;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of issuing an access token at login and refresh, with and without the identity claims, and of verifying a
+ * freshly issued token that is not yet in the verified-token cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtGenerationBenchmark {
+
+    private JwtTokenProvider tokenProvider;
+
+    private User user;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "verifiedTokenCache", new VerifiedTokenCache(10_000));
+        user = User.builder().id(7L).email("client@example.com").role(UserRole.CLIENT).build();
+        token = tokenProvider.generateToken(user, 42L);
+    }
+
+    @Benchmark
+    public String generateWithIdentityClaims() {
+        return tokenProvider.generateToken(user, 42L);
+    }
+
+    @Benchmark
+    public String generateFromEmail() {
+        return tokenProvider.generateTokenFromEmail("client@example.com");
+    }
+
+    @Benchmark
+    public String validateUncached() {
+        return tokenProvider.parseClaims(token).getSubject();
+    }
+}
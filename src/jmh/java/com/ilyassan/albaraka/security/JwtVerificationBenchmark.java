@@ -0,0 +1,69 @@
+package com.ilyassan.albaraka.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning a bearer token into a verified subject in {@link JwtAuthenticationFilter}: the previous two-parse
+ * path that derived the key and built a parser on every call, a single parse with the prebuilt parser, and a hit in
+ * the verified-token cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "723be2eb547f2b6c7660f70c2247c5b7";
+
+    private JwtTokenProvider tokenProvider;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "verifiedTokenCache", new VerifiedTokenCache(10_000));
+        token = tokenProvider.generateTokenFromEmail("client@example.com");
+    }
+
+    @Benchmark
+    public String twoParsesPerRequest() {
+        // validateToken followed by getEmailFromToken, each deriving the key and building a parser
+        Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseSignedClaims(token);
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload()
+                .getSubject();
+    }
+
+    @Benchmark
+    public String singleParse() {
+        return tokenProvider.parseClaims(token).getSubject();
+    }
+
+    @Benchmark
+    public String cachedVerification() {
+        return tokenProvider.verify(token).subject();
+    }
+}
@@ -0,0 +1,69 @@
+package com.ilyassan.albaraka.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cost of {@link RateLimiter#tryAcquire} on 16 threads: every thread taking from one shared bucket, which is the
+ * worst case for compare-and-set contention; each thread with its own bucket, the usual case of many clients; and
+ * a shared bucket that is exhausted, where requests are rejected without writing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(16)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    private static final AtomicInteger CLIENTS = new AtomicInteger();
+
+    // Never runs out: the benchmark measures the limiter, not the limit
+    private final RateLimiter unlimited = new RateLimiter(Integer.MAX_VALUE, 1e9, Integer.MAX_VALUE, 1e9, System::nanoTime);
+
+    private final RateLimiter exhausted = new RateLimiter(1, 1e-6, 1, 1e-6, System::nanoTime);
+
+    @State(Scope.Thread)
+    public static class Client {
+
+        String key;
+
+        @Setup
+        public void setUp() {
+            key = "user:" + CLIENTS.incrementAndGet();
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        exhausted.tryAcquire(RateLimiter.EndpointClass.TRANSACTIONS, "user:shared");
+    }
+
+    @Benchmark
+    public long sharedBucket() {
+        return unlimited.tryAcquire(RateLimiter.EndpointClass.TRANSACTIONS, "user:shared");
+    }
+
+    @Benchmark
+    public long bucketPerClient(Client client) {
+        return unlimited.tryAcquire(RateLimiter.EndpointClass.TRANSACTIONS, client.key);
+    }
+
+    @Benchmark
+    public long exhaustedBucket() {
+        return exhausted.tryAcquire(RateLimiter.EndpointClass.TRANSACTIONS, "user:shared");
+    }
+}
@@ -0,0 +1,77 @@
+package com.ilyassan.albaraka.security;
+
+import com.ilyassan.albaraka.entity.User;
+import com.ilyassan.albaraka.entity.UserRole;
+import com.ilyassan.albaraka.repository.TokenRevocationRepository;
+import com.ilyassan.albaraka.service.TokenRevocationService;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of the revocation check in {@link JwtAuthenticationFilter}: a cached token verification alone,
+ * the same followed by the Bloom filter check of a token that is not revoked, and the filter lookup by itself. The
+ * filter holds 100k revoked keys; the revocation table is never queried for a token the filter has not seen.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenRevocationBenchmark {
+
+    private static final int REVOKED_KEYS = 100_000;
+
+    private JwtTokenProvider tokenProvider;
+
+    private TokenRevocationService revocationService;
+
+    private RevocationBloomFilter filter;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "verifiedTokenCache", new VerifiedTokenCache(10_000));
+        User user = User.builder().id(7L).email("client@example.com").role(UserRole.CLIENT).build();
+        token = tokenProvider.generateToken(user, 42L);
+
+        revocationService = new TokenRevocationService(REVOKED_KEYS, 0.001);
+        ReflectionTestUtils.setField(revocationService, "tokenRevocationRepository",
+                Mockito.mock(TokenRevocationRepository.class));
+        filter = new RevocationBloomFilter(REVOKED_KEYS, 0.001);
+        for (int i = 0; i < REVOKED_KEYS; i++) {
+            filter.put("jti:" + i);
+        }
+        ReflectionTestUtils.setField(revocationService, "filter", filter);
+    }
+
+    @Benchmark
+    public Object verifyOnly() {
+        return tokenProvider.verify(token);
+    }
+
+    @Benchmark
+    public boolean verifyAndCheckRevocation() {
+        VerifiedTokenCache.VerifiedToken verified = tokenProvider.verify(token);
+        return revocationService.isRevoked(verified);
+    }
+
+    @Benchmark
+    public boolean filterLookup() {
+        return filter.mightContain("jti:not-revoked");
+    }
+}
@@ -0,0 +1,118 @@
+package com.ilyassan.albaraka.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the BigDecimal balance arithmetic on the transaction path, with amounts at the scale of the
+ * {@code NUMERIC(19, 2)} columns: the insufficient-balance check and debit of a single withdrawal, the running
+ * balances of a 500-item batch as {@code TransactionService.createBatch} keeps them, a ledger replay summing 1000
+ * movements, and the formatting of a statement amount. {@code replayAsLongCents} sums the same movements as scaled
+ * longs, as a lower bound for what the arithmetic itself could cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BalanceArithmeticBenchmark {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final int LEDGER_ENTRIES = 1000;
+
+    private static final Long ACCOUNT_ID = 42L;
+
+    private static final Long BENEFICIARY_ID = 43L;
+
+    private BigDecimal balance;
+
+    private BigDecimal amount;
+
+    private BigDecimal[] batchAmounts;
+
+    private BigDecimal[] movements;
+
+    private long[] movementCents;
+
+    @Setup
+    public void setUp() {
+        balance = new BigDecimal("15230.75");
+        amount = new BigDecimal("199.99");
+
+        batchAmounts = new BigDecimal[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batchAmounts[i] = BigDecimal.valueOf(100 + i * 13L, 2);
+        }
+
+        movements = new BigDecimal[LEDGER_ENTRIES];
+        movementCents = new long[LEDGER_ENTRIES];
+        for (int i = 0; i < LEDGER_ENTRIES; i++) {
+            long cents = (i % 2 == 0 ? 1 : -1) * (1_000 + i * 7L);
+            movements[i] = BigDecimal.valueOf(cents, 2);
+            movementCents[i] = cents;
+        }
+    }
+
+    @Benchmark
+    public BigDecimal checkAndDebit() {
+        if (balance.compareTo(amount) < 0) {
+            throw new IllegalArgumentException("Insufficient balance");
+        }
+        return balance.subtract(amount);
+    }
+
+    @Benchmark
+    public Map<Long, BigDecimal> batchRunningBalances() {
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        balances.put(ACCOUNT_ID, new BigDecimal("1000000.00"));
+        balances.put(BENEFICIARY_ID, BigDecimal.ZERO);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            BigDecimal item = batchAmounts[i];
+            if (balances.get(ACCOUNT_ID).compareTo(item) < 0) {
+                continue;
+            }
+            balances.merge(ACCOUNT_ID, item.negate(), BigDecimal::add);
+            balances.merge(BENEFICIARY_ID, item, BigDecimal::add);
+        }
+        return balances;
+    }
+
+    @Benchmark
+    public BigDecimal replay() {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (BigDecimal movement : movements) {
+            sum = sum.add(movement);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long replayAsLongCents() {
+        long sum = 0;
+        for (long cents : movementCents) {
+            sum += cents;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public String formatStatementAmount() {
+        return balance.setScale(2, RoundingMode.HALF_UP).toPlainString();
+    }
+}
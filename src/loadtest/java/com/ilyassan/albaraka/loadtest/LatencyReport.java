@@ -0,0 +1,97 @@
+package com.ilyassan.albaraka.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and error counts per operation.
+ * <p>
+ * Latencies are measured from the time a request was scheduled to be sent, not from when it actually was, so a
+ * stalled server shows up in the percentiles instead of silently lowering the request rate.
+ */
+class LatencyReport {
+
+    // Failures without an HTTP status: timeouts, refused connections, and requests dropped by the generator
+    static final int NO_RESPONSE = 0;
+
+    private final Map<Workload.Operation, Recorder> recorders = new EnumMap<>(Workload.Operation.class);
+
+    private final Map<Workload.Operation, ConcurrentHashMap<Integer, LongAdder>> errors =
+            new EnumMap<>(Workload.Operation.class);
+
+    LatencyReport() {
+        for (Workload.Operation operation : Workload.Operation.values()) {
+            recorders.put(operation, new Recorder(3));
+            errors.put(operation, new ConcurrentHashMap<>());
+        }
+    }
+
+    void record(Workload.Operation operation, long latencyNanos, int status) {
+        recorders.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(Math.max(latencyNanos, 0)));
+        if (status < 200 || status >= 300) {
+            errors.get(operation).computeIfAbsent(status, s -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * Prints the percentiles of everything recorded since the previous call, and writes each operation's full
+     * distribution as an {@code .hgrm} file to {@code outputDir}.
+     */
+    void print(PrintStream out, double measuredSeconds, Path outputDir) throws IOException {
+        Files.createDirectories(outputDir);
+        Histogram total = new Histogram(3);
+
+        out.printf("%n%-11s %9s %8s %8s %9s %9s %9s %9s %9s %9s%n",
+                "operation", "requests", "errors", "error%", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Workload.Operation operation : Workload.Operation.values()) {
+            Histogram histogram = recorders.get(operation).getIntervalHistogram();
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            total.add(histogram);
+            printRow(out, operation.label(), histogram, errorCount(errors.get(operation)), measuredSeconds);
+            try (PrintStream file = new PrintStream(outputDir.resolve(operation.label() + ".hgrm").toFile())) {
+                histogram.outputPercentileDistribution(file, 1000.0);
+            }
+        }
+        long totalErrors = errors.values().stream().mapToLong(LatencyReport::errorCount).sum();
+        printRow(out, "total", total, totalErrors, measuredSeconds);
+
+        for (Workload.Operation operation : Workload.Operation.values()) {
+            Map<Integer, Long> byStatus = new TreeMap<>();
+            errors.get(operation).forEach((status, count) -> byStatus.put(status, count.sum()));
+            if (!byStatus.isEmpty()) {
+                out.printf("  %s errors by status (0 = no response): %s%n", operation.label(), byStatus);
+            }
+        }
+        out.printf("Full distributions written to %s%n", outputDir.toAbsolutePath());
+    }
+
+    private static void printRow(PrintStream out, String label, Histogram histogram, long errorCount, double seconds) {
+        long count = histogram.getTotalCount();
+        out.printf("%-11s %9d %8d %7.2f%% %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                label, count, errorCount, count == 0 ? 0 : 100.0 * errorCount / count, count / seconds,
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()));
+    }
+
+    private static long errorCount(Map<Integer, LongAdder> byStatus) {
+        return byStatus.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,182 @@
+package com.ilyassan.albaraka.loadtest;
+
+import com.ilyassan.albaraka.AlbarakaApplication;
+import com.ilyassan.albaraka.entity.Account;
+import com.ilyassan.albaraka.entity.User;
+import com.ilyassan.albaraka.entity.UserRole;
+import com.ilyassan.albaraka.security.JwtTokenProvider;
+import com.ilyassan.albaraka.service.AccountService;
+import com.ilyassan.albaraka.service.TransactionService;
+import com.ilyassan.albaraka.service.UserService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+import java.math.BigDecimal;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Boots the application, seeds it with users and drives an open-loop banking workload against it over HTTP.
+ * <p>
+ * Requests are sent at a fixed arrival rate whatever the server's response times, the way independent clients
+ * behave, rather than by a fixed number of threads that each wait for their previous response. Operations are
+ * picked at random according to {@code loadtest.mix}. Results from the warm-up are discarded; the rest are
+ * reported as HdrHistogram percentiles and error rates per operation.
+ * <p>
+ * Run with {@code mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--loadtest.rate=200"}. Options, all
+ * passed as {@code --name=value} along with any application property:
+ * <ul>
+ *     <li>{@code loadtest.users} (200): clients seeded through {@code UserService.createUser}, each with an
+ *     opening deposit of {@code loadtest.opening-balance} (5000)</li>
+ *     <li>{@code loadtest.rate} (100): requests per second</li>
+ *     <li>{@code loadtest.duration} (PT60S) and {@code loadtest.warmup} (PT15S)</li>
+ *     <li>{@code loadtest.mix} (login:5,deposit:25,withdrawal:15,transfer:20,history:30,approve:5)</li>
+ *     <li>{@code loadtest.pending-share} (0.1): share of deposits above the approval threshold</li>
+ *     <li>{@code loadtest.timeout} (PT10S) and {@code loadtest.max-outstanding} (10000): requests beyond that many
+ *     in flight are counted as failed instead of sent</li>
+ *     <li>{@code loadtest.output-dir} (target/loadtest): where the {@code .hgrm} distributions are written</li>
+ * </ul>
+ * The database is H2 in PostgreSQL mode; add {@code --spring.profiles.active=loadtest-postgres} to use the
+ * Postgres from {@code docker-compose.yml}.
+ */
+public final class LoadTestRunner {
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Devtools' restart class loader only slows startup here; it must be disabled before the application starts
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(AlbarakaApplication.class)
+                .profiles("loadtest")
+                .run(args);
+        int exitCode = 0;
+        try {
+            run(context);
+        } catch (Exception e) {
+            e.printStackTrace();
+            exitCode = 1;
+        } finally {
+            context.close();
+        }
+        System.exit(exitCode);
+    }
+
+    private static void run(ConfigurableApplicationContext context) throws Exception {
+        Environment env = context.getEnvironment();
+        int users = env.getProperty("loadtest.users", Integer.class, 200);
+        BigDecimal openingBalance = env.getProperty("loadtest.opening-balance", BigDecimal.class, new BigDecimal("5000"));
+        double rate = env.getProperty("loadtest.rate", Double.class, 100.0);
+        Duration duration = env.getProperty("loadtest.duration", Duration.class, Duration.ofSeconds(60));
+        Duration warmup = env.getProperty("loadtest.warmup", Duration.class, Duration.ofSeconds(15));
+        String mix = env.getProperty("loadtest.mix", "login:5,deposit:25,withdrawal:15,transfer:20,history:30,approve:5");
+        double pendingShare = env.getProperty("loadtest.pending-share", Double.class, 0.1);
+        Duration timeout = env.getProperty("loadtest.timeout", Duration.class, Duration.ofSeconds(10));
+        int maxOutstanding = env.getProperty("loadtest.max-outstanding", Integer.class, 10_000);
+        Path outputDir = Path.of(env.getProperty("loadtest.output-dir", "target/loadtest"));
+        if (users < 2) {
+            throw new IllegalArgumentException("loadtest.users must be at least 2, for transfers");
+        }
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        String baseUrl = "http://localhost:" + port + env.getProperty("server.servlet.context-path", "");
+
+        // Every run seeds its own users, so runs against a persistent database do not collide
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        System.out.printf("Seeding %d users (run %s)%n", users, runId);
+        long seedStart = System.nanoTime();
+        List<Workload.SeededUser> clients = seed(context, runId, users, openingBalance);
+        JwtTokenProvider tokenProvider = context.getBean(JwtTokenProvider.class);
+        User agent = context.getBean(UserService.class).createUser("agent-" + runId + "@loadtest.local",
+                Workload.PASSWORD, "Load", "Agent", UserRole.AGENT_BANCAIRE);
+        String agentToken = tokenProvider.generateToken(agent, null);
+        System.out.printf("Seeded in %d ms%n", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - seedStart));
+
+        HttpClient http = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .executor(Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors())))
+                .build();
+        Workload workload = new Workload(http, baseUrl, timeout, clients, agentToken, Workload.parseMix(mix), pendingShare);
+        LatencyReport report = new LatencyReport();
+        Semaphore outstanding = new Semaphore(maxOutstanding);
+
+        System.out.printf("Running %s at %.1f requests/s for %s after a %s warm-up%n", mix, rate, duration, warmup);
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        for (long i = 0; ; i++) {
+            long intended = start + i * interval;
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            Workload.Operation operation = workload.next();
+            boolean measured = intended >= measureFrom;
+            if (!outstanding.tryAcquire()) {
+                if (measured) {
+                    report.record(operation, System.nanoTime() - intended, LatencyReport.NO_RESPONSE);
+                }
+                continue;
+            }
+            workload.send(operation).whenComplete((status, error) -> {
+                outstanding.release();
+                if (measured) {
+                    report.record(operation, System.nanoTime() - intended,
+                            error != null ? LatencyReport.NO_RESPONSE : status);
+                }
+            });
+        }
+
+        if (!outstanding.tryAcquire(maxOutstanding, timeout.toMillis() + 1000, TimeUnit.MILLISECONDS)) {
+            System.out.printf("%d requests still outstanding at the end of the run%n",
+                    maxOutstanding - outstanding.availablePermits());
+        }
+        report.print(System.out, duration.toNanos() / 1e9, outputDir);
+    }
+
+    private static List<Workload.SeededUser> seed(ConfigurableApplicationContext context, String runId, int users,
+                                                  BigDecimal openingBalance) throws Exception {
+        UserService userService = context.getBean(UserService.class);
+        AccountService accountService = context.getBean(AccountService.class);
+        TransactionService transactionService = context.getBean(TransactionService.class);
+        JwtTokenProvider tokenProvider = context.getBean(JwtTokenProvider.class);
+
+        // Password hashing dominates seeding, so users are created in parallel
+        ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            List<Future<Workload.SeededUser>> seeded = new ArrayList<>();
+            for (int i = 0; i < users; i++) {
+                String email = "client-" + runId + "-" + i + "@loadtest.local";
+                seeded.add(pool.submit(() -> {
+                    User user = userService.createUser(email, Workload.PASSWORD, "Load", "Client", UserRole.CLIENT);
+                    Account account = accountService.getAccountByUserId(user.getId()).orElseThrow();
+                    transactionService.createDeposit(account.getId(), openingBalance);
+                    return new Workload.SeededUser(email, account.getId(), tokenProvider.generateToken(user, account.getId()));
+                }));
+            }
+            List<Workload.SeededUser> clients = new ArrayList<>();
+            for (Future<Workload.SeededUser> user : seeded) {
+                clients.add(user.get());
+            }
+            return clients;
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.ilyassan.albaraka.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The banking workload: what each operation sends, and how often each is picked.
+ * <p>
+ * Clients deposit, withdraw, transfer to other seeded clients, read their history and log in again. A share of
+ * deposits is above the 10,000 DH approval threshold and stays PENDING; the agent's approve operation lists the
+ * pending transactions, as the back office does, and approves the oldest one this run created.
+ */
+class Workload {
+
+    enum Operation {
+        LOGIN, DEPOSIT, WITHDRAWAL, TRANSFER, HISTORY, APPROVE;
+
+        String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    record SeededUser(String email, Long accountId, String token) {
+    }
+
+    static final String PASSWORD = "LoadTest#2025";
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final HttpClient http;
+
+    private final String baseUrl;
+
+    private final Duration timeout;
+
+    private final List<SeededUser> clients;
+
+    private final String agentToken;
+
+    private final double pendingShare;
+
+    private final Operation[] operations;
+
+    private final double[] cumulativeWeights;
+
+    private final Queue<Long> pendingIds = new ConcurrentLinkedQueue<>();
+
+    Workload(HttpClient http, String baseUrl, Duration timeout, List<SeededUser> clients, String agentToken,
+             Map<Operation, Double> mix, double pendingShare) {
+        this.http = http;
+        this.baseUrl = baseUrl;
+        this.timeout = timeout;
+        this.clients = clients;
+        this.agentToken = agentToken;
+        this.pendingShare = pendingShare;
+        this.operations = mix.keySet().toArray(new Operation[0]);
+        this.cumulativeWeights = new double[operations.length];
+        double sum = 0;
+        for (int i = 0; i < operations.length; i++) {
+            sum += mix.get(operations[i]);
+            cumulativeWeights[i] = sum;
+        }
+        for (int i = 0; i < operations.length; i++) {
+            cumulativeWeights[i] /= sum;
+        }
+    }
+
+    /**
+     * Parses a mix such as {@code login:5,deposit:25,history:30} into relative weights.
+     *
+     * @throws IllegalArgumentException for an unknown operation or a negative weight
+     */
+    static Map<Operation, Double> parseMix(String mix) {
+        Map<Operation, Double> weights = new EnumMap<>(Operation.class);
+        for (String part : mix.split(",")) {
+            String[] entry = part.trim().split(":");
+            if (entry.length != 2) {
+                throw new IllegalArgumentException("Expected operation:weight, got '" + part + "'");
+            }
+            double weight = Double.parseDouble(entry[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight for " + entry[0]);
+            }
+            if (weight > 0) {
+                weights.put(Operation.valueOf(entry[0].trim().toUpperCase(Locale.ROOT)), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("The mix has no operations");
+        }
+        return weights;
+    }
+
+    Operation next() {
+        double r = ThreadLocalRandom.current().nextDouble();
+        for (int i = 0; i < operations.length; i++) {
+            if (r < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    /**
+     * Sends one operation.
+     *
+     * @return the HTTP status of the operation's last response
+     */
+    CompletableFuture<Integer> send(Operation operation) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int clientIndex = random.nextInt(clients.size());
+        SeededUser client = clients.get(clientIndex);
+        return switch (operation) {
+            case LOGIN -> status(post("/api/auth/login", null,
+                    "{\"email\":\"" + client.email() + "\",\"password\":\"" + PASSWORD + "\"}"));
+            case DEPOSIT -> deposit(client, random.nextDouble() < pendingShare);
+            case WITHDRAWAL -> status(post("/api/transactions/withdrawal", client.token(),
+                    "{\"amount\":" + amount(1, 200) + "}"));
+            case TRANSFER -> {
+                // Any other client; needs at least two
+                int beneficiaryIndex = random.nextInt(clients.size() - 1);
+                SeededUser beneficiary = clients.get(beneficiaryIndex >= clientIndex ? beneficiaryIndex + 1 : beneficiaryIndex);
+                yield status(post("/api/transactions/transfer", client.token(),
+                        "{\"amount\":" + amount(1, 200) + ",\"beneficiaryAccountId\":" + beneficiary.accountId() + "}"));
+            }
+            case HISTORY -> status(get("/api/transactions/me?page=0&size=20", client.token()));
+            case APPROVE -> approve();
+        };
+    }
+
+    private CompletableFuture<Integer> deposit(SeededUser client, boolean needsApproval) {
+        String amount = needsApproval ? amount(10_001, 20_000) : amount(1, 500);
+        CompletableFuture<HttpResponse<String>> response = post("/api/transactions/deposit", client.token(),
+                "{\"amount\":" + amount + "}");
+        if (!needsApproval) {
+            return status(response);
+        }
+        return response.thenApply(created -> {
+            if (created.statusCode() == 201) {
+                pendingIds.add(read(created.body()).get("id").asLong());
+            }
+            return created.statusCode();
+        });
+    }
+
+    private CompletableFuture<Integer> approve() {
+        return get("/api/admin/transactions/pending", agentToken).thenCompose(listed -> {
+            Long id = pendingIds.poll();
+            if (listed.statusCode() != 200 || id == null) {
+                return CompletableFuture.completedFuture(listed.statusCode());
+            }
+            return status(post("/api/admin/transactions/" + id + "/approve", agentToken, ""));
+        });
+    }
+
+    private CompletableFuture<HttpResponse<String>> post(String path, String token, String body) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return http.sendAsync(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private CompletableFuture<HttpResponse<String>> get(String path, String token) {
+        return http.sendAsync(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(timeout)
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static CompletableFuture<Integer> status(CompletableFuture<HttpResponse<String>> response) {
+        return response.thenApply(HttpResponse::statusCode);
+    }
+
+    private static String amount(int minUnits, int maxUnits) {
+        long cents = ThreadLocalRandom.current().nextLong(minUnits * 100L, maxUnits * 100L + 1);
+        return BigDecimal.valueOf(cents, 2).toPlainString();
+    }
+
+    private static JsonNode read(String body) {
+        try {
+            return JSON.readTree(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
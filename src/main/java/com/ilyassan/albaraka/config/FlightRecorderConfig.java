@@ -0,0 +1,31 @@
+package com.ilyassan.albaraka.config;
+
+import com.ilyassan.albaraka.jfr.RepositoryCallEventInterceptor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+/**
+ * Adds {@link RepositoryCallEventInterceptor} to every Spring Data repository proxy, so JFR recordings show which
+ * repository calls a slow request spent its time in. The interceptor checks whether the event is enabled first,
+ * so with no recording running it costs one extra call per repository method.
+ */
+@Configuration
+public class FlightRecorderConfig {
+
+    @Bean
+    public static BeanPostProcessor repositoryCallEvents() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxy, information) -> proxy.addAdvice(new RepositoryCallEventInterceptor(
+                                    information.getRepositoryInterface().getSimpleName()))));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,66 @@
+package com.ilyassan.albaraka.config;
+
+import com.ilyassan.albaraka.entity.PooledSequenceGenerator;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.dialect.sequence.SequenceSupport;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves every {@link PooledSequenceGenerator} sequence past the highest id already in its table, once at startup.
+ * <p>
+ * Tables that predate the sequences were filled by IDENTITY columns, while Hibernate creates the sequences starting
+ * at 1, so the first ids handed out would collide with existing rows. Each sequence is advanced once and its value
+ * compared with {@code max(id)}; a sequence that is behind is restarted one allocation block above it. Sequences
+ * that are already ahead are left alone, so this is a no-op on every start after the first. It runs after the
+ * schema update and before the web server starts taking requests.
+ */
+@Component
+@Slf4j
+public class IdSequenceAlignment {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    void align() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        SequenceSupport sequenceSupport = sessionFactory.getJdbcServices().getDialect().getSequenceSupport();
+
+        sessionFactory.getMappingMetamodel().forEachEntityDescriptor(persister -> {
+            if (persister.getGenerator() instanceof PooledSequenceGenerator generator
+                    && persister instanceof AbstractEntityPersister entity) {
+                String sequence = generator.getDatabaseStructure().getPhysicalName().render();
+                int allocationSize = generator.getDatabaseStructure().getIncrementSize();
+                align(sequenceSupport, sequence, allocationSize, entity.getTableName(),
+                        entity.getIdentifierColumnNames()[0]);
+            }
+        });
+    }
+
+    private void align(SequenceSupport sequenceSupport, String sequence, int allocationSize, String table, String idColumn) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(" + idColumn + ") FROM " + table, Long.class);
+        if (maxId == null) {
+            return;
+        }
+
+        // The pooled optimizer hands out the block ending at each value it reads, so the next read must be past maxId
+        Long current = jdbcTemplate.queryForObject(sequenceSupport.getSequenceNextValString(sequence), Long.class);
+        if (current != null && current >= maxId) {
+            return;
+        }
+
+        long restartAt = maxId + allocationSize;
+        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + restartAt);
+        log.warn("Sequence {} was at {}, behind the highest id {} in {}; restarted at {}",
+                sequence, current, maxId, table, restartAt);
+    }
+}
@@ -0,0 +1,72 @@
+package com.ilyassan.albaraka.config;
+
+import com.ilyassan.albaraka.entity.Transaction;
+import com.ilyassan.albaraka.repository.AccountRepository;
+import com.ilyassan.albaraka.repository.TransactionRepository;
+import com.ilyassan.albaraka.service.LedgerService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Brings history from before the ledger into it, once at startup.
+ * <p>
+ * Completed transactions that were never posted are posted at the time they completed, and whatever part of an
+ * account's balance they do not explain gets an opening entry dated when the account was opened. After this has
+ * run every balance is fully explained by the ledger, and point-in-time queries, checkpoints and statements see the
+ * old movements when they happened. It runs before the web server starts taking requests; on every start after the
+ * first it finds nothing to do.
+ */
+@Component
+@Slf4j
+public class LedgerOpeningBalanceMigration {
+
+    private static final int CHUNK_SIZE = 500;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @PostConstruct
+    void init() {
+        migrate();
+    }
+
+    /**
+     * @return the number of accounts that got opening entries
+     */
+    public int migrate() {
+        // Opening remainders first: they are computed net of the unposted transactions, so a crash in between is safe
+        List<Long> accountIds = accountRepository.findIdsWithPreLedgerHistory();
+        int opened = 0;
+        for (int from = 0; from < accountIds.size(); from += CHUNK_SIZE) {
+            opened += ledgerService.postOpeningBalances(
+                    accountIds.subList(from, Math.min(from + CHUNK_SIZE, accountIds.size())));
+        }
+
+        int backfilled = 0;
+        List<Transaction> unposted;
+        while (!(unposted = transactionRepository.findUnposted(PageRequest.of(0, CHUNK_SIZE))).isEmpty()) {
+            int posted = ledgerService.backfill(unposted.stream().map(Transaction::getId).toList());
+            if (posted == 0) {
+                break;
+            }
+            backfilled += posted;
+        }
+
+        if (opened > 0 || backfilled > 0) {
+            log.info("Posted {} transactions from before the ledger and opening entries for {} accounts",
+                    backfilled, opened);
+        }
+        return opened;
+    }
+}
@@ -0,0 +1,80 @@
+package com.ilyassan.albaraka.config;
+
+import com.ilyassan.albaraka.security.AdaptiveConcurrencyLimiter;
+import com.ilyassan.albaraka.security.RateLimiter;
+import com.ilyassan.albaraka.security.TransactionAdmissionControl;
+import com.ilyassan.albaraka.service.AccountLockManager;
+import com.ilyassan.albaraka.service.PendingTransactionCounter;
+import com.ilyassan.albaraka.service.TransactionRetryExecutor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Publishes the state the transaction path already keeps as Micrometer meters: the approval backlog, retries of
+ * balance updates, account lock queues, the adaptive admission limits and rate-limit rejections. Operation timers
+ * are recorded by {@link com.ilyassan.albaraka.service.TransactionMetrics}.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder transactionPathMetrics(PendingTransactionCounter pendingTransactionCounter,
+                                              TransactionRetryExecutor transactionRetryExecutor,
+                                              AccountLockManager accountLockManager,
+                                              TransactionAdmissionControl admissionControl,
+                                              RateLimiter rateLimiter) {
+        return registry -> {
+            // Every gauge reads counters kept in memory, so a scrape never queries the database
+            Gauge.builder("albaraka.transactions.pending", pendingTransactionCounter,
+                            PendingTransactionCounter::getPending)
+                    .description("Transactions waiting for an administrator's approval")
+                    .register(registry);
+
+            FunctionCounter.builder("albaraka.transactions.retries", transactionRetryExecutor,
+                            TransactionRetryExecutor::getRetryCount)
+                    .description("Balance updates retried after a deadlock, lock timeout or serialization failure")
+                    .register(registry);
+            FunctionCounter.builder("albaraka.transactions.retries.exhausted", transactionRetryExecutor,
+                            TransactionRetryExecutor::getExhaustedCount)
+                    .description("Balance updates that failed on every attempt")
+                    .register(registry);
+
+            Gauge.builder("albaraka.locks.queued", accountLockManager, AccountLockManager::getQueuedThreads)
+                    .description("Threads waiting for an account lock stripe")
+                    .register(registry);
+            FunctionCounter.builder("albaraka.locks.contended", accountLockManager,
+                            AccountLockManager::getContendedAcquisitions)
+                    .description("Account lock acquisitions that had to wait")
+                    .register(registry);
+
+            for (AdaptiveConcurrencyLimiter limiter : admissionControl.getLimiters()) {
+                Gauge.builder("albaraka.admission.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                        .tag("limiter", limiter.getName())
+                        .description("Current adaptive in-flight limit")
+                        .register(registry);
+                Gauge.builder("albaraka.admission.in.flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                        .tag("limiter", limiter.getName())
+                        .register(registry);
+                Gauge.builder("albaraka.admission.queue.depth", limiter, AdaptiveConcurrencyLimiter::getQueueDepth)
+                        .tag("limiter", limiter.getName())
+                        .description("Requests waiting for an admission slot")
+                        .register(registry);
+                FunctionCounter.builder("albaraka.admission.rejected", limiter, AdaptiveConcurrencyLimiter::getRejectedCount)
+                        .tag("limiter", limiter.getName())
+                        .description("Requests shed with 503")
+                        .register(registry);
+            }
+
+            for (RateLimiter.EndpointClass endpointClass : RateLimiter.EndpointClass.values()) {
+                FunctionCounter.builder("albaraka.rate.limit.rejected", rateLimiter,
+                                limiter -> limiter.getRejectedCount(endpointClass))
+                        .tag("endpoint", endpointClass.name().toLowerCase())
+                        .description("Requests refused with 429")
+                        .register(registry);
+            }
+        };
+    }
+}
@@ -1,19 +1,20 @@
 package com.ilyassan.albaraka.controller;
 
 import com.ilyassan.albaraka.entity.Account;
-import com.ilyassan.albaraka.entity.User;
 import com.ilyassan.albaraka.mapper.AccountMapper;
-import com.ilyassan.albaraka.repository.UserRepository;
+import com.ilyassan.albaraka.security.AuthenticatedUser;
 import com.ilyassan.albaraka.service.AccountService;
+import com.ilyassan.albaraka.service.BalanceCheckpointService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -26,23 +27,17 @@ public class AccountController {
     private AccountService accountService;
 
     @Autowired
-    private UserRepository userRepository;
+    private AccountMapper accountMapper;
 
     @Autowired
-    private AccountMapper accountMapper;
+    private BalanceCheckpointService balanceCheckpointService;
 
     @GetMapping("/me")
     @PreAuthorize("hasAnyRole('CLIENT', 'AGENT_BANCAIRE', 'ADMIN')")
-    public ResponseEntity<?> getCurrentUserAccount(Authentication authentication) {
+    public ResponseEntity<?> getCurrentUserAccount(AuthenticatedUser principal) {
         try {
-            String email = authentication.getName();
-            User user = userRepository.findByEmail(email).orElse(null);
-
-            if (user == null) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
-            }
-
-            Account account = accountService.getAccountByUserId(user.getId()).orElse(null);
+            Account account = principal.accountId() == null ? null
+                    : accountService.getAccountById(principal.accountId()).orElse(null);
 
             if (account == null) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Account not found");
@@ -74,29 +69,50 @@ public class AccountController {
 
     @GetMapping("/me/balance")
     @PreAuthorize("hasAnyRole('CLIENT')")
-    public ResponseEntity<?> getBalance(Authentication authentication) {
+    public ResponseEntity<?> getBalance(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at,
+            AuthenticatedUser principal) {
         try {
-            String email = authentication.getName();
-            User user = userRepository.findByEmail(email).orElse(null);
+            Account account = principal.accountId() == null ? null
+                    : accountService.getAccountById(principal.accountId()).orElse(null);
 
-            if (user == null) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
+            if (account == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Account not found");
             }
 
-            BigDecimal balance = accountService.getAccountByUserId(user.getId())
-                    .map(Account::getBalance)
-                    .orElse(null);
-
-            if (balance == null) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Account not found");
+            Map<String, Object> response = new HashMap<>();
+            if (at == null) {
+                response.put("balance", account.getBalance());
+            } else {
+                response.put("balance", balanceCheckpointService.getBalanceAt(account.getId(), at));
+                response.put("at", at);
             }
 
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("Error getting balance", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error retrieving balance");
+        }
+    }
+
+    @GetMapping("/{accountId}/balance")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<?> getBalanceAt(
+            @PathVariable Long accountId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        try {
+            BigDecimal balance = balanceCheckpointService.getBalanceAt(accountId, at);
+
             Map<String, Object> response = new HashMap<>();
+            response.put("accountId", accountId);
             response.put("balance", balance);
+            response.put("at", at);
 
             return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         } catch (Exception e) {
-            log.error("Error getting balance", e);
+            log.error("Error getting balance as of {}", at, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error retrieving balance");
         }
     }
@@ -6,19 +6,40 @@ import com.ilyassan.albaraka.dto.TransactionResponse;
 import com.ilyassan.albaraka.entity.User;
 import com.ilyassan.albaraka.entity.UserRole;
 import com.ilyassan.albaraka.entity.Transaction;
+import com.ilyassan.albaraka.entity.ReconciliationRun;
+import com.ilyassan.albaraka.exception.ResourceNotFoundException;
+import com.ilyassan.albaraka.mapper.ReconciliationMapper;
 import com.ilyassan.albaraka.mapper.UserMapper;
 import com.ilyassan.albaraka.mapper.TransactionMapper;
+import com.ilyassan.albaraka.security.PrincipalCache;
+import com.ilyassan.albaraka.security.TransactionAdmissionControl;
+import com.ilyassan.albaraka.service.AccountLockManager;
+import com.ilyassan.albaraka.service.AccountService;
+import com.ilyassan.albaraka.service.FlightRecordingService;
+import com.ilyassan.albaraka.service.LedgerService;
+import com.ilyassan.albaraka.service.ReconciliationService;
 import com.ilyassan.albaraka.service.UserService;
 import com.ilyassan.albaraka.service.TransactionService;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -38,6 +59,30 @@ public class AdminController {
     @Autowired
     private TransactionMapper transactionMapper;
 
+    @Autowired
+    private AccountLockManager accountLockManager;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private ReconciliationService reconciliationService;
+
+    @Autowired
+    private ReconciliationMapper reconciliationMapper;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private TransactionAdmissionControl admissionControl;
+
+    @Autowired
+    private FlightRecordingService flightRecordingService;
+
     @PostMapping("/users")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> createUser(@Valid @RequestBody CreateUserRequest request) {
@@ -164,4 +209,159 @@ public class AdminController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error rejecting transaction");
         }
     }
+
+    @GetMapping("/accounts/{accountId}/ledger")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> verifyLedger(@PathVariable Long accountId) {
+        try {
+            BigDecimal balance = accountService.getBalance(accountId);
+
+            if (balance == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Account not found");
+            }
+
+            BigDecimal ledgerBalance = ledgerService.replayBalance(accountId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("accountId", accountId);
+            response.put("balance", balance);
+            response.put("ledgerBalance", ledgerBalance);
+            response.put("consistent", balance.compareTo(ledgerBalance) == 0);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("Error verifying ledger", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error verifying ledger");
+        }
+    }
+
+    @GetMapping("/metrics/locks")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getLockStats() {
+        return ResponseEntity.ok(accountLockManager.getStats());
+    }
+
+    @GetMapping("/metrics/principal-cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getPrincipalCacheStats() {
+        return ResponseEntity.ok(principalCache.getStats());
+    }
+
+    @GetMapping("/metrics/admission")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getAdmissionStats() {
+        return ResponseEntity.ok(admissionControl.getStats());
+    }
+
+    @PostMapping("/profiling/recording")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> startRecording(@RequestParam(required = false) Long durationSeconds) {
+        try {
+            Duration duration = durationSeconds == null ? null : Duration.ofSeconds(durationSeconds);
+            return ResponseEntity.status(HttpStatus.CREATED).body(flightRecordingService.start(duration));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (Exception e) {
+            log.error("Error starting flight recording", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error starting flight recording");
+        }
+    }
+
+    @GetMapping("/profiling/recording")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getRecording() {
+        return flightRecordingService.getCurrent()
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body("No recording"));
+    }
+
+    /**
+     * Stops the recording and streams the {@code .jfr} file, for JDK Mission Control or {@code jfr print}. Streaming
+     * bodies need a {@code ResponseEntity<StreamingResponseBody>} return type, so failures go to
+     * {@code GlobalExceptionHandler}.
+     */
+    @PostMapping("/profiling/recording/stop")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> stopRecording() throws IOException {
+        Path file;
+        try {
+            file = flightRecordingService.stop();
+        } catch (IllegalStateException e) {
+            throw new ResourceNotFoundException(e.getMessage());
+        }
+
+        StreamingResponseBody body = out -> {
+            try {
+                Files.copy(file, out);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(Files.size(file))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getFileName() + "\"")
+                .body(body);
+    }
+
+    @PostMapping("/reconciliations")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> startReconciliation() {
+        try {
+            ReconciliationRun run = reconciliationService.startRun();
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(reconciliationMapper.toReconciliationRunResponse(run));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (Exception e) {
+            log.error("Error starting reconciliation", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error starting reconciliation");
+        }
+    }
+
+    @GetMapping("/reconciliations")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getReconciliations() {
+        try {
+            return ResponseEntity.ok(reconciliationService.getRecentRuns().stream()
+                    .map(reconciliationMapper::toReconciliationRunResponse)
+                    .collect(Collectors.toList()));
+        } catch (Exception e) {
+            log.error("Error getting reconciliations", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error retrieving reconciliations");
+        }
+    }
+
+    @GetMapping("/reconciliations/{runId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getReconciliation(@PathVariable Long runId) {
+        try {
+            ReconciliationRun run = reconciliationService.getRun(runId).orElse(null);
+
+            if (run == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Reconciliation run not found");
+            }
+
+            return ResponseEntity.ok(reconciliationMapper.toReconciliationRunResponse(run));
+        } catch (Exception e) {
+            log.error("Error getting reconciliation", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error retrieving reconciliation");
+        }
+    }
+
+    @GetMapping("/reconciliations/{runId}/discrepancies")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getReconciliationDiscrepancies(@PathVariable Long runId,
+                                                            @RequestParam(defaultValue = "0") int page,
+                                                            @RequestParam(defaultValue = "50") int size) {
+        try {
+            return ResponseEntity.ok(reconciliationService
+                    .getDiscrepancies(runId, PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), 500)))
+                    .map(reconciliationMapper::toReconciliationDiscrepancyResponse)
+                    .getContent());
+        } catch (Exception e) {
+            log.error("Error getting reconciliation discrepancies", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error retrieving discrepancies");
+        }
+    }
 }
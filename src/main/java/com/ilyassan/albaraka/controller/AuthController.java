@@ -2,20 +2,30 @@ package com.ilyassan.albaraka.controller;
 
 import com.ilyassan.albaraka.dto.LoginRequest;
 import com.ilyassan.albaraka.dto.LoginResponse;
+import com.ilyassan.albaraka.dto.RefreshTokenRequest;
+import com.ilyassan.albaraka.entity.Account;
 import com.ilyassan.albaraka.entity.User;
 import com.ilyassan.albaraka.repository.UserRepository;
 import com.ilyassan.albaraka.security.JwtTokenProvider;
+import com.ilyassan.albaraka.security.PasswordHashingExecutor;
+import com.ilyassan.albaraka.security.VerifiedTokenCache;
+import com.ilyassan.albaraka.service.AccountService;
+import com.ilyassan.albaraka.service.RefreshTokenService;
+import com.ilyassan.albaraka.service.TokenRevocationService;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
 @RestController
 @RequestMapping("/api/auth")
 @Slf4j
@@ -30,35 +40,106 @@ public class AuthController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    /**
+     * Checks the password on the hashing pool, so a login peak does not tie up the request threads. When the
+     * pool's queue is full the login is refused with 503 and a {@code Retry-After} header.
+     */
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest loginRequest) {
+    public CompletableFuture<ResponseEntity<?>> login(@Valid @RequestBody LoginRequest loginRequest) {
         try {
-            Authentication authentication = authenticationManager.authenticate(
+            return passwordHashingExecutor.submit(() -> authenticate(loginRequest));
+        } catch (RejectedExecutionException e) {
+            log.warn("Login refused, password hashing queue is full");
+            ResponseEntity<?> busy = ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body("Too many login attempts, please retry");
+            return CompletableFuture.completedFuture(busy);
+        }
+    }
+
+    private ResponseEntity<?> authenticate(LoginRequest loginRequest) {
+        try {
+            authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(
                             loginRequest.getEmail(),
                             loginRequest.getPassword()
                     )
             );
 
-            String token = tokenProvider.generateToken(authentication);
             User user = userRepository.findByEmail(loginRequest.getEmail()).orElse(null);
 
             if (user == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid credentials");
             }
 
-            LoginResponse response = LoginResponse.builder()
-                    .token(token)
-                    .email(user.getEmail())
-                    .firstName(user.getFirstName())
-                    .lastName(user.getLastName())
-                    .role(user.getRole().name())
-                    .build();
-
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(tokens(user, refreshTokenService.issue(user.getId())));
         } catch (AuthenticationException e) {
             log.error("Authentication failed: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid email or password");
         }
     }
+
+    /**
+     * Exchanges a refresh token for a new access token and the refresh token that replaces it.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@Valid @RequestBody RefreshTokenRequest refreshRequest) {
+        try {
+            RefreshTokenService.Issued issued = refreshTokenService.rotate(refreshRequest.getRefreshToken());
+            User user = userRepository.findById(issued.userId()).orElse(null);
+
+            if (user == null || !user.isEnabled()) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid refresh token");
+            }
+
+            return ResponseEntity.ok(tokens(user, issued));
+        } catch (IllegalArgumentException e) {
+            log.warn("Refresh failed: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Revokes the refresh token's family and, when one is sent, the bearer access token.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@Valid @RequestBody RefreshTokenRequest logoutRequest,
+                                    @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        refreshTokenService.revokeFamily(logoutRequest.getRefreshToken());
+
+        if (authorization != null && authorization.startsWith("Bearer ")) {
+            VerifiedTokenCache.VerifiedToken verified = tokenProvider.verify(authorization.substring(7));
+            if (verified != null && verified.tokenId() != null) {
+                tokenRevocationService.revokeToken(verified.tokenId(), verified.expiresAtMillis());
+            }
+        }
+
+        return ResponseEntity.ok("Logged out successfully");
+    }
+
+    private LoginResponse tokens(User user, RefreshTokenService.Issued refreshToken) {
+        Long accountId = accountService.getAccountByUserId(user.getId()).map(Account::getId).orElse(null);
+
+        return LoginResponse.builder()
+                .token(tokenProvider.generateToken(user, accountId))
+                .refreshToken(refreshToken.token())
+                .expiresIn(tokenProvider.getAccessTokenTtl().toSeconds())
+                .email(user.getEmail())
+                .firstName(user.getFirstName())
+                .lastName(user.getLastName())
+                .role(user.getRole().name())
+                .build();
+    }
 }
@@ -1,35 +1,57 @@
 package com.ilyassan.albaraka.controller;
 
+import com.ilyassan.albaraka.dto.BatchItemResult;
+import com.ilyassan.albaraka.dto.BatchTransactionRequest;
+import com.ilyassan.albaraka.dto.BatchTransactionResponse;
+import com.ilyassan.albaraka.dto.TransactionCursorResponse;
 import com.ilyassan.albaraka.dto.TransactionRequest;
 import com.ilyassan.albaraka.dto.TransactionResponse;
 import com.ilyassan.albaraka.entity.Account;
 import com.ilyassan.albaraka.entity.Transaction;
-import com.ilyassan.albaraka.entity.User;
+import com.ilyassan.albaraka.exception.ResourceNotFoundException;
 import com.ilyassan.albaraka.mapper.TransactionMapper;
-import com.ilyassan.albaraka.repository.UserRepository;
+import com.ilyassan.albaraka.security.AdmissionControlFilter;
+import com.ilyassan.albaraka.security.AuthenticatedUser;
 import com.ilyassan.albaraka.service.AccountService;
+import com.ilyassan.albaraka.service.Camt053StatementService;
+import com.ilyassan.albaraka.service.IdempotencyService;
+import com.ilyassan.albaraka.service.Pain001IngestionService;
+import com.ilyassan.albaraka.service.StatementExportService;
 import com.ilyassan.albaraka.service.TransactionService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/transactions")
 @Slf4j
 public class TransactionController {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     @Autowired
     private TransactionService transactionService;
 
@@ -37,30 +59,37 @@ public class TransactionController {
     private AccountService accountService;
 
     @Autowired
-    private UserRepository userRepository;
+    private TransactionMapper transactionMapper;
 
     @Autowired
-    private TransactionMapper transactionMapper;
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private StatementExportService statementExportService;
+
+    @Autowired
+    private Camt053StatementService camt053StatementService;
+
+    @Autowired
+    private Pain001IngestionService pain001IngestionService;
 
     @PostMapping("/deposit")
     @PreAuthorize("hasRole('CLIENT')")
-    public ResponseEntity<?> createDeposit(@Valid @RequestBody TransactionRequest request, Authentication authentication) {
+    public ResponseEntity<?> createDeposit(@Valid @RequestBody TransactionRequest request,
+                                           @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                           AuthenticatedUser principal) {
         try {
-            String email = authentication.getName();
-            User user = userRepository.findByEmail(email).orElse(null);
+            Long accountId = principal.accountId();
 
-            if (user == null) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
-            }
-
-            Account account = accountService.getAccountByUserId(user.getId()).orElse(null);
-
-            if (account == null) {
+            if (accountId == null) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Account not found");
             }
 
-            Transaction transaction = transactionService.createDeposit(account.getId(), request.getAmount());
-            return ResponseEntity.status(HttpStatus.CREATED).body(transactionMapper.toTransactionResponse(transaction));
+            IdempotencyService.Outcome outcome = idempotencyService.execute(accountId, idempotencyKey,
+                    "DEPOSIT", request.getAmount(), null,
+                    () -> transactionMapper.toTransactionResponse(
+                            transactionService.createDeposit(accountId, request.getAmount(), idempotencyKey)));
+            return created(outcome);
         } catch (Exception e) {
             log.error("Error creating deposit", e);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
@@ -69,23 +98,21 @@ public class TransactionController {
 
     @PostMapping("/withdrawal")
     @PreAuthorize("hasRole('CLIENT')")
-    public ResponseEntity<?> createWithdrawal(@Valid @RequestBody TransactionRequest request, Authentication authentication) {
+    public ResponseEntity<?> createWithdrawal(@Valid @RequestBody TransactionRequest request,
+                                              @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                              AuthenticatedUser principal) {
         try {
-            String email = authentication.getName();
-            User user = userRepository.findByEmail(email).orElse(null);
-
-            if (user == null) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
-            }
+            Long accountId = principal.accountId();
 
-            Account account = accountService.getAccountByUserId(user.getId()).orElse(null);
-
-            if (account == null) {
+            if (accountId == null) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Account not found");
             }
 
-            Transaction transaction = transactionService.createWithdrawal(account.getId(), request.getAmount());
-            return ResponseEntity.status(HttpStatus.CREATED).body(transactionMapper.toTransactionResponse(transaction));
+            IdempotencyService.Outcome outcome = idempotencyService.execute(accountId, idempotencyKey,
+                    "WITHDRAWAL", request.getAmount(), null,
+                    () -> transactionMapper.toTransactionResponse(
+                            transactionService.createWithdrawal(accountId, request.getAmount(), idempotencyKey)));
+            return created(outcome);
         } catch (Exception e) {
             log.error("Error creating withdrawal", e);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
@@ -94,18 +121,13 @@ public class TransactionController {
 
     @PostMapping("/transfer")
     @PreAuthorize("hasRole('CLIENT')")
-    public ResponseEntity<?> createTransfer(@Valid @RequestBody TransactionRequest request, Authentication authentication) {
+    public ResponseEntity<?> createTransfer(@Valid @RequestBody TransactionRequest request,
+                                            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                            AuthenticatedUser principal) {
         try {
-            String email = authentication.getName();
-            User user = userRepository.findByEmail(email).orElse(null);
-
-            if (user == null) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
-            }
-
-            Account sourceAccount = accountService.getAccountByUserId(user.getId()).orElse(null);
+            Long sourceAccountId = principal.accountId();
 
-            if (sourceAccount == null) {
+            if (sourceAccountId == null) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Account not found");
             }
 
@@ -113,36 +135,88 @@ public class TransactionController {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Beneficiary account ID is required");
             }
 
-            Transaction transaction = transactionService.createTransfer(
-                    sourceAccount.getId(),
-                    request.getBeneficiaryAccountId(),
-                    request.getAmount()
-            );
-            return ResponseEntity.status(HttpStatus.CREATED).body(transactionMapper.toTransactionResponse(transaction));
+            IdempotencyService.Outcome outcome = idempotencyService.execute(sourceAccountId, idempotencyKey,
+                    "TRANSFER", request.getAmount(), request.getBeneficiaryAccountId(),
+                    () -> transactionMapper.toTransactionResponse(transactionService.createTransfer(
+                            sourceAccountId,
+                            request.getBeneficiaryAccountId(),
+                            request.getAmount(),
+                            idempotencyKey
+                    )));
+            return created(outcome);
         } catch (Exception e) {
             log.error("Error creating transfer", e);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         }
     }
 
-    @GetMapping("/me")
+    @PostMapping("/batch")
     @PreAuthorize("hasRole('CLIENT')")
-    public ResponseEntity<?> getMyTransactions(Authentication authentication, Pageable pageable) {
+    public ResponseEntity<?> createBatch(@Valid @RequestBody BatchTransactionRequest request, AuthenticatedUser principal) {
         try {
-            String email = authentication.getName();
-            User user = userRepository.findByEmail(email).orElse(null);
+            Long accountId = principal.accountId();
 
-            if (user == null) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
+            if (accountId == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Account not found");
             }
 
-            Account account = accountService.getAccountByUserId(user.getId()).orElse(null);
+            List<BatchItemResult> results = transactionService.createBatch(accountId, request.getItems()).stream()
+                    .map(outcome -> BatchItemResult.builder()
+                            .index(outcome.index())
+                            .success(outcome.isSuccess())
+                            .transaction(outcome.isSuccess() ? transactionMapper.toTransactionResponse(outcome.transaction()) : null)
+                            .error(outcome.error())
+                            .build())
+                    .collect(Collectors.toList());
+
+            int succeeded = (int) results.stream().filter(BatchItemResult::isSuccess).count();
+            BatchTransactionResponse response = BatchTransactionResponse.builder()
+                    .total(results.size())
+                    .succeeded(succeeded)
+                    .failed(results.size() - succeeded)
+                    .results(results)
+                    .build();
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("Error creating transaction batch", e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    @PostMapping(value = "/pain001", consumes = {MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE})
+    @PreAuthorize("hasRole('CLIENT')")
+    public ResponseEntity<StreamingResponseBody> ingestPain001(AuthenticatedUser principal, HttpServletRequest request,
+                                                               @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+                                                               @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) throws IOException {
+        Account account = accountOf(principal);
+
+        InputStream upload = request.getInputStream();
+        boolean gzipped = contentEncoding != null && contentEncoding.toLowerCase().contains("gzip");
 
-            if (account == null) {
+        // The upload is read while the report is written, so neither is ever held in memory in full
+        return streamed("application/xml;charset=UTF-8", "pain002-" + account.getAccountNumber() + ".xml", acceptEncoding,
+                out -> {
+                    Pain001IngestionService.Result result = pain001IngestionService.ingest(account,
+                            gzipped ? new GZIPInputStream(upload, 8192) : upload, out);
+                    // Chunks lost to database errors end in a 200 report, so tell admission control directly
+                    if (result.failedChunks() > 0) {
+                        AdmissionControlFilter.markFailed(request);
+                    }
+                });
+    }
+
+    @GetMapping("/me")
+    @PreAuthorize("hasRole('CLIENT')")
+    public ResponseEntity<?> getMyTransactions(AuthenticatedUser principal, Pageable pageable) {
+        try {
+            Long accountId = principal.accountId();
+
+            if (accountId == null) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Account not found");
             }
 
-            Page<Transaction> transactions = transactionService.getAccountTransactions(account.getId(), pageable);
+            Page<Transaction> transactions = transactionService.getAccountTransactions(accountId, pageable);
             Page<TransactionResponse> responses = transactions.map(transactionMapper::toTransactionResponse);
             return ResponseEntity.ok(responses);
         } catch (Exception e) {
@@ -151,6 +225,81 @@ public class TransactionController {
         }
     }
 
+    @GetMapping("/me/cursor")
+    @PreAuthorize("hasRole('CLIENT')")
+    public ResponseEntity<?> getMyTransactionsByCursor(AuthenticatedUser principal,
+                                                       @RequestParam(required = false) String cursor,
+                                                       @RequestParam(defaultValue = "20") int size) {
+        try {
+            Long accountId = principal.accountId();
+
+            if (accountId == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Account not found");
+            }
+
+            TransactionService.CursorPage page = transactionService.getAccountTransactionsAfter(accountId, cursor, size);
+            TransactionCursorResponse response = TransactionCursorResponse.builder()
+                    .items(page.transactions().stream()
+                            .map(transactionMapper::toTransactionResponse)
+                            .collect(Collectors.toList()))
+                    .nextCursor(page.nextCursor())
+                    .hasMore(page.hasMore())
+                    .build();
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            log.error("Error getting transactions", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error retrieving transactions");
+        }
+    }
+
+    /**
+     * Streaming bodies are only recognised on a {@code ResponseEntity<StreamingResponseBody>} return type, so
+     * failures here are thrown to {@code GlobalExceptionHandler} instead of being returned as string bodies.
+     */
+    @GetMapping("/me/export")
+    @PreAuthorize("hasRole('CLIENT')")
+    public ResponseEntity<StreamingResponseBody> exportMyStatement(AuthenticatedUser principal,
+                                                                   @RequestParam(defaultValue = "csv") String format,
+                                                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                   @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        Account account = accountOf(principal);
+
+        StatementExportService.Format exportFormat = Arrays.stream(StatementExportService.Format.values())
+                .filter(candidate -> candidate.name().equalsIgnoreCase(format))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported format: " + format));
+
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+
+        Long accountId = account.getId();
+        return streamed(exportFormat.getContentType() + ";charset=UTF-8",
+                "statement-" + account.getAccountNumber() + "." + exportFormat.getExtension(), acceptEncoding,
+                out -> statementExportService.export(accountId, from, to, exportFormat, out));
+    }
+
+    @GetMapping("/me/statement/camt053")
+    @PreAuthorize("hasRole('CLIENT')")
+    public ResponseEntity<StreamingResponseBody> getMyCamt053Statement(AuthenticatedUser principal,
+                                                                       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                       @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        Account account = accountOf(principal);
+
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+
+        Long accountId = account.getId();
+        return streamed("application/xml;charset=UTF-8",
+                "camt053-" + account.getAccountNumber() + "-" + from.toLocalDate() + ".xml", acceptEncoding,
+                out -> camt053StatementService.write(accountId, from, to, out));
+    }
+
     @GetMapping("/{transactionId}")
     @PreAuthorize("hasAnyRole('CLIENT', 'ADMIN')")
     public ResponseEntity<?> getTransaction(@PathVariable Long transactionId) {
@@ -167,4 +316,40 @@ public class TransactionController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error retrieving transaction");
         }
     }
+
+    private Account accountOf(AuthenticatedUser principal) {
+        return Optional.ofNullable(principal.accountId())
+                .flatMap(accountService::getAccountById)
+                .orElseThrow(() -> new ResourceNotFoundException("Account not found"));
+    }
+
+    private ResponseEntity<TransactionResponse> created(IdempotencyService.Outcome outcome) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header("Idempotent-Replayed", String.valueOf(outcome.replayed()))
+                .body(outcome.response());
+    }
+
+    /**
+     * Wraps a body that is written after the handler returns, on the async request thread, gzipping it when the
+     * client accepts that encoding.
+     */
+    private ResponseEntity<StreamingResponseBody> streamed(String contentType, String filename, String acceptEncoding,
+                                                           StreamingResponseBody writer) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+
+        StreamingResponseBody body = !gzip ? writer : out -> {
+            try (GZIPOutputStream compressed = new GZIPOutputStream(out, 8192)) {
+                writer.writeTo(compressed);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
 }
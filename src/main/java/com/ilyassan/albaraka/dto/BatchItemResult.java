@@ -0,0 +1,15 @@
+package com.ilyassan.albaraka.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchItemResult {
+    private int index;
+    private boolean success;
+    private TransactionResponse transaction;
+    private String error;
+}
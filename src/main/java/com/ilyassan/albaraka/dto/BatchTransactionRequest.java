@@ -0,0 +1,17 @@
+package com.ilyassan.albaraka.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchTransactionRequest {
+    // Items are validated one by one so that a bad item fails alone instead of rejecting the whole batch
+    @NotEmpty(message = "At least one transaction is required")
+    private List<TransactionRequest> items;
+}
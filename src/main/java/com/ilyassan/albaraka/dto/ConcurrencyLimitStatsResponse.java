@@ -0,0 +1,20 @@
+package com.ilyassan.albaraka.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConcurrencyLimitStatsResponse {
+    private String name;
+    private int limit;
+    private int minLimit;
+    private int maxLimit;
+    private int inFlight;
+    private int queueDepth;
+    private int maxQueue;
+    private long rejected;
+    private long congestionSignals;
+}
@@ -0,0 +1,19 @@
+package com.ilyassan.albaraka.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FlightRecordingResponse {
+    private String name;
+    private String state; // RUNNING until stopped or until durationSeconds has passed, then STOPPED
+    private LocalDateTime startedAt;
+    private long durationSeconds;
+    private long maxSizeBytes;
+    private long recordedBytes;
+}
@@ -0,0 +1,21 @@
+package com.ilyassan.albaraka.dto;
+
+import lombok.*;
+
+import java.util.Map;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LockStatsResponse {
+    private int stripes;
+    private long acquisitions;
+    private long contendedAcquisitions;
+    private long currentlyLocked;
+    private long queuedThreads;
+    private long totalWaitMs;
+    private long maxWaitMs;
+    private Map<Integer, Long> contentionByStripe; // stripe index -> contended acquisitions, hottest first
+}
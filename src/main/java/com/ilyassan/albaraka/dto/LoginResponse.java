@@ -9,6 +9,8 @@ import lombok.*;
 @Builder
 public class LoginResponse {
     private String token;
+    private String refreshToken;
+    private long expiresIn;
     private String email;
     private String firstName;
     private String lastName;
@@ -0,0 +1,19 @@
+package com.ilyassan.albaraka.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReconciliationDiscrepancyResponse {
+    private Long accountId;
+    private BigDecimal recordedBalance;
+    private BigDecimal expectedBalance;
+    private BigDecimal difference;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,23 @@
+package com.ilyassan.albaraka.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReconciliationRunResponse {
+    private Long id;
+    private String status;
+    private long totalRanges;
+    private long completedRanges;
+    private double progress; // completed ranges over total ranges, 0 to 1
+    private long accountsChecked;
+    private long discrepancies;
+    private String error;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
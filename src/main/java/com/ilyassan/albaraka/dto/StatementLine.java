@@ -0,0 +1,20 @@
+package com.ilyassan.albaraka.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StatementLine {
+    private Long transactionId;
+    private LocalDateTime createdAt;
+    private String type;
+    private String direction; // DEBIT or CREDIT, from the statement account's point of view
+    private BigDecimal amount;
+    private Long counterpartyAccountId;
+}
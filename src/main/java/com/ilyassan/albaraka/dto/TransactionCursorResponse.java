@@ -0,0 +1,16 @@
+package com.ilyassan.albaraka.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransactionCursorResponse {
+    private List<TransactionResponse> items;
+    private String nextCursor; // null on the last page
+    private boolean hasMore;
+}
@@ -18,4 +18,10 @@ public class TransactionRequest {
 
     // For transfers only
     private Long beneficiaryAccountId;
+
+    // For batch submissions only: DEPOSIT, WITHDRAWAL or TRANSFER
+    private String type;
+
+    // For batch submissions only: stored as the transaction's idempotency key, unique per account
+    private String idempotencyKey;
 }
@@ -16,7 +16,7 @@ import java.time.LocalDateTime;
 public class Account {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence("accounts_seq")
     private Long id;
 
     @Column(nullable = false, unique = true, length = 50)
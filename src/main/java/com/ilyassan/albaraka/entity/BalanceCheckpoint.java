@@ -0,0 +1,46 @@
+package com.ilyassan.albaraka.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * An account balance as of a checkpoint boundary: the sum of every ledger entry for the account created at or
+ * before {@code asOf}. Checkpoints are only written for accounts that moved during the interval ending at
+ * {@code asOf}, so the latest one at or before a given time is always followed by entries from a single interval.
+ */
+@Entity
+@Immutable
+@Table(name = "balance_checkpoints", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_balance_checkpoints_account_as_of", columnNames = {"account_id", "as_of"})
+})
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BalanceCheckpoint {
+
+    @Id
+    @PooledSequence("balance_checkpoints_seq")
+    private Long id;
+
+    @Column(name = "account_id", nullable = false, updatable = false)
+    private Long accountId;
+
+    @Column(name = "as_of", nullable = false, updatable = false)
+    private LocalDateTime asOf;
+
+    @Column(nullable = false, updatable = false, precision = 19, scale = 2)
+    private BigDecimal balance;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
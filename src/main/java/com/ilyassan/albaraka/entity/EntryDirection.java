@@ -0,0 +1,6 @@
+package com.ilyassan.albaraka.entity;
+
+public enum EntryDirection {
+    DEBIT,  // Decreases the customer account balance
+    CREDIT  // Increases the customer account balance
+}
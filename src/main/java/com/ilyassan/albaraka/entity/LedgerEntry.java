@@ -0,0 +1,65 @@
+package com.ilyassan.albaraka.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One leg of a money movement. Every completed transaction writes exactly one DEBIT and one CREDIT entry of the
+ * same amount; rows are never updated or deleted, and {@link Account#getBalance()} is their running projection.
+ * Balances that predate the ledger were carried into it by one opening DEBIT/CREDIT pair per account, which
+ * belongs to no transaction.
+ */
+@Entity
+@Immutable
+@Table(name = "ledger_entries", indexes = {
+        @Index(name = "idx_ledger_entries_account_created", columnList = "account_id, created_at"),
+        @Index(name = "idx_ledger_entries_transaction", columnList = "transaction_id"),
+        @Index(name = "idx_ledger_entries_created", columnList = "created_at")
+})
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LedgerEntry {
+
+    @Id
+    @PooledSequence("ledger_entries_seq")
+    private Long id;
+
+    // Null for opening balances
+    @Column(name = "transaction_id", updatable = false)
+    private Long transactionId;
+
+    // Null for the bank's external side of deposits and withdrawals
+    @Column(name = "account_id", updatable = false)
+    private Long accountId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false, length = 6)
+    private EntryDirection direction;
+
+    @Column(nullable = false, updatable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        // Opening balances are dated when the account was opened
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+
+    /**
+     * The effect of this entry on the account balance: positive for credits, negative for debits.
+     */
+    public BigDecimal signedAmount() {
+        return direction == EntryDirection.CREDIT ? amount : amount.negate();
+    }
+}
@@ -0,0 +1,50 @@
+package com.ilyassan.albaraka.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * An account whose stored balance did not match the net of its completed transactions when it was reconciled.
+ */
+@Entity
+@Immutable
+@Table(name = "reconciliation_discrepancies", indexes = {
+        @Index(name = "idx_reconciliation_discrepancies_run_account", columnList = "run_id, account_id")
+})
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReconciliationDiscrepancy {
+
+    @Id
+    @PooledSequence("reconciliation_discrepancies_seq")
+    private Long id;
+
+    @Column(name = "run_id", nullable = false, updatable = false)
+    private Long runId;
+
+    @Column(name = "account_id", nullable = false, updatable = false)
+    private Long accountId;
+
+    @Column(nullable = false, updatable = false, precision = 19, scale = 2)
+    private BigDecimal recordedBalance;
+
+    @Column(nullable = false, updatable = false, precision = 19, scale = 2)
+    private BigDecimal expectedBalance;
+
+    @Column(nullable = false, updatable = false, precision = 19, scale = 2)
+    private BigDecimal difference;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
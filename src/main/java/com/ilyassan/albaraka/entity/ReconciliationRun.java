@@ -0,0 +1,54 @@
+package com.ilyassan.albaraka.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One pass of the reconciliation job over the account id space. Progress counters are incremented in place by
+ * the range workers as they finish, so they can be polled while the run is in progress.
+ */
+@Entity
+@Table(name = "reconciliation_runs")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReconciliationRun {
+
+    @Id
+    @PooledSequence("reconciliation_runs_seq")
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    @Builder.Default
+    private ReconciliationStatus status = ReconciliationStatus.RUNNING;
+
+    @Column(nullable = false)
+    private long totalRanges;
+
+    @Column(nullable = false)
+    private long completedRanges;
+
+    @Column(nullable = false)
+    private long accountsChecked;
+
+    @Column(nullable = false)
+    private long discrepancies;
+
+    @Column(length = 500)
+    private String error;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        startedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,7 @@
+package com.ilyassan.albaraka.entity;
+
+public enum ReconciliationStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,38 @@
+package com.ilyassan.albaraka.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Revokes access tokens before they expire. The key is either {@code jti:<token id>} for one token, or
+ * {@code uid:<user id>} for every token of the user issued up to {@code revokedAt}. A row is only needed until the
+ * last token it covers has expired.
+ */
+@Entity
+@Immutable
+@Table(name = "token_revocations", indexes = {
+        @Index(name = "idx_token_revocations_key", columnList = "revocation_key"),
+        @Index(name = "idx_token_revocations_expires_at", columnList = "expires_at")
+})
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TokenRevocation {
+
+    @Id
+    @PooledSequence("token_revocations_seq")
+    private Long id;
+
+    @Column(name = "revocation_key", nullable = false, updatable = false, length = 64)
+    private String revocationKey;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime revokedAt;
+
+    @Column(name = "expires_at", nullable = false, updatable = false)
+    private LocalDateTime expiresAt;
+}
@@ -7,7 +7,13 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_transactions_account_idempotency_key", columnNames = {"account_id", "idempotency_key"})
+}, indexes = {
+        @Index(name = "idx_transactions_account_created_id", columnList = "account_id, created_at, id"),
+        @Index(name = "idx_transactions_beneficiary_created", columnList = "beneficiary_account_id, created_at"),
+        @Index(name = "idx_transactions_status", columnList = "status")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -16,7 +22,7 @@ import java.time.LocalDateTime;
 public class Transaction {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence("transactions_seq")
     private Long id;
 
     @ManyToOne(optional = false)
@@ -40,6 +46,10 @@ public class Transaction {
     @Column(columnDefinition = "TEXT")
     private String justificationPath;
 
+    // Client-supplied Idempotency-Key, unique per account; null when the request did not send one
+    @Column(name = "idempotency_key", length = 100, updatable = false)
+    private String idempotencyKey;
+
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
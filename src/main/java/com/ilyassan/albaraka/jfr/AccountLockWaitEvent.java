@@ -0,0 +1,19 @@
+package com.ilyassan.albaraka.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.ilyassan.albaraka.AccountLockWait")
+@Label("Account Lock Wait")
+@Category({"Albaraka", "Transactions"})
+@Description("A wait for an account lock stripe held by another thread")
+public class AccountLockWaitEvent extends jdk.jfr.Event {
+
+    @Label("Stripe")
+    public int stripe;
+
+    @Label("Acquired")
+    public boolean acquired;
+}
@@ -0,0 +1,19 @@
+package com.ilyassan.albaraka.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.ilyassan.albaraka.JwtAuthentication")
+@Label("JWT Authentication")
+@Category({"Albaraka", "Security"})
+@Description("Verification of a bearer token, the revocation check and the principal lookup")
+@StackTrace(false)
+public class JwtAuthenticationEvent extends jdk.jfr.Event {
+
+    @Label("Outcome")
+    @Description("authenticated, invalid, revoked, disabled or error")
+    public String outcome;
+}
@@ -0,0 +1,21 @@
+package com.ilyassan.albaraka.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("com.ilyassan.albaraka.PasswordHashing")
+@Label("Password Hashing")
+@Category({"Albaraka", "Security"})
+@Description("BCrypt work, such as a login password check, run on the hashing pool")
+@StackTrace(false)
+public class PasswordHashingEvent extends jdk.jfr.Event {
+
+    @Label("Queue Wait")
+    @Description("Time spent in the hashing pool's queue before the work started")
+    @Timespan(Timespan.NANOSECONDS)
+    public long queueWait;
+}
@@ -0,0 +1,24 @@
+package com.ilyassan.albaraka.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.ilyassan.albaraka.RepositoryCall")
+@Label("Repository Call")
+@Category({"Albaraka", "Persistence"})
+@Description("A Spring Data repository method call, including the SQL it ran and the mapping of its results")
+@StackTrace(false)
+public class RepositoryCallEvent extends jdk.jfr.Event {
+
+    @Label("Repository")
+    public String repository;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Failed")
+    public boolean failed;
+}
@@ -0,0 +1,39 @@
+package com.ilyassan.albaraka.jfr;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Records a {@link RepositoryCallEvent} around each call to one repository. Methods returning a {@code Stream} are
+ * timed up to the opening of the cursor, not while it is read.
+ */
+public class RepositoryCallEventInterceptor implements MethodInterceptor {
+
+    private final String repository;
+
+    public RepositoryCallEventInterceptor(String repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        RepositoryCallEvent event = new RepositoryCallEvent();
+        if (!event.isEnabled()) {
+            return invocation.proceed();
+        }
+
+        event.begin();
+        try {
+            return invocation.proceed();
+        } catch (Throwable e) {
+            event.failed = true;
+            throw e;
+        } finally {
+            if (event.shouldCommit()) {
+                event.repository = repository;
+                event.method = invocation.getMethod().getName();
+                event.commit();
+            }
+        }
+    }
+}
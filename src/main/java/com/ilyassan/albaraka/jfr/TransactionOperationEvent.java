@@ -0,0 +1,24 @@
+package com.ilyassan.albaraka.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.ilyassan.albaraka.TransactionOperation")
+@Label("Transaction Operation")
+@Category({"Albaraka", "Transactions"})
+@Description("A TransactionService operation, from the call to its commit or failure")
+@StackTrace(false)
+public class TransactionOperationEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Type")
+    public String type;
+
+    @Label("Outcome")
+    public String outcome;
+}
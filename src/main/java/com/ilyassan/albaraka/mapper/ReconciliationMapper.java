@@ -0,0 +1,18 @@
+package com.ilyassan.albaraka.mapper;
+
+import com.ilyassan.albaraka.dto.ReconciliationDiscrepancyResponse;
+import com.ilyassan.albaraka.dto.ReconciliationRunResponse;
+import com.ilyassan.albaraka.entity.ReconciliationDiscrepancy;
+import com.ilyassan.albaraka.entity.ReconciliationRun;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(componentModel = "spring")
+public interface ReconciliationMapper {
+
+    @Mapping(target = "status", expression = "java(run.getStatus().name())")
+    @Mapping(target = "progress", expression = "java(run.getTotalRanges() == 0 ? 1.0 : (double) run.getCompletedRanges() / run.getTotalRanges())")
+    ReconciliationRunResponse toReconciliationRunResponse(ReconciliationRun run);
+
+    ReconciliationDiscrepancyResponse toReconciliationDiscrepancyResponse(ReconciliationDiscrepancy discrepancy);
+}
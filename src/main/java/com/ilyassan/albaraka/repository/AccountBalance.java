@@ -0,0 +1,10 @@
+package com.ilyassan.albaraka.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection of an account's id and balance, used when only the balance is needed under a row lock, and for
+ * per-account sums of ledger movements.
+ */
+public record AccountBalance(Long id, BigDecimal balance) {
+}
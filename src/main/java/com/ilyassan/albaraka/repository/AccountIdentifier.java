@@ -0,0 +1,7 @@
+package com.ilyassan.albaraka.repository;
+
+/**
+ * Projection of an account's number and id, used to resolve account numbers in bulk.
+ */
+public record AccountIdentifier(String accountNumber, Long id) {
+}
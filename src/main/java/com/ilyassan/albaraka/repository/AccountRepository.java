@@ -1,14 +1,70 @@
 package com.ilyassan.albaraka.repository;
 
 import com.ilyassan.albaraka.entity.Account;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 
 @Repository
-public interface AccountRepository extends JpaRepository<Account, Long> {
+public interface AccountRepository extends JpaRepository<Account, Long>, AccountRepositoryCustom {
     Optional<Account> findByAccountNumber(String accountNumber);
     Optional<Account> findByUserId(Long userId);
+
+    @Query("SELECT new com.ilyassan.albaraka.repository.AccountIdentifier(a.accountNumber, a.id) FROM Account a " +
+            "WHERE a.accountNumber IN :accountNumbers")
+    List<AccountIdentifier> findIdsByAccountNumberIn(@Param("accountNumbers") Collection<String> accountNumbers);
+
+    /**
+     * Ids of accounts with history from before the ledger that have no opening entry yet: a completed transaction
+     * that was never posted, or a balance while the ledger has nothing for the account.
+     */
+    @Query("SELECT a.id FROM Account a " +
+            "WHERE NOT EXISTS (SELECT e.id FROM LedgerEntry e WHERE e.accountId = a.id AND e.transactionId IS NULL) " +
+            "AND ((a.balance <> 0 AND NOT EXISTS (SELECT e.id FROM LedgerEntry e WHERE e.accountId = a.id)) " +
+            "OR EXISTS (SELECT t.id FROM Transaction t " +
+            "WHERE t.status = com.ilyassan.albaraka.entity.TransactionStatus.COMPLETED " +
+            "AND (t.account.id = a.id OR t.beneficiaryAccountId = a.id) " +
+            "AND NOT EXISTS (SELECT e.id FROM LedgerEntry e WHERE e.transactionId = t.id))) ORDER BY a.id")
+    List<Long> findIdsWithPreLedgerHistory();
+
+    /**
+     * Locks the account row with {@code SELECT ... FOR UPDATE} and returns its current balance. A scalar result
+     * always comes from the database, even when the account is already in the persistence context with a
+     * stale balance. Callers that lock more than one account must do so in ascending id order.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a.balance FROM Account a WHERE a.id = :accountId")
+    Optional<BigDecimal> lockBalanceById(@Param("accountId") Long accountId);
+
+    /**
+     * Locks several account rows with one {@code SELECT ... FOR UPDATE ... ORDER BY id}, so the rows are locked in
+     * ascending id order like {@link #lockBalanceById}.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT new com.ilyassan.albaraka.repository.AccountBalance(a.id, a.balance) FROM Account a " +
+            "WHERE a.id IN :accountIds ORDER BY a.id")
+    List<AccountBalance> lockBalancesByIdIn(@Param("accountIds") Collection<Long> accountIds);
+
+    /**
+     * Applies a balance delta in a single UPDATE statement. The guard rejects any change that would
+     * take the balance below zero, so a debit racing another debit simply affects no row.
+     *
+     * @return the number of rows updated: 1 on success, 0 if the account is missing or funds are insufficient
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Account a SET a.balance = a.balance + :delta, a.updatedAt = :updatedAt " +
+            "WHERE a.id = :accountId AND a.balance + :delta >= 0")
+    int applyBalanceDelta(@Param("accountId") Long accountId,
+                          @Param("delta") BigDecimal delta,
+                          @Param("updatedAt") LocalDateTime updatedAt);
 }
@@ -0,0 +1,16 @@
+package com.ilyassan.albaraka.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+public interface AccountRepositoryCustom {
+
+    /**
+     * Applies several balance deltas as one JDBC batch, with the same overdraft guard as
+     * {@link AccountRepository#applyBalanceDelta}.
+     *
+     * @return the update count per delta, in the iteration order of {@code deltas}
+     */
+    int[] applyBalanceDeltas(Map<Long, BigDecimal> deltas, LocalDateTime updatedAt);
+}
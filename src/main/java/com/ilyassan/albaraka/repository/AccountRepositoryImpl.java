@@ -0,0 +1,28 @@
+package com.ilyassan.albaraka.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class AccountRepositoryImpl implements AccountRepositoryCustom {
+
+    private static final String APPLY_DELTA_SQL =
+            "UPDATE accounts SET balance = balance + ?, updated_at = ? WHERE id = ? AND balance + ? >= 0";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int[] applyBalanceDeltas(Map<Long, BigDecimal> deltas, LocalDateTime updatedAt) {
+        Timestamp timestamp = Timestamp.valueOf(updatedAt);
+        List<Object[]> batchArgs = new ArrayList<>(deltas.size());
+        deltas.forEach((accountId, delta) -> batchArgs.add(new Object[]{delta, timestamp, accountId, delta}));
+        return jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, batchArgs);
+    }
+}
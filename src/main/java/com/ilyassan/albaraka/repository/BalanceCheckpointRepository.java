@@ -0,0 +1,24 @@
+package com.ilyassan.albaraka.repository;
+
+import com.ilyassan.albaraka.entity.BalanceCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BalanceCheckpointRepository extends JpaRepository<BalanceCheckpoint, Long> {
+    Optional<BalanceCheckpoint> findFirstByAccountIdAndAsOfLessThanEqualOrderByAsOfDesc(Long accountId, LocalDateTime asOf);
+
+    @Query("SELECT c FROM BalanceCheckpoint c WHERE c.accountId IN :accountIds AND c.asOf = " +
+            "(SELECT MAX(l.asOf) FROM BalanceCheckpoint l WHERE l.accountId = c.accountId)")
+    List<BalanceCheckpoint> findLatestByAccountIdIn(@Param("accountIds") Collection<Long> accountIds);
+
+    @Query("SELECT MAX(c.asOf) FROM BalanceCheckpoint c")
+    Optional<LocalDateTime> findLatestAsOf();
+}
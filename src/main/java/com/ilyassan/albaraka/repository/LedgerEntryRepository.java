@@ -0,0 +1,93 @@
+package com.ilyassan.albaraka.repository;
+
+import com.ilyassan.albaraka.entity.LedgerEntry;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+    List<LedgerEntry> findByTransactionId(Long transactionId);
+
+    Stream<LedgerEntry> streamByAccountIdOrderById(Long accountId);
+
+    // Accounts that already have an opening entry, the only entries without a transaction
+    @Query("SELECT DISTINCT e.accountId FROM LedgerEntry e WHERE e.accountId IN :accountIds AND e.transactionId IS NULL")
+    List<Long> findOpenedAccountIdsIn(@Param("accountIds") Collection<Long> accountIds);
+
+    @Query("SELECT DISTINCT e.transactionId FROM LedgerEntry e WHERE e.transactionId IN :transactionIds")
+    List<Long> findPostedTransactionIdsIn(@Param("transactionIds") Collection<Long> transactionIds);
+
+    @Query("SELECT COALESCE(SUM(CASE WHEN e.direction = com.ilyassan.albaraka.entity.EntryDirection.CREDIT " +
+            "THEN e.amount ELSE -e.amount END), 0) FROM LedgerEntry e WHERE e.accountId = :accountId")
+    BigDecimal sumByAccountId(@Param("accountId") Long accountId);
+
+    @Query("SELECT COALESCE(SUM(CASE WHEN e.direction = com.ilyassan.albaraka.entity.EntryDirection.CREDIT " +
+            "THEN e.amount ELSE -e.amount END), 0) FROM LedgerEntry e " +
+            "WHERE e.accountId = :accountId AND e.createdAt <= :to")
+    BigDecimal sumByAccountIdUpTo(@Param("accountId") Long accountId, @Param("to") LocalDateTime to);
+
+    @Query("SELECT COALESCE(SUM(CASE WHEN e.direction = com.ilyassan.albaraka.entity.EntryDirection.CREDIT " +
+            "THEN e.amount ELSE -e.amount END), 0) FROM LedgerEntry e " +
+            "WHERE e.accountId = :accountId AND e.createdAt > :from AND e.createdAt <= :to")
+    BigDecimal sumByAccountIdBetween(@Param("accountId") Long accountId,
+                                     @Param("from") LocalDateTime from,
+                                     @Param("to") LocalDateTime to);
+
+    @Query("SELECT new com.ilyassan.albaraka.repository.AccountBalance(e.accountId, " +
+            "SUM(CASE WHEN e.direction = com.ilyassan.albaraka.entity.EntryDirection.CREDIT THEN e.amount ELSE -e.amount END)) " +
+            "FROM LedgerEntry e WHERE e.accountId IS NOT NULL AND e.createdAt > :from AND e.createdAt <= :to " +
+            "GROUP BY e.accountId")
+    List<AccountBalance> sumByAccountBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Entries of the account posted in [from, to), oldest first; must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.ilyassan.albaraka.repository.LedgerStatementRow(e.id, e.transactionId, e.createdAt, " +
+            "COALESCE(t.type, 'OPENING_BALANCE'), e.direction, e.amount) " +
+            "FROM LedgerEntry e LEFT JOIN Transaction t ON t.id = e.transactionId " +
+            "WHERE e.accountId = :accountId AND e.createdAt >= :from AND e.createdAt < :to ORDER BY e.createdAt, e.id")
+    Stream<LedgerStatementRow> streamStatement(@Param("accountId") Long accountId,
+                                               @Param("from") LocalDateTime from,
+                                               @Param("to") LocalDateTime to);
+
+    // The account's side of each transaction posted in [from, to), so export lines fall in the same period as
+    // camt.053 entries; must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.ilyassan.albaraka.repository.StatementRow(t.id, e.createdAt, t.type, t.amount, " +
+            "t.account.id, t.beneficiaryAccountId) FROM LedgerEntry e JOIN Transaction t ON t.id = e.transactionId " +
+            "WHERE e.accountId = :accountId AND e.createdAt >= :from AND e.createdAt < :to ORDER BY e.createdAt, e.id")
+    Stream<StatementRow> streamTransactionStatement(@Param("accountId") Long accountId,
+                                                    @Param("from") LocalDateTime from,
+                                                    @Param("to") LocalDateTime to);
+
+    // Same entries as streamStatement
+    @Query("SELECT new com.ilyassan.albaraka.repository.StatementTotals(" +
+            "COALESCE(SUM(CASE WHEN e.direction = com.ilyassan.albaraka.entity.EntryDirection.CREDIT THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN e.direction = com.ilyassan.albaraka.entity.EntryDirection.CREDIT THEN e.amount ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN e.direction = com.ilyassan.albaraka.entity.EntryDirection.CREDIT THEN 0 ELSE 1 END), 0), " +
+            "COALESCE(SUM(CASE WHEN e.direction = com.ilyassan.albaraka.entity.EntryDirection.CREDIT THEN 0 ELSE e.amount END), 0)) " +
+            "FROM LedgerEntry e WHERE e.accountId = :accountId AND e.createdAt >= :from AND e.createdAt < :to")
+    StatementTotals sumStatement(@Param("accountId") Long accountId,
+                                 @Param("from") LocalDateTime from,
+                                 @Param("to") LocalDateTime to);
+
+    @Query("SELECT MIN(e.createdAt) FROM LedgerEntry e")
+    Optional<LocalDateTime> findEarliestCreatedAt();
+}
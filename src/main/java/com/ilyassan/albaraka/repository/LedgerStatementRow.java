@@ -0,0 +1,14 @@
+package com.ilyassan.albaraka.repository;
+
+import com.ilyassan.albaraka.entity.EntryDirection;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Projection of one ledger entry of an account for bank statements, with the type of the transaction it belongs to.
+ * Opening balances belong to no transaction and have the type {@code OPENING_BALANCE}.
+ */
+public record LedgerStatementRow(Long entryId, Long transactionId, LocalDateTime postedAt, String type,
+                                 EntryDirection direction, BigDecimal amount) {
+}
@@ -0,0 +1,12 @@
+package com.ilyassan.albaraka.repository;
+
+import com.ilyassan.albaraka.entity.ReconciliationDiscrepancy;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReconciliationDiscrepancyRepository extends JpaRepository<ReconciliationDiscrepancy, Long> {
+    Page<ReconciliationDiscrepancy> findByRunIdOrderByAccountId(Long runId, Pageable pageable);
+}
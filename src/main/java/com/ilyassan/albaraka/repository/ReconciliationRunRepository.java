@@ -0,0 +1,33 @@
+package com.ilyassan.albaraka.repository;
+
+import com.ilyassan.albaraka.entity.ReconciliationRun;
+import com.ilyassan.albaraka.entity.ReconciliationStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ReconciliationRunRepository extends JpaRepository<ReconciliationRun, Long> {
+    List<ReconciliationRun> findTop20ByOrderByIdDesc();
+
+    @Modifying
+    @Query("UPDATE ReconciliationRun r SET r.completedRanges = r.completedRanges + 1, " +
+            "r.accountsChecked = r.accountsChecked + :accountsChecked, " +
+            "r.discrepancies = r.discrepancies + :discrepancies WHERE r.id = :runId")
+    int recordRangeCompleted(@Param("runId") Long runId,
+                             @Param("accountsChecked") long accountsChecked,
+                             @Param("discrepancies") long discrepancies);
+
+    @Modifying
+    @Query("UPDATE ReconciliationRun r SET r.status = :status, r.error = :error, r.finishedAt = :finishedAt " +
+            "WHERE r.id = :runId")
+    int finish(@Param("runId") Long runId,
+               @Param("status") ReconciliationStatus status,
+               @Param("error") String error,
+               @Param("finishedAt") LocalDateTime finishedAt);
+}
@@ -0,0 +1,12 @@
+package com.ilyassan.albaraka.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Projection of a completed transaction for statement export, timestamped when it was posted to the ledger. It is not a managed entity, so streaming millions
+ * of rows does not grow the persistence context.
+ */
+public record StatementRow(Long id, LocalDateTime createdAt, String type, BigDecimal amount,
+                           Long accountId, Long beneficiaryAccountId) {
+}
@@ -0,0 +1,17 @@
+package com.ilyassan.albaraka.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Number and sum of the credits and debits an account received in a statement period.
+ */
+public record StatementTotals(Long creditCount, BigDecimal credits, Long debitCount, BigDecimal debits) {
+
+    public long entryCount() {
+        return creditCount + debitCount;
+    }
+
+    public BigDecimal net() {
+        return credits.subtract(debits);
+    }
+}
@@ -0,0 +1,25 @@
+package com.ilyassan.albaraka.repository;
+
+import com.ilyassan.albaraka.entity.TokenRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, Long> {
+    @Query("SELECT MAX(r.revokedAt) FROM TokenRevocation r WHERE r.revocationKey = :key AND r.expiresAt > :now")
+    Optional<LocalDateTime> findLatestRevokedAt(@Param("key") String key, @Param("now") LocalDateTime now);
+
+    @Query("SELECT DISTINCT r.revocationKey FROM TokenRevocation r WHERE r.expiresAt > :now")
+    List<String> findActiveKeys(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM TokenRevocation r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -2,16 +2,60 @@ package com.ilyassan.albaraka.repository;
 
 import com.ilyassan.albaraka.entity.Transaction;
 import com.ilyassan.albaraka.entity.TransactionStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     Page<Transaction> findByAccountId(Long accountId, Pageable pageable);
     List<Transaction> findByStatus(TransactionStatus status);
+
+    long countByStatus(TransactionStatus status);
     List<Transaction> findByAccountIdAndStatus(Long accountId, TransactionStatus status);
+    Optional<Transaction> findByAccountIdAndIdempotencyKey(Long accountId, String idempotencyKey);
+
+    @Query("SELECT t.idempotencyKey FROM Transaction t WHERE t.account.id = :accountId AND t.idempotencyKey IN :keys")
+    List<String> findIdempotencyKeysIn(@Param("accountId") Long accountId, @Param("keys") Collection<String> keys);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Transaction t WHERE t.id = :transactionId")
+    Optional<Transaction> findByIdForUpdate(@Param("transactionId") Long transactionId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Transaction t WHERE t.id IN :transactionIds ORDER BY t.id")
+    List<Transaction> findAllByIdForUpdate(@Param("transactionIds") Collection<Long> transactionIds);
+
+    // Completed transactions from before the ledger, which were never posted; oldest first
+    @Query("SELECT t FROM Transaction t WHERE t.status = com.ilyassan.albaraka.entity.TransactionStatus.COMPLETED " +
+            "AND NOT EXISTS (SELECT e.id FROM LedgerEntry e WHERE e.transactionId = t.id) ORDER BY t.id")
+    List<Transaction> findUnposted(Pageable limit);
+
+    @Query("SELECT t FROM Transaction t WHERE t.status = com.ilyassan.albaraka.entity.TransactionStatus.COMPLETED " +
+            "AND (t.account.id IN :accountIds OR t.beneficiaryAccountId IN :accountIds) " +
+            "AND NOT EXISTS (SELECT e.id FROM LedgerEntry e WHERE e.transactionId = t.id)")
+    List<Transaction> findUnpostedByAccountIdIn(@Param("accountIds") Collection<Long> accountIds);
+
+    // Keyset pages, newest first; a List return type keeps Spring Data from issuing a COUNT query
+    @Query("SELECT t FROM Transaction t WHERE t.account.id = :accountId ORDER BY t.createdAt DESC, t.id DESC")
+    List<Transaction> findLatestByAccountId(@Param("accountId") Long accountId, Pageable limit);
+
+    // A row-value comparison, so Postgres seeks idx_transactions_account_created_id instead of filtering newer rows
+    @Query("SELECT t FROM Transaction t WHERE t.account.id = :accountId " +
+            "AND (t.createdAt, t.id) < (:createdAt, :id) " +
+            "ORDER BY t.createdAt DESC, t.id DESC")
+    List<Transaction> findByAccountIdBefore(@Param("accountId") Long accountId,
+                                            @Param("createdAt") LocalDateTime createdAt,
+                                            @Param("id") Long id,
+                                            Pageable limit);
 }
@@ -0,0 +1,154 @@
+package com.ilyassan.albaraka.security;
+
+import com.ilyassan.albaraka.dto.ConcurrencyLimitStatsResponse;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An in-flight request limit that adapts to measured latency, AIMD style.
+ * <p>
+ * Each completed request reports how long it took. A request slower than the latency threshold, or one that
+ * failed with a server error, means the database is congested: the limit is cut by the backoff ratio. A fast
+ * request while at least half the limit is in use raises the limit by one, so the limit only grows under load
+ * that needs it. When the limit is reached a request waits briefly in a bounded queue; when the queue is full too
+ * it is rejected at once, so excess load is shed before it occupies a thread for the length of a slow query.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final String name;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final long latencyThresholdNanos;
+
+    private final double backoffRatio;
+
+    private final int maxQueue;
+
+    private final long maxWaitNanos;
+
+    // All state is guarded by this; the critical sections are a few field updates
+    private double limit;
+
+    private int inFlight;
+
+    private int queued;
+
+    private long rejected;
+
+    private long congestionSignals;
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                                      Duration latencyThreshold, double backoffRatio, int maxQueue, Duration maxWait) {
+        this.name = name;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.maxQueue = maxQueue;
+        this.maxWaitNanos = maxWait.toNanos();
+    }
+
+    /**
+     * Takes a slot, waiting up to the maximum wait if the limit is reached and the queue has room.
+     *
+     * @return whether the request may proceed; if so, {@link #release} must be called when it completes
+     */
+    public synchronized boolean tryAcquire() throws InterruptedException {
+        if (inFlight < (int) limit) {
+            inFlight++;
+            return true;
+        }
+        if (queued >= maxQueue || maxWaitNanos <= 0) {
+            rejected++;
+            return false;
+        }
+
+        queued++;
+        try {
+            long deadline = System.nanoTime() + maxWaitNanos;
+            while (inFlight >= (int) limit) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    rejected++;
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+            inFlight++;
+            return true;
+        } finally {
+            queued--;
+        }
+    }
+
+    /**
+     * Frees the slot of a completed request and adjusts the limit from how it went.
+     *
+     * @param latencyNanos how long the request took
+     * @param failed       whether it failed in a way that indicates overload, such as a server error
+     */
+    public synchronized void release(long latencyNanos, boolean failed) {
+        boolean wasSaturated = inFlight * 2 >= (int) limit;
+        inFlight--;
+
+        if (failed || latencyNanos > latencyThresholdNanos) {
+            congestionSignals++;
+            limit = Math.max(minLimit, limit * backoffRatio);
+        } else if (wasSaturated) {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+        notifyAll();
+    }
+
+    /**
+     * Frees the slot of a request whose duration says nothing about the database, such as a streamed export that
+     * runs as long as the client keeps reading. Only a failure adjusts the limit.
+     */
+    public synchronized void releaseWithoutLatency(boolean failed) {
+        inFlight--;
+        if (failed) {
+            congestionSignals++;
+            limit = Math.max(minLimit, limit * backoffRatio);
+        }
+        notifyAll();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getQueueDepth() {
+        return queued;
+    }
+
+    public synchronized long getRejectedCount() {
+        return rejected;
+    }
+
+    public synchronized ConcurrencyLimitStatsResponse getStats() {
+        return ConcurrencyLimitStatsResponse.builder()
+                .name(name)
+                .limit((int) limit)
+                .minLimit(minLimit)
+                .maxLimit(maxLimit)
+                .inFlight(inFlight)
+                .queueDepth(queued)
+                .maxQueue(maxQueue)
+                .rejected(rejected)
+                .congestionSignals(congestionSignals)
+                .build();
+    }
+}
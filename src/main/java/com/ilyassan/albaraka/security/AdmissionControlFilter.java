@@ -0,0 +1,176 @@
+package com.ilyassan.albaraka.security;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admits transaction requests through {@link TransactionAdmissionControl} and feeds their latency back into it.
+ * <p>
+ * The latency is the time spent in {@code TransactionService} calls, as reported through {@link #recordServiceTime},
+ * and the dispatch time for requests that made none, such as history reads. Streaming exports and pain.001 uploads
+ * hold their slot until the async body has been written, but only for concurrency: they run as long as the client
+ * reads or the file lasts, so their duration is not a latency signal. A request counts as failed when it ends in a
+ * 5xx, throws, times out, or was marked with {@link #markFailed} because a database error was turned into a client
+ * response further down. Requests turned away get 503 with {@code Retry-After}.
+ */
+@Slf4j
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final String FAILED_ATTRIBUTE = AdmissionControlFilter.class.getName() + ".FAILED";
+
+    private static final String SERVICE_NANOS_ATTRIBUTE = AdmissionControlFilter.class.getName() + ".SERVICE_NANOS";
+
+    private final TransactionAdmissionControl admissionControl;
+
+    public AdmissionControlFilter(TransactionAdmissionControl admissionControl) {
+        this.admissionControl = admissionControl;
+    }
+
+    /**
+     * Reports the request as failed for admission control even though its response may not be a server error.
+     */
+    public static void markFailed(ServletRequest request) {
+        request.setAttribute(FAILED_ATTRIBUTE, Boolean.TRUE);
+    }
+
+    /**
+     * Same as {@link #markFailed(ServletRequest)} for the request bound to the current thread; does nothing off a
+     * request thread.
+     */
+    public static void markCurrentRequestFailed() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            markFailed(attributes.getRequest());
+        }
+    }
+
+    /**
+     * Adds the duration of a service call to the latency of the request bound to the current thread; does nothing
+     * off a request thread.
+     */
+    public static void recordServiceTime(long nanos) {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            HttpServletRequest request = attributes.getRequest();
+            Object recorded = request.getAttribute(SERVICE_NANOS_ATTRIBUTE);
+            request.setAttribute(SERVICE_NANOS_ATTRIBUTE, recorded instanceof Long total ? total + nanos : nanos);
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!path.startsWith("/api/transactions")) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        AdaptiveConcurrencyLimiter limiter = HttpMethod.GET.matches(request.getMethod())
+                ? admissionControl.getReads()
+                : admissionControl.getWrites();
+        boolean admitted;
+        try {
+            admitted = limiter.tryAcquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+
+        if (!admitted) {
+            log.debug("Shed {} {} at concurrency limit {}", request.getMethod(), path, limiter.getLimit());
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.getWriter().write("Server busy, please retry");
+            return;
+        }
+
+        Slot slot = new Slot(limiter, request, response);
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                // The container completes the async context only after this dispatch returns
+                slot.async = true;
+                request.getAsyncContext().addListener(slot);
+            }
+        } catch (IOException | ServletException | RuntimeException e) {
+            slot.release(true);
+            throw e;
+        } finally {
+            if (!slot.async) {
+                slot.release(false);
+            }
+        }
+    }
+
+    /**
+     * The slot of one admitted request, released exactly once: when the dispatch returns, or when its async
+     * processing completes, times out or fails.
+     */
+    private static class Slot implements AsyncListener {
+
+        private final AdaptiveConcurrencyLimiter limiter;
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+        private final long start = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile boolean async;
+
+        Slot(AdaptiveConcurrencyLimiter limiter, HttpServletRequest request, HttpServletResponse response) {
+            this.limiter = limiter;
+            this.request = request;
+            this.response = response;
+        }
+
+        void release(boolean failed) {
+            if (released.compareAndSet(false, true)) {
+                boolean serverError = response.getStatus() >= 500;
+                boolean marked = Boolean.TRUE.equals(request.getAttribute(FAILED_ATTRIBUTE));
+                boolean congested = failed || serverError || marked;
+                if (request.getAttribute(SERVICE_NANOS_ATTRIBUTE) instanceof Long serviceNanos) {
+                    limiter.release(serviceNanos, congested);
+                } else if (async) {
+                    limiter.releaseWithoutLatency(congested);
+                } else {
+                    limiter.release(System.nanoTime() - start, congested);
+                }
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release(false);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release(true);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release(true);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // A nested startAsync drops the listeners unless they register again
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
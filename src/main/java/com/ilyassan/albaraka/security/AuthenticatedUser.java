@@ -0,0 +1,18 @@
+package com.ilyassan.albaraka.security;
+
+import com.ilyassan.albaraka.entity.UserRole;
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+/**
+ * The caller of a request, as stated by the claims of its token. Controllers take it as a method parameter instead
+ * of looking up the user and the account on every call. {@code accountId} is {@code null} for users without an
+ * account, such as administrators.
+ */
+public record AuthenticatedUser(Long userId, String email, UserRole role, Long accountId)
+        implements AuthenticatedPrincipal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
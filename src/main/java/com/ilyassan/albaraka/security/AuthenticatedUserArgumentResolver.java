@@ -0,0 +1,58 @@
+package com.ilyassan.albaraka.security;
+
+import com.ilyassan.albaraka.entity.Account;
+import com.ilyassan.albaraka.entity.User;
+import com.ilyassan.albaraka.exception.ResourceNotFoundException;
+import com.ilyassan.albaraka.repository.UserRepository;
+import com.ilyassan.albaraka.service.AccountService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Supplies {@link AuthenticatedUser} controller parameters from the security context.
+ * <p>
+ * Requests authenticated with a current token already carry the principal and cost nothing here. Tokens issued
+ * before the claims were added, and other authentication mechanisms, are resolved from the database by email.
+ * Anonymous requests resolve to {@code null} and are turned away by the method's {@code @PreAuthorize}.
+ */
+@Component
+public class AuthenticatedUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return AuthenticatedUser.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+
+        if (authentication.getPrincipal() instanceof AuthenticatedUser principal) {
+            return principal;
+        }
+
+        User user = userRepository.findByEmail(authentication.getName())
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        Long accountId = accountService.getAccountByUserId(user.getId()).map(Account::getId).orElse(null);
+        return new AuthenticatedUser(user.getId(), user.getEmail(), user.getRole(), accountId);
+    }
+}
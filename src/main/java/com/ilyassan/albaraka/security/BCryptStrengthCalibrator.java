@@ -0,0 +1,37 @@
+package com.ilyassan.albaraka.security;
+
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.time.Duration;
+
+/**
+ * Picks the BCrypt cost whose hash takes about a target time on this machine. Each cost step doubles the work,
+ * so one measurement at a cheap cost is enough to extrapolate.
+ */
+final class BCryptStrengthCalibrator {
+
+    private static final int PROBE_STRENGTH = 8;
+
+    private static final int PROBES = 5;
+
+    private BCryptStrengthCalibrator() {
+    }
+
+    static int calibrate(Duration target, int minStrength, int maxStrength) {
+        String salt = BCrypt.gensalt(PROBE_STRENGTH);
+        long fastest = Long.MAX_VALUE;
+        // The first rounds run interpreted; keep the fastest of a few
+        for (int i = 0; i < PROBES; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration-password", salt);
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        return strengthFor(target.toNanos(), fastest, minStrength, maxStrength);
+    }
+
+    static int strengthFor(long targetNanos, long probeNanos, int minStrength, int maxStrength) {
+        double doublings = Math.log((double) targetNanos / Math.max(1, probeNanos)) / Math.log(2);
+        int strength = PROBE_STRENGTH + (int) Math.round(doublings);
+        return Math.max(minStrength, Math.min(maxStrength, strength));
+    }
+}
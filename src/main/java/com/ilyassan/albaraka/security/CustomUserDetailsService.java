@@ -5,17 +5,22 @@ import com.ilyassan.albaraka.repository.UserRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @Slf4j
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         User user = userRepository.findByEmail(email)
@@ -23,6 +28,37 @@ public class CustomUserDetailsService implements UserDetailsService {
         return user;
     }
 
+    /**
+     * Loads the principal of an already authenticated request, from {@link PrincipalCache} when possible. The
+     * result is an immutable snapshot without the password hash, which token authentication does not need.
+     */
+    public UserDetails loadPrincipalByUsername(String email) throws UsernameNotFoundException {
+        return principalCache.get(email, () -> {
+            User user = userRepository.findByEmail(email)
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
+            return org.springframework.security.core.userdetails.User.withUsername(user.getEmail())
+                    .password("")
+                    .authorities(user.getAuthorities())
+                    .disabled(!user.isEnabled())
+                    .build();
+        });
+    }
+
+    /**
+     * Stores a rehashed password. Called by the authentication provider after a successful login whose stored hash
+     * has a lower BCrypt cost than the one configured.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePassword(user.getUsername(), newPassword);
+        log.info("Rehashed password of {} with the current BCrypt cost", user.getUsername());
+        if (user instanceof User entity) {
+            entity.setPassword(newPassword);
+        }
+        return user;
+    }
+
     public UserDetails loadUserById(Long id) throws UsernameNotFoundException {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + id));
@@ -4,12 +4,13 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import com.ilyassan.albaraka.jfr.JwtAuthenticationEvent;
+import com.ilyassan.albaraka.service.TokenRevocationService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -23,25 +24,52 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private JwtTokenProvider tokenProvider;
 
     @Autowired
-    private UserDetailsService userDetailsService;
+    private CustomUserDetailsService userDetailsService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
+        String jwt = getJwtFromRequest(request);
+        boolean hasToken = StringUtils.hasText(jwt);
+        JwtAuthenticationEvent event = new JwtAuthenticationEvent();
+        event.begin();
+        String outcome = "error";
         try {
-            String jwt = getJwtFromRequest(request);
+            VerifiedTokenCache.VerifiedToken verified = hasToken ? tokenProvider.verify(jwt) : null;
+            if (verified == null) {
+                outcome = "invalid";
+            } else if (tokenRevocationService.isRevoked(verified)) {
+                verified = null;
+                outcome = "revoked";
+            }
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String email = tokenProvider.getEmailFromToken(jwt);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+            UserDetails userDetails = verified != null ? userDetailsService.loadPrincipalByUsername(verified.subject()) : null;
+
+            if (userDetails != null && userDetails.isEnabled()) {
+                // Authorities come from the principal cache, so they follow role changes; ids come from the token
+                Object principal = verified.hasIdentityClaims()
+                        ? new AuthenticatedUser(verified.userId(), verified.subject(), verified.role(), verified.accountId())
+                        : userDetails;
                 UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                        new UsernamePasswordAuthenticationToken(principal, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
+                outcome = "authenticated";
+            } else if (userDetails != null) {
+                outcome = "disabled";
             }
         } catch (Exception ex) {
             log.error("Could not set user authentication in security context", ex);
+        } finally {
+            // Requests without a bearer token, such as logins, are not recorded
+            if (hasToken && event.shouldCommit()) {
+                event.outcome = outcome;
+                event.commit();
+            }
         }
 
         filterChain.doFilter(request, response);
@@ -1,13 +1,18 @@
 package com.ilyassan.albaraka.security;
 
+import com.ilyassan.albaraka.entity.User;
+import com.ilyassan.albaraka.entity.UserRole;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
+import javax.crypto.SecretKey;
+import java.time.Duration;
 import java.util.Date;
+import java.util.UUID;
 
 @Component
 @Slf4j
@@ -15,49 +20,93 @@ public class JwtTokenProvider {
 
     private String jwtSecret = "723be2eb547f2b6c7660f70c2247c5b7";
 
-    private long jwtExpiration = 86400000; // 24 hours in milliseconds
+    // Short-lived; clients renew access tokens with a refresh token instead of logging in again
+    @Value("${app.jwt.access-token-ttl:PT15M}")
+    private Duration accessTokenTtl = Duration.ofMinutes(15);
 
-    public String generateToken(Authentication authentication) {
-        String email = authentication.getName();
+    private static final String USER_ID_CLAIM = "uid";
+
+    private static final String ROLE_CLAIM = "role";
+
+    private static final String ACCOUNT_ID_CLAIM = "aid";
+
+    // Derived once; the parser is immutable and safe to share between request threads
+    private final SecretKey signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+
+    private final JwtParser parser = Jwts.parser().verifyWith(signingKey).build();
+
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    /**
+     * Issues a token that carries the user's id, role and account id, so requests made with it need no lookups to
+     * identify the caller.
+     *
+     * @param accountId the user's account, or {@code null} if it has none
+     */
+    public String generateToken(User user, Long accountId) {
         Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + jwtExpiration);
+        Date expiryDate = new Date(now.getTime() + accessTokenTtl.toMillis());
 
-        return Jwts.builder()
-                .subject(email)
+        JwtBuilder builder = Jwts.builder()
+                .id(UUID.randomUUID().toString())
+                .subject(user.getEmail())
+                .claim(USER_ID_CLAIM, user.getId())
+                .claim(ROLE_CLAIM, user.getRole().name())
                 .issuedAt(now)
-                .expiration(expiryDate)
-                .signWith(Keys.hmacShaKeyFor(jwtSecret.getBytes()))
-                .compact();
+                .expiration(expiryDate);
+        if (accountId != null) {
+            builder.claim(ACCOUNT_ID_CLAIM, accountId);
+        }
+        return builder.signWith(signingKey).compact();
     }
 
     public String generateTokenFromEmail(String email) {
         Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + jwtExpiration);
+        Date expiryDate = new Date(now.getTime() + accessTokenTtl.toMillis());
 
         return Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(email)
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(Keys.hmacShaKeyFor(jwtSecret.getBytes()))
+                .signWith(signingKey)
                 .compact();
     }
 
-    public String getEmailFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(Keys.hmacShaKeyFor(jwtSecret.getBytes()))
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getSubject();
+    /**
+     * Verifies the token and returns its subject, from the cache when the same token was verified before.
+     *
+     * @return the verified token, or {@code null} if it is invalid or expired
+     */
+    public VerifiedTokenCache.VerifiedToken verify(String token) {
+        VerifiedTokenCache.VerifiedToken cached = verifiedTokenCache.get(token, System.currentTimeMillis());
+        if (cached != null) {
+            return cached;
+        }
+
+        Claims claims = parseClaims(token);
+        if (claims == null || claims.getExpiration() == null) {
+            return null;
+        }
+
+        String role = claims.get(ROLE_CLAIM, String.class);
+        long issuedAt = claims.getIssuedAt() == null ? 0 : claims.getIssuedAt().getTime();
+        VerifiedTokenCache.VerifiedToken verified = new VerifiedTokenCache.VerifiedToken(claims.getSubject(),
+                claims.getId(), claims.get(USER_ID_CLAIM, Long.class), role == null ? null : UserRole.valueOf(role),
+                claims.get(ACCOUNT_ID_CLAIM, Long.class), issuedAt, claims.getExpiration().getTime());
+        verifiedTokenCache.put(token, verified);
+        return verified;
     }
 
-    public boolean validateToken(String token) {
+    /**
+     * Checks the signature and expiry in a single parse.
+     *
+     * @return the token's claims, or {@code null} if it is not valid
+     */
+    public Claims parseClaims(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(Keys.hmacShaKeyFor(jwtSecret.getBytes()))
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
+            return parser.parseSignedClaims(token).getPayload();
         } catch (MalformedJwtException ex) {
             log.error("Invalid JWT token: {}", ex.getMessage());
         } catch (ExpiredJwtException ex) {
@@ -69,6 +118,20 @@ public class JwtTokenProvider {
         } catch (SignatureException ex) {
             log.error("JWT signature validation failed: {}", ex.getMessage());
         }
-        return false;
+        return null;
+    }
+
+    public Duration getAccessTokenTtl() {
+        return accessTokenTtl;
+    }
+
+    public String getEmailFromToken(String token) {
+        return parser.parseSignedClaims(token)
+                .getPayload()
+                .getSubject();
+    }
+
+    public boolean validateToken(String token) {
+        return parseClaims(token) != null;
     }
 }
@@ -0,0 +1,106 @@
+package com.ilyassan.albaraka.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ilyassan.albaraka.dto.PrincipalCacheStatsResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the authenticated principal of recently seen users in memory, keyed by email, so the security filter does
+ * not read the user row on every request.
+ * <p>
+ * Entries live for a fixed TTL in a bounded concurrent cache. Changes to a user invalidate its entry once they
+ * commit, and a load that started before an invalidation is not stored, so a stale row read concurrently with the
+ * change cannot repopulate the cache. Cached principals are immutable snapshots, never managed entities.
+ */
+@Component
+public class PrincipalCache {
+
+    private final Cache<String, UserDetails> principals;
+
+    private final int maxSize;
+
+    private final long ttlNanos;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    // Bumped on every invalidation; loads compare it before storing their result
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public PrincipalCache(@Value("${app.security.principal-cache.max-size:10000}") int maxSize,
+                          @Value("${app.security.principal-cache.ttl:PT5M}") Duration ttl) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Returns the cached principal for {@code email}, or loads it with {@code loader} and caches it.
+     */
+    public UserDetails get(String email, Supplier<UserDetails> loader) {
+        UserDetails cached = principals.getIfPresent(email);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        misses.increment();
+        long generation = invalidations.get();
+        UserDetails principal = loader.get();
+        // Checked under the entry's lock, which evict() also takes after bumping the counter
+        principals.asMap().compute(email, (key, current) -> invalidations.get() == generation ? principal : current);
+        return principal;
+    }
+
+    /**
+     * Drops the entry for {@code email} when the current transaction commits, or right away outside a transaction.
+     */
+    public void invalidate(String email) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(email);
+                }
+            });
+        } else {
+            evict(email);
+        }
+    }
+
+    public PrincipalCacheStatsResponse getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        principals.cleanUp();
+        int size = (int) principals.estimatedSize();
+
+        return PrincipalCacheStatsResponse.builder()
+                .size(size)
+                .maxSize(maxSize)
+                .ttlSeconds(Duration.ofNanos(ttlNanos).toSeconds())
+                .hits(hitCount)
+                .misses(missCount)
+                .hitRatio(hitCount + missCount == 0 ? 0 : (double) hitCount / (hitCount + missCount))
+                .invalidations(invalidations.get())
+                .build();
+    }
+
+    private void evict(String email) {
+        invalidations.incrementAndGet();
+        principals.invalidate(email);
+    }
+}
@@ -0,0 +1,80 @@
+package com.ilyassan.albaraka.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies {@link RateLimiter} after token authentication. Login and refresh are limited per client address, since
+ * the caller is not known yet; transaction endpoints per user, or per address for anonymous requests. Requests
+ * over the limit get 429 with a {@code Retry-After} in seconds and never reach a controller or the database.
+ */
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiter rateLimiter;
+
+    public RateLimitFilter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        RateLimiter.EndpointClass endpointClass = classify(request.getMethod(), path);
+
+        if (endpointClass != null) {
+            String clientKey = endpointClass == RateLimiter.EndpointClass.AUTH
+                    ? "ip:" + request.getRemoteAddr()
+                    : clientKey(request);
+            long waitNanos = rateLimiter.tryAcquire(endpointClass, clientKey);
+            if (waitNanos > 0) {
+                long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+                log.debug("Rate limited {} request from {}, retry after {}s", endpointClass, clientKey, retryAfter);
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+                response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+                response.getWriter().write("Too many requests, please retry later");
+                return;
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private static RateLimiter.EndpointClass classify(String method, String path) {
+        if (HttpMethod.POST.matches(method) && (path.equals("/api/auth/login") || path.equals("/api/auth/refresh"))) {
+            return RateLimiter.EndpointClass.AUTH;
+        }
+        if (path.startsWith("/api/transactions")) {
+            return RateLimiter.EndpointClass.TRANSACTIONS;
+        }
+        return null;
+    }
+
+    private static String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return "user:" + user.userId();
+        }
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,133 @@
+package com.ilyassan.albaraka.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-client token buckets, one set per endpoint class.
+ * <p>
+ * Each bucket is a single {@code AtomicLong} holding its theoretical arrival time, as in the generic cell rate
+ * algorithm: a request advances it by one emission interval ({@code 1 / per-second}) and is allowed while it stays
+ * within {@code burst} intervals of now. That is exactly a token bucket of {@code burst} tokens refilled at
+ * {@code per-second}, updated with one compare-and-set and no lock or timer.
+ * <p>
+ * A bucket whose arrival time has passed is full, the same as no bucket at all, so the sweep drops those. A
+ * request racing with the sweep may consume from a bucket just dropped, which at worst grants one extra request.
+ */
+@Component
+@Slf4j
+public class RateLimiter {
+
+    public enum EndpointClass {
+        AUTH, TRANSACTIONS
+    }
+
+    private record Limit(long intervalNanos, long toleranceNanos) {
+    }
+
+    private final Map<EndpointClass, Limit> limits = new EnumMap<>(EndpointClass.class);
+
+    private final Map<EndpointClass, ConcurrentHashMap<String, AtomicLong>> buckets = new EnumMap<>(EndpointClass.class);
+
+    private final Map<EndpointClass, LongAdder> rejections = new EnumMap<>(EndpointClass.class);
+
+    private final LongSupplier clock;
+
+    @Autowired
+    public RateLimiter(@Value("${app.rate-limit.auth.burst:10}") int authBurst,
+                       @Value("${app.rate-limit.auth.per-second:1}") double authPerSecond,
+                       @Value("${app.rate-limit.transactions.burst:50}") int transactionsBurst,
+                       @Value("${app.rate-limit.transactions.per-second:20}") double transactionsPerSecond) {
+        this(authBurst, authPerSecond, transactionsBurst, transactionsPerSecond, System::nanoTime);
+    }
+
+    RateLimiter(int authBurst, double authPerSecond, int transactionsBurst, double transactionsPerSecond,
+                LongSupplier clock) {
+        this.clock = clock;
+        limits.put(EndpointClass.AUTH, limit(authBurst, authPerSecond));
+        limits.put(EndpointClass.TRANSACTIONS, limit(transactionsBurst, transactionsPerSecond));
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            buckets.put(endpointClass, new ConcurrentHashMap<>());
+            rejections.put(endpointClass, new LongAdder());
+        }
+    }
+
+    private static Limit limit(int burst, double perSecond) {
+        long interval = Math.max(1, Math.round(1_000_000_000L / perSecond));
+        return new Limit(interval, interval * Math.max(1, burst));
+    }
+
+    /**
+     * Takes one token from the client's bucket for the endpoint class.
+     *
+     * @return 0 if the request is allowed, otherwise the nanoseconds until a token is available
+     */
+    public long tryAcquire(EndpointClass endpointClass, String clientKey) {
+        Limit limit = limits.get(endpointClass);
+        ConcurrentHashMap<String, AtomicLong> classBuckets = buckets.get(endpointClass);
+        long now = clock.getAsLong();
+        AtomicLong bucket = classBuckets.get(clientKey);
+        if (bucket == null) {
+            // A new bucket starts full
+            bucket = classBuckets.computeIfAbsent(clientKey, key -> new AtomicLong(now));
+        }
+
+        while (true) {
+            long arrival = bucket.get();
+            // nanoTime values are only comparable by their difference
+            long next = (arrival - now > 0 ? arrival : now) + limit.intervalNanos();
+            long excess = next - now - limit.toleranceNanos();
+            if (excess > 0) {
+                rejections.get(endpointClass).increment();
+                return excess;
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.sweep-ms:60000}")
+    public void run() {
+        int evicted = evictIdle();
+        if (evicted > 0) {
+            log.debug("Evicted {} idle rate limit buckets", evicted);
+        }
+    }
+
+    /**
+     * Drops the buckets that have refilled completely.
+     *
+     * @return the number of buckets dropped
+     */
+    public int evictIdle() {
+        long now = clock.getAsLong();
+        int evicted = 0;
+        for (ConcurrentHashMap<String, AtomicLong> classBuckets : buckets.values()) {
+            for (Map.Entry<String, AtomicLong> entry : classBuckets.entrySet()) {
+                if (entry.getValue().get() - now <= 0 && classBuckets.remove(entry.getKey(), entry.getValue())) {
+                    evicted++;
+                }
+            }
+        }
+        return evicted;
+    }
+
+    public int getBucketCount(EndpointClass endpointClass) {
+        return buckets.get(endpointClass).size();
+    }
+
+    public long getRejectedCount(EndpointClass endpointClass) {
+        return rejections.get(endpointClass).sum();
+    }
+}
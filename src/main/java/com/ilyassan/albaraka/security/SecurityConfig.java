@@ -1,6 +1,8 @@
 package com.ilyassan.albaraka.security;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -18,19 +20,36 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.time.Duration;
 import java.util.Arrays;
 
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity(prePostEnabled = true)
+@Slf4j
 public class SecurityConfig {
 
     @Autowired
     private CustomUserDetailsService userDetailsService;
 
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Autowired
+    private TransactionAdmissionControl admissionControl;
+
+    /**
+     * BCrypt with a fixed cost when {@code app.security.bcrypt.strength} is set, otherwise the cost that takes about
+     * {@code target-latency} on this machine. Stored hashes with a lower cost are rehashed on the next login.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${app.security.bcrypt.strength:0}") int strength,
+                                           @Value("${app.security.bcrypt.target-latency:PT0.25S}") Duration targetLatency,
+                                           @Value("${app.security.bcrypt.min-strength:10}") int minStrength,
+                                           @Value("${app.security.bcrypt.max-strength:14}") int maxStrength) {
+        int cost = strength > 0 ? strength : BCryptStrengthCalibrator.calibrate(targetLatency, minStrength, maxStrength);
+        log.info("Using BCrypt cost {}{}", cost, strength > 0 ? "" : " (calibrated to " + targetLatency.toMillis() + " ms)");
+        return new BCryptPasswordEncoder(cost);
     }
 
     @Bean
@@ -63,9 +82,14 @@ public class SecurityConfig {
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(authz -> authz
                         .requestMatchers(HttpMethod.POST, "/api/auth/**").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
-                .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class)
+                // Not beans, so they run only here, after the caller is known
+                .addFilterAfter(new RateLimitFilter(rateLimiter), JwtAuthenticationFilter.class)
+                .addFilterAfter(new AdmissionControlFilter(admissionControl), RateLimitFilter.class);
 
         return http.build();
     }
@@ -0,0 +1,54 @@
+package com.ilyassan.albaraka.security;
+
+import com.ilyassan.albaraka.dto.ConcurrencyLimitStatsResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * The adaptive in-flight limits of the transaction endpoints. Writes and reads have separate limits, so a burst of
+ * slow transfers cannot starve history and statement reads, and the reverse.
+ */
+@Component
+public class TransactionAdmissionControl {
+
+    private final AdaptiveConcurrencyLimiter writes;
+
+    private final AdaptiveConcurrencyLimiter reads;
+
+    public TransactionAdmissionControl(
+            @Value("${app.admission.writes.initial-limit:20}") int writesInitial,
+            @Value("${app.admission.writes.min-limit:2}") int writesMin,
+            @Value("${app.admission.writes.max-limit:100}") int writesMax,
+            @Value("${app.admission.writes.latency-threshold:PT0.25S}") Duration writesThreshold,
+            @Value("${app.admission.reads.initial-limit:40}") int readsInitial,
+            @Value("${app.admission.reads.min-limit:4}") int readsMin,
+            @Value("${app.admission.reads.max-limit:200}") int readsMax,
+            @Value("${app.admission.reads.latency-threshold:PT0.5S}") Duration readsThreshold,
+            @Value("${app.admission.backoff-ratio:0.9}") double backoffRatio,
+            @Value("${app.admission.max-queue:20}") int maxQueue,
+            @Value("${app.admission.max-wait:PT0.05S}") Duration maxWait) {
+        this.writes = new AdaptiveConcurrencyLimiter("transaction-writes", writesInitial, writesMin, writesMax,
+                writesThreshold, backoffRatio, maxQueue, maxWait);
+        this.reads = new AdaptiveConcurrencyLimiter("transaction-reads", readsInitial, readsMin, readsMax,
+                readsThreshold, backoffRatio, maxQueue, maxWait);
+    }
+
+    public AdaptiveConcurrencyLimiter getWrites() {
+        return writes;
+    }
+
+    public AdaptiveConcurrencyLimiter getReads() {
+        return reads;
+    }
+
+    public List<AdaptiveConcurrencyLimiter> getLimiters() {
+        return List.of(writes, reads);
+    }
+
+    public List<ConcurrencyLimitStatsResponse> getStats() {
+        return List.of(writes.getStats(), reads.getStats());
+    }
+}
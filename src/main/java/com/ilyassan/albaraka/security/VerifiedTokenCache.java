@@ -0,0 +1,86 @@
+package com.ilyassan.albaraka.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.ilyassan.albaraka.entity.UserRole;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers recently verified tokens, so a token sent with every request has its signature checked once.
+ * <p>
+ * A bounded concurrent cache keyed by the exact token string, so concurrent requests do not contend on a lock. Each
+ * entry expires with the token itself, so expired tokens leave the cache instead of holding slots until they are
+ * evicted by size; {@link #get} still checks the expiry against the caller's clock, so the cache never accepts a
+ * token the parser would reject as expired. Tokens that fail verification are not cached.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    /**
+     * The claims of a token whose signature has been checked, and when the token was issued and expires. The token
+     * id, user id, role and account id are {@code null} for tokens issued before those claims existed.
+     */
+    public record VerifiedToken(String subject, String tokenId, Long userId, UserRole role, Long accountId,
+                                long issuedAtMillis, long expiresAtMillis) {
+
+        public boolean hasIdentityClaims() {
+            return userId != null && role != null;
+        }
+    }
+
+    private final Cache<String, VerifiedToken> tokens;
+
+    public VerifiedTokenCache(@Value("${app.jwt.cache-size:10000}") int maxSize) {
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String token, VerifiedToken verified, long currentTime) {
+                        return untilExpiry(verified);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, VerifiedToken verified, long currentTime,
+                                                  long currentDuration) {
+                        return untilExpiry(verified);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, VerifiedToken verified, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    private static long untilExpiry(VerifiedToken verified) {
+        long remainingMillis = verified.expiresAtMillis() - System.currentTimeMillis();
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+    }
+
+    /**
+     * @return the verified token, or {@code null} if it is unknown or has expired
+     */
+    public VerifiedToken get(String token, long nowMillis) {
+        VerifiedToken verified = tokens.getIfPresent(token);
+        if (verified != null && verified.expiresAtMillis() <= nowMillis) {
+            tokens.asMap().remove(token, verified);
+            return null;
+        }
+        return verified;
+    }
+
+    public void put(String token, VerifiedToken verified) {
+        tokens.put(token, verified);
+    }
+
+    public int size() {
+        tokens.cleanUp();
+        return (int) tokens.estimatedSize();
+    }
+}
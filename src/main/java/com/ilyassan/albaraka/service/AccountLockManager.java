@@ -0,0 +1,159 @@
+package com.ilyassan.albaraka.service;
+
+import com.ilyassan.albaraka.dto.LockStatsResponse;
+import com.ilyassan.albaraka.jfr.AccountLockWaitEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Serializes money movements per account inside the JVM, before a database transaction is opened.
+ * <p>
+ * Accounts are hashed onto a fixed array of locks, so nothing is allocated per request and memory does not grow
+ * with the number of accounts. Two accounts may share a stripe; that only costs some parallelism. Operations
+ * touching several accounts lock their stripes in ascending stripe order, which keeps them deadlock-free.
+ */
+@Component
+@Slf4j
+public class AccountLockManager {
+
+    private static final int HOTTEST_STRIPES_REPORTED = 10;
+
+    private final ReentrantLock[] stripes;
+
+    private final int mask;
+
+    private final long timeoutMs;
+
+    private final LongAdder acquisitions = new LongAdder();
+
+    private final LongAdder contendedAcquisitions = new LongAdder();
+
+    // Threads blocked in acquire(); kept as a counter so metrics do not walk every stripe
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private final LongAdder totalWaitNanos = new LongAdder();
+
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    private final AtomicLongArray contentionByStripe;
+
+    public AccountLockManager(@Value("${app.transactions.lock-stripes:1024}") int stripeCount,
+                              @Value("${app.transactions.lock-timeout-ms:5000}") long timeoutMs) {
+        int size = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+        this.timeoutMs = timeoutMs;
+        this.contentionByStripe = new AtomicLongArray(size);
+    }
+
+    /**
+     * Runs {@code work} while holding the stripes of all given accounts.
+     *
+     * @throws CannotAcquireLockException if a stripe cannot be acquired within the configured timeout
+     */
+    public <T> T withLocks(Collection<Long> accountIds, Supplier<T> work) {
+        int[] indexes = accountIds.stream()
+                .mapToInt(this::stripeIndex)
+                .distinct()
+                .sorted()
+                .toArray();
+
+        int held = 0;
+        try {
+            for (int index : indexes) {
+                acquire(index);
+                held++;
+            }
+            return work.get();
+        } finally {
+            for (int i = held - 1; i >= 0; i--) {
+                stripes[indexes[i]].unlock();
+            }
+        }
+    }
+
+    public LockStatsResponse getStats() {
+        Map<Integer, Long> hottest = new LinkedHashMap<>();
+        IntStream.range(0, stripes.length)
+                .filter(i -> contentionByStripe.get(i) > 0)
+                .boxed()
+                .sorted((a, b) -> Long.compare(contentionByStripe.get(b), contentionByStripe.get(a)))
+                .limit(HOTTEST_STRIPES_REPORTED)
+                .forEach(i -> hottest.put(i, contentionByStripe.get(i)));
+
+        return LockStatsResponse.builder()
+                .stripes(stripes.length)
+                .acquisitions(acquisitions.sum())
+                .contendedAcquisitions(contendedAcquisitions.sum())
+                .currentlyLocked(Arrays.stream(stripes).filter(ReentrantLock::isLocked).count())
+                .queuedThreads(Arrays.stream(stripes).mapToLong(ReentrantLock::getQueueLength).sum())
+                .totalWaitMs(TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.sum()))
+                .maxWaitMs(TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()))
+                .contentionByStripe(hottest)
+                .build();
+    }
+
+    public int getQueuedThreads() {
+        return waiting.get();
+    }
+
+    public long getContendedAcquisitions() {
+        return contendedAcquisitions.sum();
+    }
+
+    int stripeIndex(Long accountId) {
+        // Fibonacci hashing spreads sequential ids evenly across the stripes
+        return (int) ((accountId * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    private void acquire(int index) {
+        ReentrantLock lock = stripes[index];
+        acquisitions.increment();
+        if (lock.tryLock()) {
+            return;
+        }
+
+        contendedAcquisitions.increment();
+        contentionByStripe.incrementAndGet(index);
+        AccountLockWaitEvent event = new AccountLockWaitEvent();
+        event.begin();
+        long start = System.nanoTime();
+        waiting.incrementAndGet();
+        try {
+            if (!lock.tryLock(timeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new CannotAcquireLockException("Timed out waiting for account lock");
+            }
+            event.acquired = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CannotAcquireLockException("Interrupted while waiting for account lock", e);
+        } finally {
+            waiting.decrementAndGet();
+            long waited = System.nanoTime() - start;
+            totalWaitNanos.add(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+            if (event.shouldCommit()) {
+                event.stripe = index;
+                event.commit();
+            }
+        }
+    }
+}
@@ -10,6 +10,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -55,12 +57,45 @@ public class AccountService {
                 .orElse(null);
     }
 
+    /**
+     * Atomically adds {@code amount} (negative for debits) to the account balance.
+     *
+     * @throws IllegalArgumentException if the account does not exist or the debit would overdraw it
+     */
     @Transactional
     public void updateBalance(Long accountId, BigDecimal amount) {
-        accountRepository.findById(accountId).ifPresent(account -> {
-            account.setBalance(account.getBalance().add(amount));
-            accountRepository.save(account);
-            log.debug("Balance updated for account: {} new balance: {}", accountId, account.getBalance());
-        });
+        int updated = accountRepository.applyBalanceDelta(accountId, amount, LocalDateTime.now());
+
+        if (updated == 0) {
+            if (!accountRepository.existsById(accountId)) {
+                throw new IllegalArgumentException("Account not found");
+            }
+            throw new IllegalArgumentException("Insufficient balance");
+        }
+
+        log.debug("Balance updated for account: {} delta: {}", accountId, amount);
+    }
+
+    /**
+     * Applies net balance deltas for several accounts in one JDBC batch. Meant for callers that already hold the
+     * row locks and have checked the resulting balances, so a rejected update means the invariant was broken.
+     *
+     * @throws IllegalStateException if any update is rejected, which rolls back the surrounding transaction
+     */
+    @Transactional
+    public void applyBalanceDeltas(Map<Long, BigDecimal> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        int[] updated = accountRepository.applyBalanceDeltas(deltas, LocalDateTime.now());
+
+        for (int count : updated) {
+            if (count == 0) {
+                throw new IllegalStateException("Batched balance update was rejected");
+            }
+        }
+
+        log.debug("Batched balance update applied to {} accounts", deltas.size());
     }
 }
@@ -0,0 +1,153 @@
+package com.ilyassan.albaraka.service;
+
+import com.ilyassan.albaraka.entity.BalanceCheckpoint;
+import com.ilyassan.albaraka.repository.AccountBalance;
+import com.ilyassan.albaraka.repository.AccountRepository;
+import com.ilyassan.albaraka.repository.BalanceCheckpointRepository;
+import com.ilyassan.albaraka.repository.LedgerEntryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Answers "balance as of" queries from periodic per-account checkpoints instead of replaying the whole ledger.
+ * <p>
+ * Checkpoint boundaries are aligned to a fixed interval. For each boundary the job sums the ledger entries created
+ * in the interval ending there, grouped by account, and writes a checkpoint for every account that moved: its
+ * previous checkpoint plus the interval's net movement. A point-in-time query therefore reads one checkpoint and
+ * scans at most the entries of one interval, plus whatever has not been checkpointed yet.
+ * <p>
+ * Entry timestamps are taken before commit, so an entry can become visible slightly after its {@code createdAt}.
+ * The job only closes intervals that ended more than the safety lag ago, which must exceed the longest transaction.
+ */
+@Service
+@Slf4j
+public class BalanceCheckpointService {
+
+    @Autowired
+    private BalanceCheckpointRepository balanceCheckpointRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRetryExecutor transactionRetryExecutor;
+
+    @Value("${app.ledger.checkpoints.interval:PT1H}")
+    private Duration interval;
+
+    @Value("${app.ledger.checkpoints.safety-lag:PT5M}")
+    private Duration safetyLag;
+
+    @Value("${app.ledger.checkpoints.max-intervals-per-run:168}")
+    private int maxIntervalsPerRun;
+
+    // Last closed boundary, loaded from the checkpoint table on first use; quiet intervals write no rows
+    private volatile LocalDateTime watermark;
+
+    /**
+     * Returns the balance of an account including every ledger entry created at or before {@code at}.
+     *
+     * @throws IllegalArgumentException if the account does not exist
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal getBalanceAt(Long accountId, LocalDateTime at) {
+        if (!accountRepository.existsById(accountId)) {
+            throw new IllegalArgumentException("Account not found");
+        }
+
+        return balanceCheckpointRepository.findFirstByAccountIdAndAsOfLessThanEqualOrderByAsOfDesc(accountId, at)
+                .map(checkpoint -> checkpoint.getBalance()
+                        .add(ledgerEntryRepository.sumByAccountIdBetween(accountId, checkpoint.getAsOf(), at)))
+                .orElseGet(() -> ledgerEntryRepository.sumByAccountIdUpTo(accountId, at));
+    }
+
+    @Scheduled(fixedDelayString = "${app.ledger.checkpoints.poll-ms:60000}",
+            initialDelayString = "${app.ledger.checkpoints.poll-ms:60000}")
+    public void run() {
+        try {
+            int written = createCheckpoints(LocalDateTime.now());
+            if (written > 0) {
+                log.info("Wrote {} balance checkpoints up to {}", written, watermark);
+            }
+        } catch (Exception e) {
+            // Reload the watermark next time; another instance may have closed the interval first
+            watermark = null;
+            log.error("Error writing balance checkpoints", e);
+        }
+    }
+
+    /**
+     * Closes every interval that ended at least the safety lag before {@code now}, up to the per-run limit.
+     *
+     * @return the number of checkpoints written
+     */
+    public int createCheckpoints(LocalDateTime now) {
+        LocalDateTime target = floorToInterval(now.minus(safetyLag));
+        LocalDateTime from = watermark;
+
+        if (from == null) {
+            from = balanceCheckpointRepository.findLatestAsOf()
+                    .or(() -> ledgerEntryRepository.findEarliestCreatedAt()
+                            .map(earliest -> floorToInterval(earliest).minus(interval)))
+                    .orElse(null);
+            if (from == null) {
+                return 0;
+            }
+        }
+
+        int written = 0;
+        for (int closed = 0; closed < maxIntervalsPerRun && from.isBefore(target); closed++) {
+            LocalDateTime start = from;
+            LocalDateTime end = start.plus(interval);
+            written += transactionRetryExecutor.execute(() -> closeInterval(start, end));
+            from = end;
+            watermark = end;
+        }
+        return written;
+    }
+
+    private int closeInterval(LocalDateTime from, LocalDateTime to) {
+        List<AccountBalance> movements = ledgerEntryRepository.sumByAccountBetween(from, to);
+        if (movements.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, BigDecimal> previous = balanceCheckpointRepository.findLatestByAccountIdIn(
+                        movements.stream().map(AccountBalance::id).toList())
+                .stream()
+                .collect(Collectors.toMap(BalanceCheckpoint::getAccountId, BalanceCheckpoint::getBalance));
+
+        List<BalanceCheckpoint> checkpoints = movements.stream()
+                .map(movement -> BalanceCheckpoint.builder()
+                        .accountId(movement.id())
+                        .asOf(to)
+                        .balance(previous.getOrDefault(movement.id(), BigDecimal.ZERO).add(movement.balance()))
+                        .build())
+                .toList();
+
+        balanceCheckpointRepository.saveAll(checkpoints);
+        log.debug("Closed checkpoint interval ({}, {}] for {} accounts", from, to, checkpoints.size());
+        return checkpoints.size();
+    }
+
+    private LocalDateTime floorToInterval(LocalDateTime time) {
+        long seconds = interval.getSeconds();
+        long epochSeconds = time.toEpochSecond(ZoneOffset.UTC);
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochSeconds, seconds) * seconds, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,260 @@
+package com.ilyassan.albaraka.service;
+
+import com.ilyassan.albaraka.entity.Account;
+import com.ilyassan.albaraka.entity.EntryDirection;
+import com.ilyassan.albaraka.repository.AccountRepository;
+import com.ilyassan.albaraka.repository.LedgerEntryRepository;
+import com.ilyassan.albaraka.repository.LedgerStatementRow;
+import com.ilyassan.albaraka.repository.StatementTotals;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.stream.Stream;
+
+/**
+ * Writes ISO 20022 camt.053.001.02 bank-to-customer statements.
+ * <p>
+ * Entries are the account's ledger entries posted in the period, so a transaction created before or during the period
+ * but approved after it is reported in the period it was booked in. The header, balances and transaction summary are
+ * computed up front with aggregate queries: the closing balance is the account's current balance minus everything
+ * posted after the period, and the opening balance is the closing balance minus the period's net movement. Entries
+ * are then written with StAX as rows stream from the database, so a statement with hundreds of thousands of entries
+ * is produced in constant memory. Everything is read in one repeatable-read transaction, so the balances and the
+ * entries describe the same snapshot.
+ */
+@Service
+@Slf4j
+public class Camt053StatementService {
+
+    public static final String NAMESPACE = "urn:iso:std:iso:20022:tech:xsd:camt.053.001.02";
+
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newFactory();
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Value("${app.statements.currency:MAD}")
+    private String currency;
+
+    private final TransactionTemplate snapshotTransaction;
+
+    public Camt053StatementService(PlatformTransactionManager transactionManager) {
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setReadOnly(true);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    /**
+     * Writes the statement of an account for the period {@code [from, to)}.
+     *
+     * @return the number of entries written
+     * @throws IllegalArgumentException if the account does not exist or the period is empty
+     */
+    public long write(Long accountId, LocalDateTime from, LocalDateTime to, OutputStream out) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+
+        Long written = snapshotTransaction.execute(status -> {
+            Account account = accountRepository.findById(accountId)
+                    .orElseThrow(() -> new IllegalArgumentException("Account not found"));
+
+            StatementTotals period = ledgerEntryRepository.sumStatement(accountId, from, to);
+            StatementTotals afterwards = ledgerEntryRepository.sumStatement(accountId, to, LATEST);
+            BigDecimal closing = account.getBalance().subtract(afterwards.net());
+            BigDecimal opening = closing.subtract(period.net());
+
+            try {
+                BufferedOutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+                XMLStreamWriter xml = XML_OUTPUT_FACTORY.createXMLStreamWriter(buffered, "UTF-8");
+                long count = writeDocument(xml, account, from, to, opening, closing, period);
+                xml.close();
+                buffered.flush();
+                return count;
+            } catch (XMLStreamException e) {
+                throw new IllegalStateException("Error writing camt.053 statement", e);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        log.info("Wrote camt.053 statement with {} entries for account: {}", written, accountId);
+        return written == null ? 0 : written;
+    }
+
+    private long writeDocument(XMLStreamWriter xml, Account account, LocalDateTime from, LocalDateTime to,
+                               BigDecimal opening, BigDecimal closing, StatementTotals period) throws XMLStreamException {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        String statementId = account.getAccountNumber() + "-" + from.format(DateTimeFormatter.BASIC_ISO_DATE)
+                + "-" + to.format(DateTimeFormatter.BASIC_ISO_DATE);
+
+        xml.writeStartDocument("UTF-8", "1.0");
+        xml.writeStartElement("Document");
+        xml.writeDefaultNamespace(NAMESPACE);
+        xml.writeStartElement("BkToCstmrStmt");
+
+        xml.writeStartElement("GrpHdr");
+        element(xml, "MsgId", "STMT-" + statementId + "-" + now.format(DateTimeFormatter.ofPattern("HHmmss")));
+        element(xml, "CreDtTm", now.format(DATE_TIME));
+        xml.writeEndElement();
+
+        xml.writeStartElement("Stmt");
+        element(xml, "Id", statementId);
+        element(xml, "CreDtTm", now.format(DATE_TIME));
+        xml.writeStartElement("FrToDt");
+        element(xml, "FrDtTm", from.format(DATE_TIME));
+        element(xml, "ToDtTm", to.format(DATE_TIME));
+        xml.writeEndElement();
+
+        xml.writeStartElement("Acct");
+        xml.writeStartElement("Id");
+        xml.writeStartElement("Othr");
+        element(xml, "Id", account.getAccountNumber());
+        xml.writeEndElement();
+        xml.writeEndElement();
+        element(xml, "Ccy", currency);
+        xml.writeEndElement();
+
+        balance(xml, "OPBD", opening, from);
+        balance(xml, "CLBD", closing, to);
+        summary(xml, period);
+
+        long count = 0;
+        try (Stream<LedgerStatementRow> rows = ledgerEntryRepository.streamStatement(account.getId(), from, to)) {
+            for (LedgerStatementRow row : (Iterable<LedgerStatementRow>) rows::iterator) {
+                entry(xml, row);
+                count++;
+            }
+        }
+
+        xml.writeEndElement(); // Stmt
+        xml.writeEndElement(); // BkToCstmrStmt
+        xml.writeEndElement(); // Document
+        xml.writeEndDocument();
+        return count;
+    }
+
+    private void balance(XMLStreamWriter xml, String type, BigDecimal amount, LocalDateTime at) throws XMLStreamException {
+        xml.writeStartElement("Bal");
+        xml.writeStartElement("Tp");
+        xml.writeStartElement("CdOrPrtry");
+        element(xml, "Cd", type);
+        xml.writeEndElement();
+        xml.writeEndElement();
+        amount(xml, amount.abs());
+        element(xml, "CdtDbtInd", amount.signum() < 0 ? "DBIT" : "CRDT");
+        xml.writeStartElement("Dt");
+        element(xml, "DtTm", at.format(DATE_TIME));
+        xml.writeEndElement();
+        xml.writeEndElement();
+    }
+
+    private void summary(XMLStreamWriter xml, StatementTotals period) throws XMLStreamException {
+        xml.writeStartElement("TxsSummry");
+        xml.writeStartElement("TtlNtries");
+        element(xml, "NbOfNtries", String.valueOf(period.entryCount()));
+        element(xml, "Sum", decimal(period.credits().add(period.debits())));
+        element(xml, "TtlNetNtryAmt", decimal(period.net().abs()));
+        element(xml, "CdtDbtInd", period.net().signum() < 0 ? "DBIT" : "CRDT");
+        xml.writeEndElement();
+        xml.writeStartElement("TtlCdtNtries");
+        element(xml, "NbOfNtries", String.valueOf(period.creditCount()));
+        element(xml, "Sum", decimal(period.credits()));
+        xml.writeEndElement();
+        xml.writeStartElement("TtlDbtNtries");
+        element(xml, "NbOfNtries", String.valueOf(period.debitCount()));
+        element(xml, "Sum", decimal(period.debits()));
+        xml.writeEndElement();
+        xml.writeEndElement();
+    }
+
+    private void entry(XMLStreamWriter xml, LedgerStatementRow row) throws XMLStreamException {
+        boolean credit = row.direction() == EntryDirection.CREDIT;
+        String reference = row.transactionId() == null ? "OB" + row.entryId() : String.valueOf(row.transactionId());
+        String bookedAt = row.postedAt().format(DATE_TIME);
+
+        xml.writeStartElement("Ntry");
+        element(xml, "NtryRef", reference);
+        amount(xml, row.amount());
+        element(xml, "CdtDbtInd", credit ? "CRDT" : "DBIT");
+        element(xml, "Sts", "BOOK");
+        xml.writeStartElement("BookgDt");
+        element(xml, "DtTm", bookedAt);
+        xml.writeEndElement();
+        xml.writeStartElement("ValDt");
+        element(xml, "DtTm", bookedAt);
+        xml.writeEndElement();
+        element(xml, "AcctSvcrRef", reference);
+
+        // Counter deposits and withdrawals, domestic credit transfers received or issued, and opening balances
+        xml.writeStartElement("BkTxCd");
+        xml.writeStartElement("Domn");
+        element(xml, "Cd", "PMNT");
+        xml.writeStartElement("Fmly");
+        switch (row.type()) {
+            case "DEPOSIT" -> {
+                element(xml, "Cd", "CNTR");
+                element(xml, "SubFmlyCd", "CDPT");
+            }
+            case "WITHDRAWAL" -> {
+                element(xml, "Cd", "CNTR");
+                element(xml, "SubFmlyCd", "CWDL");
+            }
+            case "TRANSFER" -> {
+                element(xml, "Cd", credit ? "RCDT" : "ICDT");
+                element(xml, "SubFmlyCd", "DMCT");
+            }
+            default -> {
+                element(xml, "Cd", "MCOP");
+                element(xml, "SubFmlyCd", "OTHR");
+            }
+        }
+        xml.writeEndElement();
+        xml.writeEndElement();
+        xml.writeEndElement();
+
+        element(xml, "AddtlNtryInf", row.type());
+        xml.writeEndElement();
+    }
+
+    private void amount(XMLStreamWriter xml, BigDecimal amount) throws XMLStreamException {
+        xml.writeStartElement("Amt");
+        xml.writeAttribute("Ccy", currency);
+        xml.writeCharacters(decimal(amount));
+        xml.writeEndElement();
+    }
+
+    private static void element(XMLStreamWriter xml, String name, String text) throws XMLStreamException {
+        xml.writeStartElement(name);
+        xml.writeCharacters(text);
+        xml.writeEndElement();
+    }
+
+    private static String decimal(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).toPlainString();
+    }
+}
@@ -0,0 +1,126 @@
+package com.ilyassan.albaraka.service;
+
+import com.ilyassan.albaraka.dto.FlightRecordingResponse;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+
+/**
+ * Starts and stops on-demand Java Flight Recorder recordings.
+ * <p>
+ * One recording runs at a time. It is bounded twice: it stops by itself after {@code max-duration}, and keeps at
+ * most {@code max-size-mb} of data on disk, dropping the oldest chunks first. Alongside the JVM's own events it
+ * captures the application's events in {@code com.ilyassan.albaraka.jfr}: transaction operations, account lock
+ * waits, JWT authentication, password hashing and repository calls. Those events are compiled in permanently;
+ * with no recording running each one costs a check of a flag that the JIT folds away.
+ */
+@Service
+@Slf4j
+public class FlightRecordingService {
+
+    private static final DateTimeFormatter NAME_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Duration maxDuration;
+
+    private final long maxSizeBytes;
+
+    private final String settings;
+
+    // Guarded by this
+    private Recording recording;
+
+    public FlightRecordingService(@Value("${app.profiling.max-duration:PT5M}") Duration maxDuration,
+                                  @Value("${app.profiling.max-size-mb:100}") long maxSizeMb,
+                                  @Value("${app.profiling.settings:profile}") String settings) {
+        this.maxDuration = maxDuration;
+        this.maxSizeBytes = maxSizeMb * 1024 * 1024;
+        this.settings = settings;
+    }
+
+    /**
+     * Starts a recording. A previous recording that already stopped by itself, and was never downloaded, is
+     * discarded.
+     *
+     * @param duration how long to record, at most {@code max-duration}; null for {@code max-duration}
+     * @throws IllegalArgumentException if the duration is not positive
+     * @throws IllegalStateException    if a recording is already running
+     */
+    public synchronized FlightRecordingResponse start(Duration duration) throws IOException, ParseException {
+        if (duration != null && (duration.isNegative() || duration.isZero())) {
+            throw new IllegalArgumentException("Duration must be positive");
+        }
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new IllegalStateException("A recording is already running");
+        }
+        if (recording != null) {
+            recording.close();
+        }
+
+        Duration bounded = duration == null || duration.compareTo(maxDuration) > 0 ? maxDuration : duration;
+        Recording started = new Recording(Configuration.getConfiguration(settings));
+        started.setName("albaraka-" + LocalDateTime.now().format(NAME_TIMESTAMP));
+        started.setToDisk(true);
+        started.setMaxSize(maxSizeBytes);
+        started.setDuration(bounded);
+        started.start();
+        recording = started;
+
+        log.info("Started flight recording {} for {}", started.getName(), bounded);
+        return toResponse(started);
+    }
+
+    public synchronized Optional<FlightRecordingResponse> getCurrent() {
+        return Optional.ofNullable(recording).map(this::toResponse);
+    }
+
+    /**
+     * Stops the current recording, if it is still running, and writes it to a temporary file. The caller owns the
+     * file and deletes it once it has been sent.
+     *
+     * @throws IllegalStateException if there is no recording
+     */
+    public synchronized Path stop() throws IOException {
+        if (recording == null) {
+            throw new IllegalStateException("No recording to stop");
+        }
+
+        Recording stopped = recording;
+        recording = null;
+        try {
+            if (stopped.getState() == RecordingState.RUNNING) {
+                stopped.stop();
+            }
+            Path file = Files.createTempFile(stopped.getName() + "-", ".jfr");
+            stopped.dump(file);
+            log.info("Stopped flight recording {}: {} bytes", stopped.getName(), Files.size(file));
+            return file;
+        } finally {
+            stopped.close();
+        }
+    }
+
+    private FlightRecordingResponse toResponse(Recording recording) {
+        return FlightRecordingResponse.builder()
+                .name(recording.getName())
+                .state(recording.getState().name())
+                .startedAt(recording.getStartTime() == null ? null
+                        : LocalDateTime.ofInstant(recording.getStartTime(), ZoneId.systemDefault()))
+                .durationSeconds(recording.getDuration() == null ? 0 : recording.getDuration().toSeconds())
+                .maxSizeBytes(recording.getMaxSize())
+                .recordedBytes(recording.getSize())
+                .build();
+    }
+}
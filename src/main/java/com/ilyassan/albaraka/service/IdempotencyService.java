@@ -0,0 +1,145 @@
+package com.ilyassan.albaraka.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ilyassan.albaraka.dto.TransactionResponse;
+import com.ilyassan.albaraka.mapper.TransactionMapper;
+import com.ilyassan.albaraka.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Makes money-moving requests safe to retry with an {@code Idempotency-Key}.
+ * <p>
+ * The key is stored on the transaction row itself, unique per account, so it commits atomically with the money
+ * movement and is the durable record of key to transaction. In front of it sits a bounded cache of recent responses,
+ * so most retries are answered from memory. Requests with the same key that arrive while the first is still
+ * running wait for its result instead of executing again. A key that reaches the database twice anyway, from
+ * another instance, is caught by the unique constraint and answered with the stored transaction.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    public static final int MAX_KEY_LENGTH = 100;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionMapper transactionMapper;
+
+    private final Cache<String, TransactionResponse> recentResponses;
+
+    private final ConcurrentHashMap<String, CompletableFuture<TransactionResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(@Value("${app.idempotency.cache-size:10000}") int cacheSize) {
+        this.recentResponses = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .build();
+    }
+
+    /**
+     * The response to a keyed request, and whether it was replayed from an earlier request with the same key.
+     */
+    public record Outcome(TransactionResponse response, boolean replayed) {
+    }
+
+    /**
+     * Runs {@code action} at most once per account and key. Without a key the action simply runs.
+     *
+     * @throws IllegalArgumentException if the key is too long, or was already used for a different request
+     */
+    public Outcome execute(Long accountId, String idempotencyKey, String type, BigDecimal amount,
+                           Long beneficiaryAccountId, Supplier<TransactionResponse> action) {
+        if (idempotencyKey == null) {
+            return new Outcome(action.get(), false);
+        }
+
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String cacheKey = accountId + ":" + idempotencyKey;
+        TransactionResponse cached = recentResponses.getIfPresent(cacheKey);
+        if (cached != null) {
+            return new Outcome(requireSameRequest(cached, type, amount, beneficiaryAccountId), true);
+        }
+
+        CompletableFuture<TransactionResponse> mine = new CompletableFuture<>();
+        CompletableFuture<TransactionResponse> running = inFlight.putIfAbsent(cacheKey, mine);
+        if (running != null) {
+            log.debug("Coalescing request with idempotency key {} for account {}", idempotencyKey, accountId);
+            return new Outcome(requireSameRequest(await(running), type, amount, beneficiaryAccountId), true);
+        }
+
+        try {
+            Outcome outcome = executeOnce(accountId, idempotencyKey, action);
+            recentResponses.put(cacheKey, outcome.response());
+            mine.complete(outcome.response());
+            return new Outcome(requireSameRequest(outcome.response(), type, amount, beneficiaryAccountId),
+                    outcome.replayed());
+        } catch (RuntimeException e) {
+            // Failed requests moved no money, so they are not remembered and may be retried with the same key
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(cacheKey, mine);
+        }
+    }
+
+    private Outcome executeOnce(Long accountId, String idempotencyKey, Supplier<TransactionResponse> action) {
+        TransactionResponse stored = findStored(accountId, idempotencyKey);
+        if (stored != null) {
+            return new Outcome(stored, true);
+        }
+
+        try {
+            return new Outcome(action.get(), false);
+        } catch (DataIntegrityViolationException e) {
+            stored = findStored(accountId, idempotencyKey);
+            if (stored == null) {
+                throw e;
+            }
+            log.info("Idempotency key {} for account {} was committed concurrently", idempotencyKey, accountId);
+            return new Outcome(stored, true);
+        }
+    }
+
+    private TransactionResponse findStored(Long accountId, String idempotencyKey) {
+        return transactionRepository.findByAccountIdAndIdempotencyKey(accountId, idempotencyKey)
+                .map(transactionMapper::toTransactionResponse)
+                .orElse(null);
+    }
+
+    private TransactionResponse requireSameRequest(TransactionResponse response, String type, BigDecimal amount,
+                                                   Long beneficiaryAccountId) {
+        if (!type.equals(response.getType())
+                || response.getAmount().compareTo(amount) != 0
+                || !Objects.equals(beneficiaryAccountId, response.getBeneficiaryAccountId())) {
+            throw new IllegalArgumentException("Idempotency-Key was already used for a different request");
+        }
+        return response;
+    }
+
+    private TransactionResponse await(CompletableFuture<TransactionResponse> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.ilyassan.albaraka.service;
+
+import com.ilyassan.albaraka.entity.Account;
+import com.ilyassan.albaraka.entity.EntryDirection;
+import com.ilyassan.albaraka.entity.LedgerEntry;
+import com.ilyassan.albaraka.entity.Transaction;
+import com.ilyassan.albaraka.repository.AccountRepository;
+import com.ilyassan.albaraka.repository.LedgerEntryRepository;
+import com.ilyassan.albaraka.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes the append-only double-entry ledger and keeps {@code Account.balance} in step with it.
+ * <p>
+ * Posting always happens inside the caller's transaction, so the ledger rows, the balance change and the
+ * transaction status commit or roll back together. A deposit debits the bank's external side and credits the
+ * account, a withdrawal does the opposite, and a transfer debits the source and credits the beneficiary.
+ */
+@Service
+@Slf4j
+public class LedgerService {
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    /**
+     * Posts one completed transaction. Debits go through the guarded balance update first, so an overdraft
+     * fails before anything is credited.
+     *
+     * @throws IllegalArgumentException if a debited account has insufficient balance
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void post(Transaction transaction) {
+        List<LedgerEntry> entries = entriesFor(transaction);
+
+        for (LedgerEntry entry : entries) {
+            if (entry.getAccountId() != null) {
+                accountService.updateBalance(entry.getAccountId(), entry.signedAmount());
+            }
+        }
+
+        ledgerEntryRepository.saveAll(entries);
+        log.debug("Posted {} ledger entries for transaction: {}", entries.size(), transaction.getId());
+    }
+
+    /**
+     * Posts several completed transactions, applying their net effect per account as one batched update.
+     * Callers must already hold the account locks and have checked the resulting balances.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void postAll(List<Transaction> transactions) {
+        List<LedgerEntry> entries = new ArrayList<>(transactions.size() * 2);
+        Map<Long, BigDecimal> deltas = new LinkedHashMap<>();
+
+        for (Transaction transaction : transactions) {
+            for (LedgerEntry entry : entriesFor(transaction)) {
+                entries.add(entry);
+                if (entry.getAccountId() != null) {
+                    deltas.merge(entry.getAccountId(), entry.signedAmount(), BigDecimal::add);
+                }
+            }
+        }
+
+        accountService.applyBalanceDeltas(deltas);
+        ledgerEntryRepository.saveAll(entries);
+        log.debug("Posted {} ledger entries for {} transactions", entries.size(), transactions.size());
+    }
+
+    /**
+     * Carries the part of each balance that no transaction explains into the ledger, dated when the account was
+     * opened. That part is the balance less what the ledger already holds for the account and less the effect of its
+     * completed transactions that were never posted, which {@link #backfill} posts separately at their own time.
+     * A positive remainder debits the bank's external side and credits the account, a negative one the opposite.
+     * <p>
+     * The rows are locked and accounts that already have an opening entry are skipped, so this is safe to repeat and
+     * to race with another instance. The remainder does not depend on whether {@link #backfill} ran first.
+     *
+     * @return the number of accounts that got opening entries
+     */
+    @Transactional
+    public int postOpeningBalances(List<Long> accountIds) {
+        accountRepository.lockBalancesByIdIn(accountIds);
+        Set<Long> alreadyOpened = new HashSet<>(ledgerEntryRepository.findOpenedAccountIdsIn(accountIds));
+
+        Map<Long, BigDecimal> unposted = new HashMap<>();
+        for (Transaction transaction : transactionRepository.findUnpostedByAccountIdIn(accountIds)) {
+            for (LedgerEntry entry : entriesFor(transaction)) {
+                if (entry.getAccountId() != null) {
+                    unposted.merge(entry.getAccountId(), entry.signedAmount(), BigDecimal::add);
+                }
+            }
+        }
+
+        List<LedgerEntry> entries = new ArrayList<>();
+        for (Account account : accountRepository.findAllById(accountIds)) {
+            if (alreadyOpened.contains(account.getId())) {
+                continue;
+            }
+            BigDecimal remainder = account.getBalance()
+                    .subtract(ledgerEntryRepository.sumByAccountId(account.getId()))
+                    .subtract(unposted.getOrDefault(account.getId(), BigDecimal.ZERO));
+            if (remainder.signum() == 0) {
+                continue;
+            }
+            boolean credit = remainder.signum() > 0;
+            entries.add(openingEntry(null, credit ? EntryDirection.DEBIT : EntryDirection.CREDIT,
+                    remainder.abs(), account.getCreatedAt()));
+            entries.add(openingEntry(account.getId(), credit ? EntryDirection.CREDIT : EntryDirection.DEBIT,
+                    remainder.abs(), account.getCreatedAt()));
+        }
+
+        ledgerEntryRepository.saveAll(entries);
+        return entries.size() / 2;
+    }
+
+    /**
+     * Posts completed transactions from before the ledger, dated when they were last updated, which for a completed
+     * transaction is when it was approved. Balances already include them and are left alone. The transactions are
+     * locked and those already posted are skipped, so this is safe to repeat and to race with another instance.
+     *
+     * @return the number of transactions posted
+     */
+    @Transactional
+    public int backfill(List<Long> transactionIds) {
+        List<Transaction> transactions = transactionRepository.findAllByIdForUpdate(transactionIds);
+        Set<Long> alreadyPosted = new HashSet<>(ledgerEntryRepository.findPostedTransactionIdsIn(transactionIds));
+
+        List<LedgerEntry> entries = new ArrayList<>();
+        int posted = 0;
+        for (Transaction transaction : transactions) {
+            if (alreadyPosted.contains(transaction.getId())) {
+                continue;
+            }
+            entries.addAll(entriesFor(transaction, transaction.getUpdatedAt()));
+            posted++;
+        }
+
+        ledgerEntryRepository.saveAll(entries);
+        return posted;
+    }
+
+    /**
+     * Recomputes an account balance from its ledger entries alone.
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal replayBalance(Long accountId) {
+        return ledgerEntryRepository.sumByAccountId(accountId);
+    }
+
+    private List<LedgerEntry> entriesFor(Transaction transaction) {
+        return entriesFor(transaction, null);
+    }
+
+    // postedAt null stamps the entries with the current time
+    private List<LedgerEntry> entriesFor(Transaction transaction, LocalDateTime postedAt) {
+        Long accountId = transaction.getAccount().getId();
+
+        switch (transaction.getType()) {
+            case "DEPOSIT":
+                return List.of(entry(transaction, null, EntryDirection.DEBIT, postedAt),
+                        entry(transaction, accountId, EntryDirection.CREDIT, postedAt));
+            case "WITHDRAWAL":
+                return List.of(entry(transaction, accountId, EntryDirection.DEBIT, postedAt),
+                        entry(transaction, null, EntryDirection.CREDIT, postedAt));
+            case "TRANSFER":
+                return List.of(entry(transaction, accountId, EntryDirection.DEBIT, postedAt),
+                        entry(transaction, transaction.getBeneficiaryAccountId(), EntryDirection.CREDIT, postedAt));
+            default:
+                throw new IllegalArgumentException("Unsupported transaction type: " + transaction.getType());
+        }
+    }
+
+    private LedgerEntry entry(Transaction transaction, Long accountId, EntryDirection direction, LocalDateTime postedAt) {
+        return LedgerEntry.builder()
+                .transactionId(transaction.getId())
+                .accountId(accountId)
+                .direction(direction)
+                .amount(transaction.getAmount())
+                .createdAt(postedAt)
+                .build();
+    }
+
+    private LedgerEntry openingEntry(Long accountId, EntryDirection direction, BigDecimal amount, LocalDateTime openedAt) {
+        return LedgerEntry.builder()
+                .accountId(accountId)
+                .direction(direction)
+                .amount(amount)
+                .createdAt(openedAt)
+                .build();
+    }
+}
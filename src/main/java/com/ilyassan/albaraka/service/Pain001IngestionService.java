@@ -0,0 +1,451 @@
+package com.ilyassan.albaraka.service;
+
+import com.ilyassan.albaraka.dto.TransactionRequest;
+import com.ilyassan.albaraka.entity.Account;
+import com.ilyassan.albaraka.entity.TransactionStatus;
+import com.ilyassan.albaraka.repository.AccountRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Ingests ISO 20022 pain.001.001.03 customer credit transfer initiations and answers with a pain.002.001.03
+ * payment status report.
+ * <p>
+ * The file is read with StAX one payment at a time and payments are collected into chunks. For each chunk the
+ * creditor account numbers are resolved with one query, and the transfers go through
+ * {@link TransactionService#createBatch}, which books them in one database transaction. The status of every
+ * payment in the chunk is then written to the report and the chunk is dropped, so memory use depends on the chunk
+ * size and not on the size of the file. Chunks committed before a failure stay committed.
+ * <p>
+ * Every transfer carries the idempotency key {@code pain001:<MsgId>:<EndToEndId>}, so uploading the same file
+ * again rejects the payments that were already booked with reason AM05 instead of booking them twice.
+ */
+@Service
+@Slf4j
+public class Pain001IngestionService {
+
+    public static final String PAIN_001_NAMESPACE = "urn:iso:std:iso:20022:tech:xsd:pain.001.001.03";
+
+    public static final String PAIN_002_NAMESPACE = "urn:iso:std:iso:20022:tech:xsd:pain.002.001.03";
+
+    private static final String NOT_PROVIDED = "NOTPROVIDED";
+
+    // ISO 20022 Max35Text
+    private static final int MAX_ID_LENGTH = 35;
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = createInputFactory();
+
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newFactory();
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Value("${app.payments.pain001.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.transactions.batch.max-size:500}")
+    private int batchMaxSize;
+
+    @Value("${app.statements.currency:MAD}")
+    private String currency;
+
+    // A chunk is booked as one batch, so a larger chunk would have every batch refused
+    @PostConstruct
+    void validateChunkSize() {
+        if (chunkSize < 1 || chunkSize > batchMaxSize) {
+            throw new IllegalStateException("app.payments.pain001.chunk-size must be between 1 and "
+                    + "app.transactions.batch.max-size (" + batchMaxSize + "), was " + chunkSize);
+        }
+    }
+
+    /**
+     * Counts of one ingested file. {@code failedChunks} counts the chunks that could not be booked at all, such as
+     * on a database error.
+     */
+    public record Result(String messageId, long payments, long completed, long pending, long rejected,
+                         long failedChunks, long elapsedNanos) {
+
+        public double paymentsPerSecond() {
+            return elapsedNanos == 0 ? 0 : payments / (elapsedNanos / 1e9);
+        }
+    }
+
+    /**
+     * Books the payments of a pain.001 file as transfers from {@code account} and writes a pain.002 report with the
+     * status of each payment to {@code out}. Payment information blocks whose debtor account is not
+     * {@code account} are rejected.
+     *
+     * @throws IllegalArgumentException if the file is not a well-formed pain.001 document. The report is
+     *                                  incomplete in that case, but the chunks booked before the error stay booked.
+     */
+    public Result ingest(Account account, InputStream in, OutputStream out) {
+        long start = System.nanoTime();
+        Ingestion ingestion = new Ingestion(account);
+
+        try {
+            XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(in);
+            BufferedOutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+            ingestion.report = XML_OUTPUT_FACTORY.createXMLStreamWriter(buffered, "UTF-8");
+            ingestion.read(reader);
+            reader.close();
+            ingestion.report.close();
+            buffered.flush();
+        } catch (XMLStreamException e) {
+            throw new IllegalArgumentException("Malformed pain.001 file: " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        Result result = new Result(ingestion.messageId, ingestion.payments, ingestion.completed, ingestion.pending,
+                ingestion.rejected, ingestion.failedChunks, System.nanoTime() - start);
+        log.info("Ingested pain.001 {} for account {}: {} payments ({} completed, {} pending, {} rejected), {} payments/s",
+                result.messageId(), account.getId(), result.payments(), result.completed(), result.pending(),
+                result.rejected(), Math.round(result.paymentsPerSecond()));
+        return result;
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        // Payment files come from clients; never resolve DTDs or external entities
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    private static String reasonFor(String error) {
+        return switch (error) {
+            case "Insufficient balance" -> "AM04";
+            case "Beneficiary account not found", "Cannot transfer to the same account" -> "AC01";
+            case "Amount is required", "Amount must be greater than 0" -> "AM12";
+            case "Duplicate idempotency key" -> "AM05";
+            default -> "NARR";
+        };
+    }
+
+    /**
+     * A payment read from the file, with the reason it was refused before booking, if any.
+     */
+    private static class Payment {
+        private String instructionId;
+        private String endToEndId;
+        private String currency;
+        private String amountText;
+        private BigDecimal amount;
+        private String creditorAccount;
+        private String idempotencyKey;
+        private String reason;
+        private String error;
+
+        void reject(String reason, String error) {
+            if (this.reason == null) {
+                this.reason = reason;
+                this.error = error;
+            }
+        }
+    }
+
+    /**
+     * The state of one file: the parser position, the open payment information block and the pending chunk.
+     */
+    private class Ingestion {
+
+        private final Account account;
+        private final Deque<String> path = new ArrayDeque<>();
+        private final List<Payment> chunk = new ArrayList<>();
+
+        private XMLStreamWriter report;
+        private String messageId;
+        private boolean headerWritten;
+        private boolean paymentInformationOpen;
+        private String debtorAccount;
+        private Payment payment;
+
+        private long payments;
+        private long completed;
+        private long pending;
+        private long rejected;
+        private long failedChunks;
+
+        Ingestion(Account account) {
+            this.account = account;
+        }
+
+        void read(XMLStreamReader reader) throws XMLStreamException {
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    startElement(reader);
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    endElement(path.pop());
+                }
+            }
+
+            if (!headerWritten) {
+                throw new IllegalArgumentException("Malformed pain.001 file: missing group header");
+            }
+            report.writeEndDocument();
+        }
+
+        private void startElement(XMLStreamReader reader) throws XMLStreamException {
+            String name = reader.getLocalName();
+            String parent = path.peek();
+
+            if (parent == null && (!"Document".equals(name) || !PAIN_001_NAMESPACE.equals(reader.getNamespaceURI()))) {
+                throw new IllegalArgumentException("Not a pain.001.001.03 document");
+            }
+
+            // Leaf values are read whole; getElementText consumes the end tag, so they never enter the path
+            if ("MsgId".equals(name) && "GrpHdr".equals(parent)) {
+                messageId = reader.getElementText().trim();
+            } else if ("PmtInfId".equals(name) && "PmtInf".equals(parent)) {
+                startPaymentInformation(reader.getElementText().trim());
+            } else if (isAccountId(name, parent) && path.contains("DbtrAcct")) {
+                debtorAccount = reader.getElementText().trim();
+            } else if (isAccountId(name, parent) && path.contains("CdtrAcct") && payment != null) {
+                payment.creditorAccount = reader.getElementText().trim();
+            } else if ("InstrId".equals(name) && "PmtId".equals(parent) && payment != null) {
+                payment.instructionId = reader.getElementText().trim();
+            } else if ("EndToEndId".equals(name) && "PmtId".equals(parent) && payment != null) {
+                payment.endToEndId = reader.getElementText().trim();
+            } else if ("InstdAmt".equals(name) && "Amt".equals(parent) && payment != null) {
+                payment.currency = reader.getAttributeValue(null, "Ccy");
+                payment.amountText = reader.getElementText().trim();
+            } else {
+                path.push(name);
+                if ("CdtTrfTxInf".equals(name)) {
+                    payment = new Payment();
+                }
+            }
+        }
+
+        private void endElement(String name) throws XMLStreamException {
+            switch (name) {
+                case "GrpHdr" -> writeReportHeader();
+                case "CdtTrfTxInf" -> {
+                    addPayment(payment);
+                    payment = null;
+                }
+                case "PmtInf" -> {
+                    requirePaymentInformation();
+                    flushChunk();
+                    report.writeEndElement(); // OrgnlPmtInfAndSts
+                    paymentInformationOpen = false;
+                }
+                default -> {
+                }
+            }
+        }
+
+        private boolean isAccountId(String name, String parent) {
+            return ("IBAN".equals(name) && "Id".equals(parent)) || ("Id".equals(name) && "Othr".equals(parent));
+        }
+
+        private void writeReportHeader() throws XMLStreamException {
+            if (messageId == null || messageId.isEmpty()) {
+                throw new IllegalArgumentException("Malformed pain.001 file: missing message id");
+            }
+            if (messageId.length() > MAX_ID_LENGTH) {
+                throw new IllegalArgumentException("Malformed pain.001 file: message id exceeds " + MAX_ID_LENGTH
+                        + " characters");
+            }
+
+            LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+            report.writeStartDocument("UTF-8", "1.0");
+            report.writeStartElement("Document");
+            report.writeDefaultNamespace(PAIN_002_NAMESPACE);
+            report.writeStartElement("CstmrPmtStsRpt");
+            report.writeStartElement("GrpHdr");
+            element("MsgId", "STS-" + System.currentTimeMillis());
+            element("CreDtTm", now.format(DATE_TIME));
+            report.writeEndElement();
+            report.writeStartElement("OrgnlGrpInfAndSts");
+            element("OrgnlMsgId", messageId);
+            element("OrgnlMsgNmId", "pain.001.001.03");
+            report.writeEndElement();
+            headerWritten = true;
+        }
+
+        private void startPaymentInformation(String paymentInformationId) throws XMLStreamException {
+            if (!headerWritten) {
+                throw new IllegalArgumentException("Malformed pain.001 file: missing group header");
+            }
+            debtorAccount = null;
+            report.writeStartElement("OrgnlPmtInfAndSts");
+            element("OrgnlPmtInfId", paymentInformationId);
+            paymentInformationOpen = true;
+        }
+
+        private void requirePaymentInformation() {
+            if (!paymentInformationOpen) {
+                throw new IllegalArgumentException("Malformed pain.001 file: missing payment information id");
+            }
+        }
+
+        private void addPayment(Payment payment) throws XMLStreamException {
+            requirePaymentInformation();
+            if (!account.getAccountNumber().equals(debtorAccount)) {
+                payment.reject("AC01", "Debtor account does not match the uploading account");
+            }
+            if (payment.creditorAccount == null || payment.creditorAccount.isEmpty()) {
+                payment.reject("AC01", "Creditor account is required");
+            }
+            if (!currency.equals(payment.currency)) {
+                payment.reject("AM03", "Currency must be " + currency);
+            }
+            try {
+                payment.amount = new BigDecimal(payment.amountText);
+                if (payment.amount.scale() > 2) {
+                    payment.reject("AM12", "Amount has more than 2 decimal places");
+                }
+            } catch (NumberFormatException | NullPointerException e) {
+                payment.reject("AM12", "Invalid amount");
+            }
+            if (payment.endToEndId != null && payment.endToEndId.length() > MAX_ID_LENGTH) {
+                payment.reject("NARR", "End to end id exceeds " + MAX_ID_LENGTH + " characters");
+            }
+            // Payments without an end to end id are told apart by their position in the file
+            boolean identified = payment.endToEndId != null && !payment.endToEndId.isEmpty()
+                    && !NOT_PROVIDED.equals(payment.endToEndId);
+            payment.idempotencyKey = "pain001:" + messageId + ":"
+                    + (identified ? payment.endToEndId : "#" + (payments + chunk.size() + 1));
+
+            chunk.add(payment);
+            if (chunk.size() >= chunkSize) {
+                flushChunk();
+            }
+        }
+
+        /**
+         * Books the pending chunk in one database transaction and writes the status of each of its payments.
+         */
+        private void flushChunk() throws XMLStreamException {
+            if (chunk.isEmpty()) {
+                return;
+            }
+
+            Set<String> accountNumbers = new HashSet<>();
+            chunk.stream().filter(p -> p.reason == null).forEach(p -> accountNumbers.add(p.creditorAccount));
+            Map<String, Long> accountIds = new HashMap<>();
+            if (!accountNumbers.isEmpty()) {
+                accountRepository.findIdsByAccountNumberIn(accountNumbers)
+                        .forEach(found -> accountIds.put(found.accountNumber(), found.id()));
+            }
+
+            List<TransactionRequest> items = new ArrayList<>();
+            List<Payment> booked = new ArrayList<>();
+            for (Payment p : chunk) {
+                Long beneficiaryAccountId = p.reason == null ? accountIds.get(p.creditorAccount) : null;
+                if (p.reason == null && beneficiaryAccountId == null) {
+                    p.reject("AC01", "Creditor account not found");
+                }
+                if (p.reason == null) {
+                    items.add(TransactionRequest.builder()
+                            .type("TRANSFER")
+                            .amount(p.amount)
+                            .beneficiaryAccountId(beneficiaryAccountId)
+                            .idempotencyKey(p.idempotencyKey)
+                            .build());
+                    booked.add(p);
+                }
+            }
+
+            List<TransactionService.BatchItemOutcome> outcomes = null;
+            if (!items.isEmpty()) {
+                try {
+                    outcomes = transactionService.createBatch(account.getId(), items);
+                } catch (RuntimeException e) {
+                    // Nothing from this chunk was committed; report it as rejected and carry on with the next one
+                    log.error("Error booking a chunk of {} payments from pain.001 {}", items.size(), messageId, e);
+                    booked.forEach(p -> p.reject("NARR", "Payment could not be processed"));
+                    failedChunks++;
+                }
+            }
+
+            Map<Payment, TransactionService.BatchItemOutcome> outcomeByPayment = new HashMap<>();
+            if (outcomes != null) {
+                for (int i = 0; i < booked.size(); i++) {
+                    outcomeByPayment.put(booked.get(i), outcomes.get(i));
+                }
+            }
+
+            for (Payment p : chunk) {
+                TransactionService.BatchItemOutcome outcome = outcomeByPayment.get(p);
+                if (outcome != null && !outcome.isSuccess()) {
+                    p.reject(reasonFor(outcome.error()), outcome.error());
+                }
+                writeStatus(p, p.reason == null ? outcome : null);
+            }
+
+            payments += chunk.size();
+            chunk.clear();
+            report.flush();
+        }
+
+        private void writeStatus(Payment payment, TransactionService.BatchItemOutcome outcome) throws XMLStreamException {
+            report.writeStartElement("TxInfAndSts");
+            if (payment.instructionId != null) {
+                element("OrgnlInstrId", payment.instructionId);
+            }
+            element("OrgnlEndToEndId", payment.endToEndId == null ? NOT_PROVIDED : payment.endToEndId);
+
+            if (outcome == null) {
+                rejected++;
+                element("TxSts", "RJCT");
+                report.writeStartElement("StsRsnInf");
+                report.writeStartElement("Rsn");
+                element("Cd", payment.reason);
+                report.writeEndElement();
+                element("AddtlInf", payment.error);
+                report.writeEndElement();
+            } else {
+                boolean settled = outcome.transaction().getStatus() == TransactionStatus.COMPLETED;
+                if (settled) {
+                    completed++;
+                } else {
+                    pending++;
+                }
+                element("TxSts", settled ? "ACSC" : "PDNG");
+                element("AcctSvcrRef", String.valueOf(outcome.transaction().getId()));
+            }
+            report.writeEndElement();
+        }
+
+        private void element(String name, String text) throws XMLStreamException {
+            report.writeStartElement(name);
+            report.writeCharacters(text);
+            report.writeEndElement();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.ilyassan.albaraka.service;
+
+import com.ilyassan.albaraka.entity.TransactionStatus;
+import com.ilyassan.albaraka.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the number of transactions waiting for approval, counted every {@code pending-refresh-ms} rather than on
+ * each metrics scrape, so scrapes never query the database.
+ */
+@Component
+@Slf4j
+public class PendingTransactionCounter {
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private final AtomicLong pending = new AtomicLong();
+
+    @Scheduled(fixedDelayString = "${app.metrics.pending-refresh-ms:15000}")
+    public void refresh() {
+        try {
+            pending.set(transactionRepository.countByStatus(TransactionStatus.PENDING));
+        } catch (Exception e) {
+            // Keep the last count; the next run tries again
+            log.error("Error counting pending transactions", e);
+        }
+    }
+
+    public long getPending() {
+        return pending.get();
+    }
+}
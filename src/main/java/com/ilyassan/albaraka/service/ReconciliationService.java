@@ -0,0 +1,218 @@
+package com.ilyassan.albaraka.service;
+
+import com.ilyassan.albaraka.entity.ReconciliationDiscrepancy;
+import com.ilyassan.albaraka.entity.ReconciliationRun;
+import com.ilyassan.albaraka.entity.ReconciliationStatus;
+import com.ilyassan.albaraka.repository.ReconciliationDiscrepancyRepository;
+import com.ilyassan.albaraka.repository.ReconciliationRunRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Compares every stored account balance with the net of the account's completed transactions and records the
+ * accounts that disagree.
+ * <p>
+ * The account id space is split in half recursively on a dedicated fork/join pool until a range holds at most
+ * {@code range-size} ids. Each range is checked with one streaming query that joins the balances to the
+ * transaction totals, so the database does the aggregation and only mismatching rows are kept in memory. Because
+ * the balance and the totals come from the same statement, they see the same snapshot, and money moving while
+ * the job runs does not show up as drift.
+ */
+@Service
+@Slf4j
+public class ReconciliationService {
+
+    private static final String ACCOUNT_ID_BOUNDS_SQL = "SELECT MIN(id), MAX(id) FROM accounts";
+
+    // Deposits add to the account, withdrawals and outgoing transfers subtract, incoming transfers add
+    private static final String RECONCILE_RANGE_SQL =
+            "SELECT a.id, a.balance, COALESCE(m.net, 0) FROM accounts a LEFT JOIN (" +
+            "  SELECT u.account_id, SUM(u.delta) AS net FROM (" +
+            "    SELECT t.account_id, CASE WHEN t.type = 'DEPOSIT' THEN t.amount ELSE -t.amount END AS delta" +
+            "    FROM transactions t WHERE t.status = 'COMPLETED' AND t.account_id BETWEEN ? AND ?" +
+            "    UNION ALL" +
+            "    SELECT t.beneficiary_account_id, t.amount FROM transactions t" +
+            "    WHERE t.status = 'COMPLETED' AND t.type = 'TRANSFER' AND t.beneficiary_account_id BETWEEN ? AND ?" +
+            "  ) u GROUP BY u.account_id" +
+            ") m ON m.account_id = a.id WHERE a.id BETWEEN ? AND ?";
+
+    @Autowired
+    private ReconciliationRunRepository reconciliationRunRepository;
+
+    @Autowired
+    private ReconciliationDiscrepancyRepository reconciliationDiscrepancyRepository;
+
+    @Autowired
+    private TransactionRetryExecutor transactionRetryExecutor;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${app.reconciliation.parallelism:4}")
+    private int parallelism;
+
+    @Value("${app.reconciliation.range-size:10000}")
+    private long rangeSize;
+
+    @Value("${app.reconciliation.fetch-size:1000}")
+    private int fetchSize;
+
+    private JdbcTemplate streamingJdbcTemplate;
+
+    private ForkJoinPool pool;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @PostConstruct
+    void init() {
+        streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        streamingJdbcTemplate.setFetchSize(fetchSize);
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        pool.shutdownNow();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Starts a reconciliation run in the background and returns it immediately.
+     *
+     * @throws IllegalStateException if a run is already in progress
+     */
+    public ReconciliationRun startRun() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Reconciliation already running");
+        }
+
+        try {
+            Long[] bounds = streamingJdbcTemplate.queryForObject(ACCOUNT_ID_BOUNDS_SQL,
+                    (rs, rowNum) -> new Long[]{rs.getObject(1, Long.class), rs.getObject(2, Long.class)});
+            Long minId = bounds[0];
+            Long maxId = bounds[1];
+            long totalRanges = minId == null ? 0 : rangesBetween(minId, maxId);
+
+            ReconciliationRun run = reconciliationRunRepository.save(ReconciliationRun.builder()
+                    .totalRanges(totalRanges)
+                    .build());
+            log.info("Starting reconciliation run {} over {} ranges", run.getId(), totalRanges);
+
+            pool.execute(() -> execute(run.getId(), minId, maxId));
+            return run;
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    public Optional<ReconciliationRun> getRun(Long runId) {
+        return reconciliationRunRepository.findById(runId);
+    }
+
+    public List<ReconciliationRun> getRecentRuns() {
+        return reconciliationRunRepository.findTop20ByOrderByIdDesc();
+    }
+
+    public Page<ReconciliationDiscrepancy> getDiscrepancies(Long runId, Pageable pageable) {
+        return reconciliationDiscrepancyRepository.findByRunIdOrderByAccountId(runId, pageable);
+    }
+
+    private void execute(Long runId, Long minId, Long maxId) {
+        try {
+            if (minId != null) {
+                new RangeTask(runId, minId, maxId).invoke();
+            }
+            finish(runId, ReconciliationStatus.COMPLETED, null);
+            log.info("Reconciliation run {} completed", runId);
+        } catch (Exception e) {
+            log.error("Reconciliation run {} failed", runId, e);
+            String message = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+            finish(runId, ReconciliationStatus.FAILED, message.length() > 500 ? message.substring(0, 500) : message);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void finish(Long runId, ReconciliationStatus status, String error) {
+        transactionRetryExecutor.execute(() ->
+                reconciliationRunRepository.finish(runId, status, error, LocalDateTime.now()));
+    }
+
+    private void reconcileRange(Long runId, long fromId, long toId) {
+        transactionRetryExecutor.execute(() -> {
+            List<ReconciliationDiscrepancy> discrepancies = new ArrayList<>();
+            long[] checked = {0};
+
+            streamingJdbcTemplate.query(RECONCILE_RANGE_SQL, rs -> {
+                checked[0]++;
+                BigDecimal recorded = rs.getBigDecimal(2);
+                BigDecimal expected = rs.getBigDecimal(3);
+                if (recorded.compareTo(expected) != 0) {
+                    discrepancies.add(ReconciliationDiscrepancy.builder()
+                            .runId(runId)
+                            .accountId(rs.getLong(1))
+                            .recordedBalance(recorded)
+                            .expectedBalance(expected)
+                            .difference(recorded.subtract(expected))
+                            .build());
+                }
+            }, fromId, toId, fromId, toId, fromId, toId);
+
+            reconciliationDiscrepancyRepository.saveAll(discrepancies);
+            reconciliationRunRepository.recordRangeCompleted(runId, checked[0], discrepancies.size());
+            if (!discrepancies.isEmpty()) {
+                log.warn("Found {} balance discrepancies in accounts {}..{}", discrepancies.size(), fromId, toId);
+            }
+            return null;
+        });
+    }
+
+    private long rangesBetween(long fromId, long toId) {
+        return (toId - fromId) / rangeSize + 1;
+    }
+
+    private class RangeTask extends RecursiveAction {
+
+        private final Long runId;
+        private final long fromId;
+        private final long toId;
+
+        RangeTask(Long runId, long fromId, long toId) {
+            this.runId = runId;
+            this.fromId = fromId;
+            this.toId = toId;
+        }
+
+        @Override
+        protected void compute() {
+            long ranges = rangesBetween(fromId, toId);
+            if (ranges <= 1) {
+                reconcileRange(runId, fromId, toId);
+                return;
+            }
+
+            // Split on a range boundary so every leaf matches one of the ranges counted in totalRanges
+            long mid = fromId + (ranges / 2) * rangeSize;
+            invokeAll(new RangeTask(runId, fromId, mid - 1), new RangeTask(runId, mid, toId));
+        }
+    }
+}
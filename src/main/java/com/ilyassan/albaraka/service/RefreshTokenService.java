@@ -0,0 +1,128 @@
+package com.ilyassan.albaraka.service;
+
+import com.ilyassan.albaraka.entity.RefreshToken;
+import com.ilyassan.albaraka.repository.RefreshTokenRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Issues and rotates refresh tokens, which let a client get a new short-lived access token without sending the
+ * password again, and so without a BCrypt check.
+ * <p>
+ * A refresh token is 256 random bits; the table stores only its SHA-256. Each refresh consumes the presented token
+ * and issues its successor in the same family. A consumed token presented again means two parties hold it, so the
+ * whole family is revoked and the legitimate client has to log in again.
+ */
+@Service
+@Slf4j
+public class RefreshTokenService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Value("${app.jwt.refresh-token-ttl:P14D}")
+    private Duration refreshTokenTtl;
+
+    /**
+     * A newly issued refresh token and the user it belongs to.
+     */
+    public record Issued(Long userId, String token) {
+    }
+
+    /**
+     * Starts a new token family for the user, on login.
+     */
+    @Transactional
+    public Issued issue(Long userId) {
+        return issue(userId, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Consumes {@code token} and issues its successor.
+     *
+     * @throws IllegalArgumentException if the token is unknown, expired, revoked or was already used
+     */
+    @Transactional(noRollbackFor = IllegalArgumentException.class)
+    public Issued rotate(String token) {
+        RefreshToken current = refreshTokenRepository.findByTokenHash(hash(token))
+                .orElseThrow(() -> new IllegalArgumentException("Invalid refresh token"));
+        LocalDateTime now = LocalDateTime.now();
+
+        if (current.isRevoked() || current.getExpiresAt().isBefore(now)) {
+            throw new IllegalArgumentException("Invalid refresh token");
+        }
+
+        if (refreshTokenRepository.markUsed(current.getId(), now) == 0) {
+            // Reuse of a consumed token: revoke every token of the family, committed despite the exception
+            int revoked = refreshTokenRepository.revokeFamily(current.getFamilyId());
+            log.warn("Refresh token reuse detected for user {}, revoked {} tokens of family {}",
+                    current.getUserId(), revoked, current.getFamilyId());
+            throw new IllegalArgumentException("Invalid refresh token");
+        }
+
+        return issue(current.getUserId(), current.getFamilyId());
+    }
+
+    /**
+     * Revokes the family of {@code token}, on logout. Unknown tokens are ignored.
+     */
+    @Transactional
+    public void revokeFamily(String token) {
+        refreshTokenRepository.findByTokenHash(hash(token))
+                .ifPresent(current -> refreshTokenRepository.revokeFamily(current.getFamilyId()));
+    }
+
+    @Transactional
+    public void revokeAllForUser(Long userId) {
+        int revoked = refreshTokenRepository.revokeByUserId(userId);
+        log.info("Revoked {} refresh tokens of user: {}", revoked, userId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.refresh-token-purge-ms:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("Deleted {} expired refresh tokens", deleted);
+        }
+    }
+
+    private Issued issue(Long userId, String familyId) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        refreshTokenRepository.save(RefreshToken.builder()
+                .tokenHash(hash(token))
+                .userId(userId)
+                .familyId(familyId)
+                .expiresAt(LocalDateTime.now().plus(refreshTokenTtl))
+                .build());
+        return new Issued(userId, token);
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
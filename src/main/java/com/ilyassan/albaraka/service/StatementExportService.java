@@ -0,0 +1,173 @@
+package com.ilyassan.albaraka.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.ilyassan.albaraka.dto.StatementLine;
+import com.ilyassan.albaraka.repository.StatementRow;
+import com.ilyassan.albaraka.repository.LedgerEntryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streams an account statement straight from a database cursor to the response.
+ * <p>
+ * Rows are read as a non-entity projection with a JDBC fetch size and written out one at a time, so memory use
+ * does not depend on the number of transactions. The statement covers completed movements in both directions:
+ * the account's own deposits, withdrawals and outgoing transfers, and transfers it received. Lines are dated and
+ * selected by when they were posted to the ledger, as in the camt.053 statement, so a transaction approved after
+ * it was requested appears in the period it moved money.
+ */
+@Service
+@Slf4j
+public class StatementExportService {
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private static final String CSV_HEADER = "transactionId,createdAt,type,direction,amount,counterpartyAccountId\n";
+
+    private static final int FLUSH_EVERY = 1000;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    public StatementExportService(PlatformTransactionManager transactionManager) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Writes the completed transactions of an account posted in {@code [from, to)}, oldest first. Either bound
+     * may be null. Runs in its own read-only transaction, so it can be called from the response-writing thread.
+     *
+     * @return the number of lines written
+     * @throws IllegalArgumentException if {@code from} is not before {@code to}
+     */
+    public long export(Long accountId, LocalDateTime from, LocalDateTime to, Format format, OutputStream out) {
+        LocalDateTime start = from == null ? EARLIEST : from;
+        LocalDateTime end = to == null ? LATEST : to;
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+
+        Long written = readOnlyTransaction.execute(status -> {
+            try (Stream<StatementRow> rows = ledgerEntryRepository.streamTransactionStatement(accountId, start, end)) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                long count = format == Format.CSV
+                        ? writeCsv(accountId, rows.iterator(), writer)
+                        : writeNdjson(accountId, rows.iterator(), writer);
+                writer.flush();
+                return count;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        log.info("Exported {} statement lines for account: {}", written, accountId);
+        return written == null ? 0 : written;
+    }
+
+    private long writeCsv(Long accountId, Iterator<StatementRow> rows, Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        long count = 0;
+        while (rows.hasNext()) {
+            StatementLine line = toLine(accountId, rows.next());
+            writer.write(String.valueOf(line.getTransactionId()));
+            writer.write(',');
+            writer.write(line.getCreatedAt().toString());
+            writer.write(',');
+            writer.write(line.getType());
+            writer.write(',');
+            writer.write(line.getDirection());
+            writer.write(',');
+            writer.write(line.getAmount().toPlainString());
+            writer.write(',');
+            if (line.getCounterpartyAccountId() != null) {
+                writer.write(String.valueOf(line.getCounterpartyAccountId()));
+            }
+            writer.write('\n');
+            if (++count % FLUSH_EVERY == 0) {
+                writer.flush();
+            }
+        }
+        return count;
+    }
+
+    private long writeNdjson(Long accountId, Iterator<StatementRow> rows, Writer writer) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // Lines are separated by the newline written below, not by Jackson's default space between root values
+        generator.setRootValueSeparator(null);
+        // Flushing after every line would send one tiny chunk per transaction
+        ObjectWriter lineWriter = objectMapper.writerFor(StatementLine.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long count = 0;
+        while (rows.hasNext()) {
+            lineWriter.writeValue(generator, toLine(accountId, rows.next()));
+            generator.writeRaw('\n');
+            if (++count % FLUSH_EVERY == 0) {
+                generator.flush();
+            }
+        }
+        generator.flush();
+        return count;
+    }
+
+    private StatementLine toLine(Long accountId, StatementRow row) {
+        boolean incoming = !accountId.equals(row.accountId());
+        String direction = incoming || "DEPOSIT".equals(row.type()) ? "CREDIT" : "DEBIT";
+        Long counterparty = incoming ? row.accountId() : row.beneficiaryAccountId();
+
+        return StatementLine.builder()
+                .transactionId(row.id())
+                .createdAt(row.createdAt())
+                .type(row.type())
+                .direction(direction)
+                .amount(row.amount())
+                .counterpartyAccountId(counterparty)
+                .build();
+    }
+}
@@ -0,0 +1,210 @@
+package com.ilyassan.albaraka.service;
+
+import com.ilyassan.albaraka.entity.TokenRevocation;
+import com.ilyassan.albaraka.repository.TokenRevocationRepository;
+import com.ilyassan.albaraka.security.RevocationBloomFilter;
+import com.ilyassan.albaraka.security.VerifiedTokenCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides whether a verified access token has been revoked, without a database query for the common case.
+ * <p>
+ * Revocations are rows in {@code token_revocations}, keyed by token id or by user id. Every active key is also in
+ * an in-memory Bloom filter, so a token whose keys are not in the filter, which is nearly every token, is accepted
+ * after a few bit reads. Only a "maybe" from the filter is confirmed against the table.
+ * <p>
+ * Revocations made on this instance are added to the filter at once, and again when they commit so that a rebuild
+ * running at the same time keeps them. The filter is rebuilt from the table every {@code poll-ms}, which picks up
+ * revocations made by other instances and drops expired ones; with short-lived access tokens that delay is the
+ * window in which another instance may still accept a revoked token.
+ */
+@Service
+@Slf4j
+public class TokenRevocationService {
+
+    private static final String TOKEN_KEY_PREFIX = "jti:";
+
+    private static final String USER_KEY_PREFIX = "uid:";
+
+    @Autowired
+    private TokenRevocationRepository tokenRevocationRepository;
+
+    @Value("${app.jwt.access-token-ttl:PT15M}")
+    private Duration accessTokenTtl;
+
+    private final int expectedEntries;
+
+    private final double falsePositiveRate;
+
+    private final Object writeLock = new Object();
+
+    private final Object rebuildLock = new Object();
+
+    private volatile RevocationBloomFilter filter;
+
+    // Keys committed while a rebuild runs, replayed into the new filter; null between rebuilds, guarded by writeLock
+    private List<String> addedDuringRebuild;
+
+    private final LongAdder checks = new LongAdder();
+
+    private final LongAdder filterHits = new LongAdder();
+
+    public TokenRevocationService(@Value("${app.security.revocation.expected-entries:100000}") int expectedEntries,
+                                  @Value("${app.security.revocation.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new RevocationBloomFilter(expectedEntries, falsePositiveRate);
+    }
+
+    /**
+     * @return whether the token, or every token of its user issued up to some point after it, has been revoked
+     */
+    public boolean isRevoked(VerifiedTokenCache.VerifiedToken token) {
+        checks.increment();
+        RevocationBloomFilter current = filter;
+
+        if (token.tokenId() != null && current.mightContain(TOKEN_KEY_PREFIX + token.tokenId())) {
+            filterHits.increment();
+            if (tokenRevocationRepository.findLatestRevokedAt(TOKEN_KEY_PREFIX + token.tokenId(), LocalDateTime.now()).isPresent()) {
+                return true;
+            }
+        }
+
+        if (token.userId() != null && current.mightContain(USER_KEY_PREFIX + token.userId())) {
+            filterHits.increment();
+            // Issue times have second precision, so a token issued in the same second as the revocation is revoked
+            LocalDateTime issuedAt = toLocalDateTime(token.issuedAtMillis());
+            return tokenRevocationRepository.findLatestRevokedAt(USER_KEY_PREFIX + token.userId(), LocalDateTime.now())
+                    .map(revokedAt -> !issuedAt.isAfter(revokedAt))
+                    .orElse(false);
+        }
+        return false;
+    }
+
+    /**
+     * Revokes one access token until it expires.
+     */
+    @Transactional
+    public void revokeToken(String tokenId, long expiresAtMillis) {
+        revoke(TOKEN_KEY_PREFIX + tokenId, toLocalDateTime(expiresAtMillis));
+        log.info("Access token revoked: {}", tokenId);
+    }
+
+    /**
+     * Revokes every access token issued to the user so far.
+     */
+    @Transactional
+    public void revokeUser(Long userId) {
+        revoke(USER_KEY_PREFIX + userId, LocalDateTime.now().plus(accessTokenTtl));
+        log.info("Access tokens revoked for user: {}", userId);
+    }
+
+    private void revoke(String key, LocalDateTime expiresAt) {
+        tokenRevocationRepository.save(TokenRevocation.builder()
+                .revocationKey(key)
+                .revokedAt(LocalDateTime.now())
+                .expiresAt(expiresAt)
+                .build());
+        // Added before commit: until then the filter only sends the key's tokens to the table, which is harmless
+        synchronized (writeLock) {
+            filter.put(key);
+        }
+
+        // A rebuild that read the table before the commit does not see the row, so it gets the key once committed
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    committed(key);
+                }
+            });
+        } else {
+            committed(key);
+        }
+    }
+
+    private void committed(String key) {
+        synchronized (writeLock) {
+            filter.put(key);
+            if (addedDuringRebuild != null) {
+                addedDuringRebuild.add(key);
+            }
+        }
+    }
+
+    // Transactional here too: the call to rebuild() below does not go through the proxy
+    @Scheduled(fixedDelayString = "${app.security.revocation.poll-ms:30000}")
+    @Transactional
+    public void run() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Error rebuilding the token revocation filter", e);
+        }
+    }
+
+    /**
+     * Deletes expired revocations and rebuilds the filter from the ones still active.
+     *
+     * @return the number of active revocation keys
+     */
+    @Transactional
+    public int rebuild() {
+        synchronized (rebuildLock) {
+            // Capture starts before the read: a key committed after this point is either read or replayed
+            synchronized (writeLock) {
+                addedDuringRebuild = new ArrayList<>();
+            }
+
+            List<String> keys;
+            RevocationBloomFilter rebuilt;
+            try {
+                LocalDateTime now = LocalDateTime.now();
+                tokenRevocationRepository.deleteExpired(now);
+                keys = tokenRevocationRepository.findActiveKeys(now);
+                rebuilt = new RevocationBloomFilter(Math.max(expectedEntries, 2 * keys.size()), falsePositiveRate);
+                keys.forEach(rebuilt::put);
+            } catch (RuntimeException e) {
+                synchronized (writeLock) {
+                    addedDuringRebuild = null;
+                }
+                throw e;
+            }
+
+            synchronized (writeLock) {
+                addedDuringRebuild.forEach(rebuilt::put);
+                filter = rebuilt;
+                addedDuringRebuild = null;
+            }
+            log.debug("Rebuilt token revocation filter with {} keys", keys.size());
+            return keys.size();
+        }
+    }
+
+    public long getCheckCount() {
+        return checks.sum();
+    }
+
+    public long getFilterHitCount() {
+        return filterHits.sum();
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
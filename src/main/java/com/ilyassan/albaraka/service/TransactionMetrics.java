@@ -0,0 +1,158 @@
+package com.ilyassan.albaraka.service;
+
+import com.ilyassan.albaraka.entity.Transaction;
+import com.ilyassan.albaraka.jfr.TransactionOperationEvent;
+import com.ilyassan.albaraka.security.AdmissionControlFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Times {@link TransactionService} operations and counts their outcomes.
+ * <p>
+ * {@code albaraka.transactions} is a timer tagged with the operation ({@code create}, {@code approve},
+ * {@code reject}, {@code batch}), the transaction type and the outcome: the resulting status, {@code refused} for
+ * business-rule failures such as an insufficient balance, {@code conflict} when retries were exhausted, and
+ * {@code error} otherwise. Its SLO buckets are set with {@code management.metrics.distribution.slo}. Amounts moved
+ * are counted per type and outcome in {@code albaraka.transactions.amount}. Each operation is also a
+ * {@link TransactionOperationEvent} in JFR recordings, so it can be lined up with lock waits and repository calls.
+ * The duration is also reported to {@link AdmissionControlFilter} as the latency of the current request, and
+ * conflicts and errors mark that request as failed.
+ */
+@Component
+public class TransactionMetrics {
+
+    private static final String TIMER = "albaraka.transactions";
+
+    private static final String AMOUNT = "albaraka.transactions.amount";
+
+    private static final String BATCH_ITEMS = "albaraka.transactions.batch.items";
+
+    private final MeterRegistry registry;
+
+    public TransactionMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Runs a single-transaction operation and records it.
+     *
+     * @param type the transaction type, or {@code null} to take it from the result
+     */
+    public Transaction record(String operation, String type, Supplier<Transaction> work) {
+        TransactionOperationEvent event = new TransactionOperationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        Transaction result = null;
+        String outcome = "error";
+        try {
+            result = work.get();
+            outcome = result.getStatus().name().toLowerCase(Locale.ROOT);
+            return result;
+        } catch (RuntimeException e) {
+            outcome = outcomeOf(e);
+            reportOverload(outcome);
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            AdmissionControlFilter.recordServiceTime(elapsed);
+            String resolvedType = type != null ? type : result != null ? result.getType() : "unknown";
+            timer(operation, resolvedType, outcome).record(elapsed, TimeUnit.NANOSECONDS);
+            commit(event, operation, resolvedType, outcome);
+            if (result != null) {
+                amount(resolvedType, outcome).increment(result.getAmount().doubleValue());
+            }
+        }
+    }
+
+    /**
+     * Runs a batch and records it, with one amount and item count per booked item.
+     */
+    public List<TransactionService.BatchItemOutcome> recordBatch(Supplier<List<TransactionService.BatchItemOutcome>> work) {
+        TransactionOperationEvent event = new TransactionOperationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            List<TransactionService.BatchItemOutcome> outcomes = work.get();
+            outcome = "completed";
+            for (TransactionService.BatchItemOutcome item : outcomes) {
+                if (item.isSuccess()) {
+                    Transaction transaction = item.transaction();
+                    String status = transaction.getStatus().name().toLowerCase(Locale.ROOT);
+                    amount(transaction.getType(), status).increment(transaction.getAmount().doubleValue());
+                    batchItems("accepted").increment();
+                } else {
+                    batchItems("refused").increment();
+                }
+            }
+            return outcomes;
+        } catch (RuntimeException e) {
+            outcome = outcomeOf(e);
+            reportOverload(outcome);
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            AdmissionControlFilter.recordServiceTime(elapsed);
+            timer("batch", "MIXED", outcome).record(elapsed, TimeUnit.NANOSECONDS);
+            commit(event, "batch", "MIXED", outcome);
+        }
+    }
+
+    private static void commit(TransactionOperationEvent event, String operation, String type, String outcome) {
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.type = type;
+            event.outcome = outcome;
+            event.commit();
+        }
+    }
+
+    // Controllers answer database errors with a 4xx, which admission control would otherwise count as a success
+    private static void reportOverload(String outcome) {
+        if (!"refused".equals(outcome)) {
+            AdmissionControlFilter.markCurrentRequestFailed();
+        }
+    }
+
+    private static String outcomeOf(RuntimeException e) {
+        if (e instanceof IllegalArgumentException) {
+            return "refused";
+        }
+        if (e instanceof ConcurrencyFailureException) {
+            return "conflict";
+        }
+        return "error";
+    }
+
+    private Timer timer(String operation, String type, String outcome) {
+        return Timer.builder(TIMER)
+                .description("Transaction service operations")
+                .tag("operation", operation)
+                .tag("type", type)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private Counter amount(String type, String outcome) {
+        return Counter.builder(AMOUNT)
+                .description("Amount of money in transactions, by type and resulting status")
+                .tag("type", type)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private Counter batchItems(String outcome) {
+        return Counter.builder(BATCH_ITEMS)
+                .description("Batch items accepted or refused")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
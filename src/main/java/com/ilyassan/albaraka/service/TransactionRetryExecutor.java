@@ -0,0 +1,96 @@
+package com.ilyassan.albaraka.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs a unit of work in its own database transaction and retries it when the database aborts it
+ * because of a deadlock, a lock timeout or a serialization failure.
+ * <p>
+ * Retrying only makes sense when this executor owns the transaction: if one is already active the work
+ * joins it and runs once, and any failure is left to the outer transaction.
+ */
+@Component
+@Slf4j
+public class TransactionRetryExecutor {
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int maxAttempts;
+
+    private final long initialBackoffMs;
+
+    private final long maxBackoffMs;
+
+    private final LongAdder retries = new LongAdder();
+
+    private final LongAdder exhausted = new LongAdder();
+
+    public TransactionRetryExecutor(PlatformTransactionManager transactionManager,
+                                    @Value("${app.transactions.retry.max-attempts:5}") int maxAttempts,
+                                    @Value("${app.transactions.retry.initial-backoff-ms:10}") long initialBackoffMs,
+                                    @Value("${app.transactions.retry.max-backoff-ms:200}") long maxBackoffMs) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+    }
+
+    public <T> T execute(Supplier<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return work.get();
+        }
+
+        int attempt = 1;
+        while (true) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    log.warn("Giving up after {} attempts: {}", attempt, e.getMessage());
+                    throw e;
+                }
+                log.debug("Concurrency failure on attempt {}, retrying: {}", attempt, e.getMessage());
+                retries.increment();
+                backoff(attempt);
+                attempt++;
+            }
+        }
+    }
+
+    /**
+     * @return how many times a unit of work has been retried after a concurrency failure
+     */
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    /**
+     * @return how many units of work failed on every attempt
+     */
+    public long getExhaustedCount() {
+        return exhausted.sum();
+    }
+
+    private void backoff(int attempt) {
+        // Exponential backoff with full jitter so that colliding transactions do not retry in lockstep
+        long ceiling = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 16));
+        long sleepMs = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        try {
+            Thread.sleep(sleepMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry transaction", e);
+        }
+    }
+}
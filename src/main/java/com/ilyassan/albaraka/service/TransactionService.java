@@ -1,20 +1,31 @@
 package com.ilyassan.albaraka.service;
 
+import com.ilyassan.albaraka.dto.TransactionRequest;
 import com.ilyassan.albaraka.entity.Account;
 import com.ilyassan.albaraka.entity.Transaction;
 import com.ilyassan.albaraka.entity.TransactionStatus;
 import com.ilyassan.albaraka.repository.AccountRepository;
 import com.ilyassan.albaraka.repository.TransactionRepository;
+import com.ilyassan.albaraka.util.TransactionCursor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -22,6 +33,15 @@ public class TransactionService {
 
     private static final BigDecimal VALIDATION_THRESHOLD = new BigDecimal("10000");
 
+    private static final BigDecimal MINIMUM_AMOUNT = new BigDecimal("0.01");
+
+    private static final Set<String> BATCH_TYPES = Set.of("DEPOSIT", "WITHDRAWAL", "TRANSFER");
+
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
+    @Value("${app.transactions.batch.max-size:500}")
+    private int batchMaxSize;
+
     @Autowired
     private TransactionRepository transactionRepository;
 
@@ -29,135 +49,427 @@ public class TransactionService {
     private AccountRepository accountRepository;
 
     @Autowired
-    private AccountService accountService;
+    private TransactionRetryExecutor transactionRetryExecutor;
 
-    @Transactional
-    public Transaction createDeposit(Long accountId, BigDecimal amount) {
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new IllegalArgumentException("Account not found"));
+    @Autowired
+    private AccountLockManager accountLockManager;
 
-        Transaction transaction = Transaction.builder()
-                .account(account)
-                .type("DEPOSIT")
-                .amount(amount)
-                .build();
+    @Autowired
+    private LedgerService ledgerService;
 
-        // Auto-approve if amount <= 10,000 DH
-        if (amount.compareTo(VALIDATION_THRESHOLD) <= 0) {
-            transaction.setStatus(TransactionStatus.COMPLETED);
-            accountService.updateBalance(accountId, amount);
-            log.info("Deposit auto-approved for account: {} amount: {}", accountId, amount);
-        } else {
-            transaction.setStatus(TransactionStatus.PENDING);
-            log.info("Deposit pending validation for account: {} amount: {}", accountId, amount);
-        }
+    @Autowired
+    private TransactionMetrics transactionMetrics;
 
-        return transactionRepository.save(transaction);
+    /**
+     * Money movements hold the in-JVM stripe of every account they touch for the whole database transaction, so
+     * same-account requests queue in memory instead of on row locks while holding a pooled connection.
+     */
+    public Transaction createDeposit(Long accountId, BigDecimal amount) {
+        return createDeposit(accountId, amount, null);
+    }
+
+    /**
+     * Creates a deposit that carries the client's idempotency key; the key is unique per account, so a duplicate
+     * insert fails with a {@link org.springframework.dao.DataIntegrityViolationException}.
+     */
+    public Transaction createDeposit(Long accountId, BigDecimal amount, String idempotencyKey) {
+        return transactionMetrics.record("create", "DEPOSIT", () -> deposit(accountId, amount, idempotencyKey));
+    }
+
+    private Transaction deposit(Long accountId, BigDecimal amount, String idempotencyKey) {
+        return accountLockManager.withLocks(List.of(accountId), () -> transactionRetryExecutor.execute(() -> {
+            Account account = accountRepository.findById(accountId)
+                    .orElseThrow(() -> new IllegalArgumentException("Account not found"));
+
+            Transaction transaction = Transaction.builder()
+                    .account(account)
+                    .type("DEPOSIT")
+                    .amount(amount)
+                    .idempotencyKey(idempotencyKey)
+                    .build();
+
+            // Auto-approve if amount <= 10,000 DH
+            if (amount.compareTo(VALIDATION_THRESHOLD) <= 0) {
+                transaction.setStatus(TransactionStatus.COMPLETED);
+                log.info("Deposit auto-approved for account: {} amount: {}", accountId, amount);
+            } else {
+                transaction.setStatus(TransactionStatus.PENDING);
+                log.info("Deposit pending validation for account: {} amount: {}", accountId, amount);
+            }
+
+            return saveAndPost(transaction);
+        }));
     }
 
-    @Transactional
     public Transaction createWithdrawal(Long accountId, BigDecimal amount) {
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new IllegalArgumentException("Account not found"));
+        return createWithdrawal(accountId, amount, null);
+    }
 
-        // Check sufficient balance
-        if (account.getBalance().compareTo(amount) < 0) {
-            throw new IllegalArgumentException("Insufficient balance");
-        }
+    public Transaction createWithdrawal(Long accountId, BigDecimal amount, String idempotencyKey) {
+        return transactionMetrics.record("create", "WITHDRAWAL", () -> withdraw(accountId, amount, idempotencyKey));
+    }
+
+    private Transaction withdraw(Long accountId, BigDecimal amount, String idempotencyKey) {
+        return accountLockManager.withLocks(List.of(accountId), () -> transactionRetryExecutor.execute(() -> {
+            Account account = accountRepository.findById(accountId)
+                    .orElseThrow(() -> new IllegalArgumentException("Account not found"));
+
+            // Fail fast on a stale read; the guarded balance update is the authoritative check
+            if (account.getBalance().compareTo(amount) < 0) {
+                throw new IllegalArgumentException("Insufficient balance");
+            }
+
+            Transaction transaction = Transaction.builder()
+                    .account(account)
+                    .type("WITHDRAWAL")
+                    .amount(amount)
+                    .idempotencyKey(idempotencyKey)
+                    .build();
+
+            // Auto-approve if amount <= 10,000 DH
+            if (amount.compareTo(VALIDATION_THRESHOLD) <= 0) {
+                transaction.setStatus(TransactionStatus.COMPLETED);
+                log.info("Withdrawal auto-approved for account: {} amount: {}", accountId, amount);
+            } else {
+                transaction.setStatus(TransactionStatus.PENDING);
+                log.info("Withdrawal pending validation for account: {} amount: {}", accountId, amount);
+            }
+
+            return saveAndPost(transaction);
+        }));
+    }
 
-        Transaction transaction = Transaction.builder()
-                .account(account)
-                .type("WITHDRAWAL")
-                .amount(amount)
-                .build();
+    /**
+     * Creates a transfer in its own database transaction, retried on deadlocks and serialization failures.
+     * Both accounts are row-locked in ascending id order before the balance is checked.
+     */
+    public Transaction createTransfer(Long sourceAccountId, Long beneficiaryAccountId, BigDecimal amount) {
+        return createTransfer(sourceAccountId, beneficiaryAccountId, amount, null);
+    }
 
-        // Auto-approve if amount <= 10,000 DH
-        if (amount.compareTo(VALIDATION_THRESHOLD) <= 0) {
-            transaction.setStatus(TransactionStatus.COMPLETED);
-            accountService.updateBalance(accountId, amount.negate());
-            log.info("Withdrawal auto-approved for account: {} amount: {}", accountId, amount);
-        } else {
-            transaction.setStatus(TransactionStatus.PENDING);
-            log.info("Withdrawal pending validation for account: {} amount: {}", accountId, amount);
+    public Transaction createTransfer(Long sourceAccountId, Long beneficiaryAccountId, BigDecimal amount,
+                                      String idempotencyKey) {
+        return transactionMetrics.record("create", "TRANSFER",
+                () -> transfer(sourceAccountId, beneficiaryAccountId, amount, idempotencyKey));
+    }
+
+    private Transaction transfer(Long sourceAccountId, Long beneficiaryAccountId, BigDecimal amount,
+                                 String idempotencyKey) {
+        if (sourceAccountId.equals(beneficiaryAccountId)) {
+            throw new IllegalArgumentException("Cannot transfer to the same account");
         }
 
-        return transactionRepository.save(transaction);
+        List<Long> accountIds = List.of(sourceAccountId, beneficiaryAccountId);
+        return accountLockManager.withLocks(accountIds, () -> transactionRetryExecutor.execute(() -> {
+            Map<Long, BigDecimal> lockedBalances = lockAccountsInOrder(sourceAccountId, beneficiaryAccountId);
+
+            if (!lockedBalances.containsKey(sourceAccountId)) {
+                throw new IllegalArgumentException("Source account not found");
+            }
+
+            if (!lockedBalances.containsKey(beneficiaryAccountId)) {
+                throw new IllegalArgumentException("Beneficiary account not found");
+            }
+
+            // Balance read under the row lock, so it cannot change before the debit below
+            requireBalance(lockedBalances.get(sourceAccountId), amount);
+
+            Account sourceAccount = accountRepository.getReferenceById(sourceAccountId);
+
+            Transaction transaction = Transaction.builder()
+                    .account(sourceAccount)
+                    .type("TRANSFER")
+                    .amount(amount)
+                    .beneficiaryAccountId(beneficiaryAccountId)
+                    .idempotencyKey(idempotencyKey)
+                    .build();
+
+            // Auto-approve if amount <= 10,000 DH
+            if (amount.compareTo(VALIDATION_THRESHOLD) <= 0) {
+                transaction.setStatus(TransactionStatus.COMPLETED);
+                log.info("Transfer auto-approved from account: {} to account: {} amount: {}",
+                        sourceAccountId, beneficiaryAccountId, amount);
+            } else {
+                transaction.setStatus(TransactionStatus.PENDING);
+                log.info("Transfer pending validation from account: {} to account: {} amount: {}",
+                        sourceAccountId, beneficiaryAccountId, amount);
+            }
+
+            return saveAndPost(transaction);
+        }));
     }
 
-    @Transactional
-    public Transaction createTransfer(Long sourceAccountId, Long beneficiaryAccountId, BigDecimal amount) {
-        Account sourceAccount = accountRepository.findById(sourceAccountId)
-                .orElseThrow(() -> new IllegalArgumentException("Source account not found"));
+    /**
+     * Approves a pending transaction in its own database transaction, retried on deadlocks and serialization
+     * failures. The transaction row is locked first, then the accounts it debits or credits in ascending id order.
+     */
+    public Transaction approveTransaction(Long transactionId) {
+        return transactionMetrics.record("approve", null, () -> approve(transactionId));
+    }
 
-        Account beneficiaryAccount = accountRepository.findById(beneficiaryAccountId)
-                .orElseThrow(() -> new IllegalArgumentException("Beneficiary account not found"));
+    private Transaction approve(Long transactionId) {
+        // Read once without locks to learn which accounts to serialize on; the status is re-checked under lock
+        Transaction pending = transactionRepository.findById(transactionId)
+                .orElseThrow(() -> new IllegalArgumentException("Transaction not found"));
 
-        // Check sufficient balance
-        if (sourceAccount.getBalance().compareTo(amount) < 0) {
-            throw new IllegalArgumentException("Insufficient balance");
+        if (pending.getStatus() != TransactionStatus.PENDING) {
+            throw new IllegalArgumentException("Transaction is not pending");
         }
 
-        Transaction transaction = Transaction.builder()
-                .account(sourceAccount)
-                .type("TRANSFER")
-                .amount(amount)
-                .beneficiaryAccountId(beneficiaryAccountId)
-                .build();
+        List<Long> accountIds = pending.getBeneficiaryAccountId() == null
+                ? List.of(pending.getAccount().getId())
+                : List.of(pending.getAccount().getId(), pending.getBeneficiaryAccountId());
+
+        return accountLockManager.withLocks(accountIds, () -> transactionRetryExecutor.execute(() -> {
+            Transaction transaction = transactionRepository.findByIdForUpdate(transactionId)
+                    .orElseThrow(() -> new IllegalArgumentException("Transaction not found"));
+
+            if (transaction.getStatus() != TransactionStatus.PENDING) {
+                throw new IllegalArgumentException("Transaction is not pending");
+            }
+
+            transaction.setStatus(TransactionStatus.APPROVED);
+
+            Long accountId = transaction.getAccount().getId();
+            BigDecimal amount = transaction.getAmount();
+
+            // Execute the transaction based on type
+            if ("WITHDRAWAL".equals(transaction.getType())) {
+                requireBalance(lockAccountsInOrder(accountId).get(accountId), amount);
+            } else if ("TRANSFER".equals(transaction.getType())) {
+                requireBalance(lockAccountsInOrder(accountId, transaction.getBeneficiaryAccountId()).get(accountId), amount);
+            }
 
-        // Auto-approve if amount <= 10,000 DH
-        if (amount.compareTo(VALIDATION_THRESHOLD) <= 0) {
             transaction.setStatus(TransactionStatus.COMPLETED);
-            accountService.updateBalance(sourceAccountId, amount.negate());
-            accountService.updateBalance(beneficiaryAccountId, amount);
-            log.info("Transfer auto-approved from account: {} to account: {} amount: {}",
-                    sourceAccountId, beneficiaryAccountId, amount);
-        } else {
-            transaction.setStatus(TransactionStatus.PENDING);
-            log.info("Transfer pending validation from account: {} to account: {} amount: {}",
-                    sourceAccountId, beneficiaryAccountId, amount);
-        }
+            log.info("Transaction approved and completed: {}", transactionId);
+            return saveAndPost(transaction);
+        }));
+    }
 
-        return transactionRepository.save(transaction);
+    public Transaction rejectTransaction(Long transactionId) {
+        return transactionMetrics.record("reject", null, () -> reject(transactionId));
     }
 
-    @Transactional
-    public Transaction approveTransaction(Long transactionId) {
-        Transaction transaction = transactionRepository.findById(transactionId)
-                .orElseThrow(() -> new IllegalArgumentException("Transaction not found"));
+    private Transaction reject(Long transactionId) {
+        return transactionRetryExecutor.execute(() -> {
+            Transaction transaction = transactionRepository.findByIdForUpdate(transactionId)
+                    .orElseThrow(() -> new IllegalArgumentException("Transaction not found"));
 
-        if (transaction.getStatus() != TransactionStatus.PENDING) {
-            throw new IllegalArgumentException("Transaction is not pending");
+            if (transaction.getStatus() != TransactionStatus.PENDING) {
+                throw new IllegalArgumentException("Transaction is not pending");
+            }
+
+            transaction.setStatus(TransactionStatus.REJECTED);
+            log.info("Transaction rejected: {}", transactionId);
+            return transactionRepository.save(transaction);
+        });
+    }
+
+    /**
+     * Creates many transactions for one account in a single database transaction.
+     * <p>
+     * Items are validated in one pass, every referenced account is locked and read with one query, and the ledger
+     * posts the net balance change per account as one JDBC batch. A bad item (invalid input, unknown beneficiary,
+     * insufficient balance at its position in the batch, an idempotency key the account already used) fails on its
+     * own and the other items still go through.
+     *
+     * @return one outcome per item, in submission order
+     */
+    public List<BatchItemOutcome> createBatch(Long accountId, List<TransactionRequest> items) {
+        return transactionMetrics.recordBatch(() -> batch(accountId, items));
+    }
+
+    private List<BatchItemOutcome> batch(Long accountId, List<TransactionRequest> items) {
+        if (items.size() > batchMaxSize) {
+            throw new IllegalArgumentException("Batch exceeds the maximum of " + batchMaxSize + " transactions");
+        }
+
+        BatchItemOutcome[] outcomes = new BatchItemOutcome[items.size()];
+        Set<Long> accountIds = new TreeSet<>();
+        accountIds.add(accountId);
+
+        for (int i = 0; i < items.size(); i++) {
+            String error = validateBatchItem(accountId, items.get(i));
+            if (error != null) {
+                outcomes[i] = BatchItemOutcome.failed(i, error);
+            } else if ("TRANSFER".equals(items.get(i).getType())) {
+                accountIds.add(items.get(i).getBeneficiaryAccountId());
+            }
         }
 
-        transaction.setStatus(TransactionStatus.APPROVED);
+        return accountLockManager.withLocks(accountIds, () -> transactionRetryExecutor.execute(() -> {
+            Map<Long, BigDecimal> balances = new HashMap<>();
+            accountRepository.lockBalancesByIdIn(accountIds)
+                    .forEach(locked -> balances.put(locked.id(), locked.balance()));
+
+            if (!balances.containsKey(accountId)) {
+                throw new IllegalArgumentException("Account not found");
+            }
+
+            // Keys already booked on the account, plus the ones claimed by earlier items of this batch
+            Set<String> idempotencyKeys = new HashSet<>();
+            List<String> requestedKeys = new ArrayList<>();
+            for (int i = 0; i < items.size(); i++) {
+                if (outcomes[i] == null && items.get(i).getIdempotencyKey() != null) {
+                    requestedKeys.add(items.get(i).getIdempotencyKey());
+                }
+            }
+            if (!requestedKeys.isEmpty()) {
+                idempotencyKeys.addAll(transactionRepository.findIdempotencyKeysIn(accountId, requestedKeys));
+            }
+
+            Account account = accountRepository.getReferenceById(accountId);
+            List<Transaction> transactions = new ArrayList<>();
+            List<Integer> transactionIndexes = new ArrayList<>();
+            BatchItemOutcome[] attempt = outcomes.clone();
+
+            for (int i = 0; i < items.size(); i++) {
+                if (attempt[i] != null) {
+                    continue;
+                }
+
+                TransactionRequest item = items.get(i);
+                String type = item.getType();
+                BigDecimal amount = item.getAmount();
+                Long beneficiaryAccountId = item.getBeneficiaryAccountId();
+
+                if (item.getIdempotencyKey() != null && !idempotencyKeys.add(item.getIdempotencyKey())) {
+                    attempt[i] = BatchItemOutcome.failed(i, "Duplicate idempotency key");
+                    continue;
+                }
+
+                if ("TRANSFER".equals(type) && !balances.containsKey(beneficiaryAccountId)) {
+                    attempt[i] = BatchItemOutcome.failed(i, "Beneficiary account not found");
+                    continue;
+                }
+
+                // Checked against the balance left by the items before this one
+                if (!"DEPOSIT".equals(type) && balances.get(accountId).compareTo(amount) < 0) {
+                    attempt[i] = BatchItemOutcome.failed(i, "Insufficient balance");
+                    continue;
+                }
+
+                Transaction transaction = Transaction.builder()
+                        .account(account)
+                        .type(type)
+                        .amount(amount)
+                        .beneficiaryAccountId("TRANSFER".equals(type) ? beneficiaryAccountId : null)
+                        .idempotencyKey(item.getIdempotencyKey())
+                        .build();
+
+                // Auto-approve if amount <= 10,000 DH
+                if (amount.compareTo(VALIDATION_THRESHOLD) <= 0) {
+                    transaction.setStatus(TransactionStatus.COMPLETED);
+                    balances.merge(accountId, "DEPOSIT".equals(type) ? amount : amount.negate(), BigDecimal::add);
+                    if ("TRANSFER".equals(type)) {
+                        balances.merge(beneficiaryAccountId, amount, BigDecimal::add);
+                    }
+                } else {
+                    transaction.setStatus(TransactionStatus.PENDING);
+                }
+
+                transactions.add(transaction);
+                transactionIndexes.add(i);
+            }
+
+            List<Transaction> saved = transactionRepository.saveAll(transactions);
+            ledgerService.postAll(saved.stream()
+                    .filter(transaction -> transaction.getStatus() == TransactionStatus.COMPLETED)
+                    .collect(Collectors.toList()));
+            for (int k = 0; k < saved.size(); k++) {
+                attempt[transactionIndexes.get(k)] = BatchItemOutcome.succeeded(transactionIndexes.get(k), saved.get(k));
+            }
+
+            log.info("Batch of {} transactions processed for account: {} ({} accepted)",
+                    items.size(), accountId, saved.size());
+            return List.of(attempt);
+        }));
+    }
+
+    private String validateBatchItem(Long accountId, TransactionRequest item) {
+        if (item == null) {
+            return "Transaction is required";
+        }
+        if (item.getAmount() == null) {
+            return "Amount is required";
+        }
+        if (item.getAmount().compareTo(MINIMUM_AMOUNT) < 0) {
+            return "Amount must be greater than 0";
+        }
+        if (item.getType() == null || !BATCH_TYPES.contains(item.getType())) {
+            return "Type must be one of DEPOSIT, WITHDRAWAL or TRANSFER";
+        }
+        if ("TRANSFER".equals(item.getType())) {
+            if (item.getBeneficiaryAccountId() == null) {
+                return "Beneficiary account ID is required";
+            }
+            if (item.getBeneficiaryAccountId().equals(accountId)) {
+                return "Cannot transfer to the same account";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Result of one batch item: either the saved transaction or the reason it was refused.
+     */
+    public record BatchItemOutcome(int index, Transaction transaction, String error) {
+
+        static BatchItemOutcome succeeded(int index, Transaction transaction) {
+            return new BatchItemOutcome(index, transaction, null);
+        }
 
-        // Execute the transaction based on type
-        if ("DEPOSIT".equals(transaction.getType())) {
-            accountService.updateBalance(transaction.getAccount().getId(), transaction.getAmount());
-        } else if ("WITHDRAWAL".equals(transaction.getType())) {
-            accountService.updateBalance(transaction.getAccount().getId(), transaction.getAmount().negate());
-        } else if ("TRANSFER".equals(transaction.getType())) {
-            accountService.updateBalance(transaction.getAccount().getId(), transaction.getAmount().negate());
-            accountService.updateBalance(transaction.getBeneficiaryAccountId(), transaction.getAmount());
+        static BatchItemOutcome failed(int index, String error) {
+            return new BatchItemOutcome(index, null, error);
         }
 
-        transaction.setStatus(TransactionStatus.COMPLETED);
-        log.info("Transaction approved and completed: {}", transactionId);
-        return transactionRepository.save(transaction);
+        public boolean isSuccess() {
+            return transaction != null;
+        }
     }
 
-    @Transactional
-    public Transaction rejectTransaction(Long transactionId) {
-        Transaction transaction = transactionRepository.findById(transactionId)
-                .orElseThrow(() -> new IllegalArgumentException("Transaction not found"));
+    /**
+     * One page of transaction history and the cursor for the next one, or {@code null} on the last page.
+     */
+    public record CursorPage(List<Transaction> transactions, String nextCursor) {
 
-        if (transaction.getStatus() != TransactionStatus.PENDING) {
-            throw new IllegalArgumentException("Transaction is not pending");
+        public boolean hasMore() {
+            return nextCursor != null;
         }
+    }
 
-        transaction.setStatus(TransactionStatus.REJECTED);
-        log.info("Transaction rejected: {}", transactionId);
-        return transactionRepository.save(transaction);
+    /**
+     * Saves the transaction and, once it is COMPLETED, posts it to the ledger in the same database transaction.
+     */
+    private Transaction saveAndPost(Transaction transaction) {
+        Transaction saved = transactionRepository.save(transaction);
+        if (saved.getStatus() == TransactionStatus.COMPLETED) {
+            ledgerService.post(saved);
+        }
+        return saved;
+    }
+
+    /**
+     * Takes {@code SELECT ... FOR UPDATE} locks on the given accounts in ascending id order and returns their
+     * balances as read under the lock. Every code path that locks more than one account goes through here, which
+     * rules out lock-order deadlocks between them.
+     */
+    private Map<Long, BigDecimal> lockAccountsInOrder(Long... accountIds) {
+        Map<Long, BigDecimal> lockedBalances = new HashMap<>();
+        Arrays.stream(accountIds)
+                .distinct()
+                .sorted()
+                .forEach(id -> accountRepository.lockBalanceById(id).ifPresent(balance -> lockedBalances.put(id, balance)));
+        return lockedBalances;
+    }
+
+    private void requireBalance(BigDecimal balance, BigDecimal amount) {
+        if (balance == null) {
+            throw new IllegalArgumentException("Account not found");
+        }
+        if (balance.compareTo(amount) < 0) {
+            throw new IllegalArgumentException("Insufficient balance");
+        }
     }
 
     public Optional<Transaction> getTransactionById(Long transactionId) {
@@ -168,6 +480,35 @@ public class TransactionService {
         return transactionRepository.findByAccountId(accountId, pageable);
     }
 
+    /**
+     * Returns one page of an account's history, newest first, starting after {@code cursor} (or from the newest
+     * transaction when it is null). Pages seek on the {@code (account_id, created_at, id)} index instead of using
+     * OFFSET, so every page costs the same however deep it is.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public CursorPage getAccountTransactionsAfter(Long accountId, String cursor, int size) {
+        int limit = Math.min(Math.max(size, 1), MAX_CURSOR_PAGE_SIZE);
+        // One extra row tells whether another page exists without counting
+        Pageable window = PageRequest.of(0, limit + 1);
+
+        List<Transaction> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = transactionRepository.findLatestByAccountId(accountId, window);
+        } else {
+            TransactionCursor position = TransactionCursor.decode(cursor);
+            rows = transactionRepository.findByAccountIdBefore(accountId, position.createdAt(), position.id(), window);
+        }
+
+        if (rows.size() <= limit) {
+            return new CursorPage(rows, null);
+        }
+
+        List<Transaction> page = rows.subList(0, limit);
+        Transaction last = page.get(limit - 1);
+        return new CursorPage(page, new TransactionCursor(last.getCreatedAt(), last.getId()).encode());
+    }
+
     public List<Transaction> getPendingTransactions() {
         return transactionRepository.findByStatus(TransactionStatus.PENDING);
     }
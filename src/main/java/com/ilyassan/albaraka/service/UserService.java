@@ -3,6 +3,7 @@ package com.ilyassan.albaraka.service;
 import com.ilyassan.albaraka.entity.User;
 import com.ilyassan.albaraka.entity.UserRole;
 import com.ilyassan.albaraka.repository.UserRepository;
+import com.ilyassan.albaraka.security.PrincipalCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -25,6 +26,15 @@ public class UserService {
     @Autowired
     private AccountService accountService;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     @Transactional
     public User createUser(String email, String password, String firstName, String lastName, UserRole role) {
         if (userRepository.existsByEmail(email)) {
@@ -76,6 +86,7 @@ public class UserService {
 
         user.setFirstName(firstName);
         user.setLastName(lastName);
+        principalCache.invalidate(user.getEmail());
 
         log.info("User updated: {}", id);
         return userRepository.save(user);
@@ -88,6 +99,9 @@ public class UserService {
 
         user.setEnabled(false);
         userRepository.save(user);
+        principalCache.invalidate(user.getEmail());
+        refreshTokenService.revokeAllForUser(id);
+        tokenRevocationService.revokeUser(id);
         log.info("User deactivated: {}", id);
     }
 }
@@ -0,0 +1,54 @@
+package com.ilyassan.albaraka.config;
+
+import com.ilyassan.albaraka.repository.ReconciliationRunRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class IdSequenceAlignmentTest {
+
+    private static final long LEGACY_ID = 500_000;
+
+    @Autowired
+    private IdSequenceAlignment idSequenceAlignment;
+
+    @Autowired
+    private ReconciliationRunRepository reconciliationRunRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        reconciliationRunRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void testSequenceBehindExistingIdsIsMovedPastThem() {
+        // A row written by the old IDENTITY column, far above where the sequence starts
+        jdbcTemplate.update("INSERT INTO reconciliation_runs (id, status, total_ranges, completed_ranges, "
+                + "accounts_checked, discrepancies, started_at) VALUES (?, 'COMPLETED', 0, 0, 0, 0, ?)",
+                LEGACY_ID, LocalDateTime.now());
+
+        idSequenceAlignment.align();
+        long aligned = nextValue();
+        assertTrue(aligned > LEGACY_ID, "Sequence still behind: " + aligned);
+
+        // Once ahead, the sequence is not moved again
+        idSequenceAlignment.align();
+        assertTrue(nextValue() > aligned);
+    }
+
+    private long nextValue() {
+        return jdbcTemplate.queryForObject("VALUES NEXT VALUE FOR reconciliation_runs_seq", Long.class);
+    }
+}
@@ -1,9 +1,14 @@
 package com.ilyassan.albaraka.controller;
 
+import com.ilyassan.albaraka.config.LedgerOpeningBalanceMigration;
 import com.ilyassan.albaraka.entity.Account;
+import com.ilyassan.albaraka.entity.Transaction;
+import com.ilyassan.albaraka.entity.TransactionStatus;
 import com.ilyassan.albaraka.entity.User;
 import com.ilyassan.albaraka.entity.UserRole;
 import com.ilyassan.albaraka.repository.AccountRepository;
+import com.ilyassan.albaraka.repository.LedgerEntryRepository;
+import com.ilyassan.albaraka.repository.TransactionRepository;
 import com.ilyassan.albaraka.repository.UserRepository;
 import com.ilyassan.albaraka.security.JwtTokenProvider;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,13 +16,16 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -35,6 +43,18 @@ class AccountControllerTest {
     @Autowired
     private AccountRepository accountRepository;
 
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerOpeningBalanceMigration ledgerOpeningBalanceMigration;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -43,6 +63,8 @@ class AccountControllerTest {
 
     @BeforeEach
     void setUp() {
+        ledgerEntryRepository.deleteAllInBatch();
+        transactionRepository.deleteAll();
         accountRepository.deleteAll();
         userRepository.deleteAll();
 
@@ -110,4 +132,51 @@ class AccountControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.balance").value(5000));
     }
+
+    @Test
+    @WithMockUser(username = "client@example.com", roles = "CLIENT")
+    void testGetBalanceAtPointInTime() throws Exception {
+        // An account opened in 2024 whose balance and transactions predate the ledger: 3000 carried over at
+        // opening, a 3000 deposit in June 2024 and a 1000 withdrawal in March 2025
+        jdbcTemplate.update("UPDATE accounts SET created_at = ? WHERE id = ?",
+                LocalDateTime.of(2024, 1, 1, 0, 0), testAccount.getId());
+        preLedgerTransaction("DEPOSIT", "3000", TransactionStatus.COMPLETED, LocalDateTime.of(2024, 6, 1, 10, 0));
+        preLedgerTransaction("WITHDRAWAL", "1000", TransactionStatus.COMPLETED, LocalDateTime.of(2025, 3, 1, 10, 0));
+        preLedgerTransaction("DEPOSIT", "20000", TransactionStatus.PENDING, LocalDateTime.of(2025, 4, 1, 10, 0));
+        ledgerOpeningBalanceMigration.migrate();
+
+        assertBalanceAt("2023-06-01T00:00:00", 0);
+        assertBalanceAt("2024-03-01T00:00:00", 3000);
+        assertBalanceAt("2024-07-01T00:00:00", 6000);
+        assertBalanceAt("2025-06-01T00:00:00", 5000);
+
+        // Running the migration again finds nothing left to open
+        assertEquals(0, ledgerOpeningBalanceMigration.migrate());
+    }
+
+    private void preLedgerTransaction(String type, String amount, TransactionStatus status, LocalDateTime at) {
+        Transaction transaction = transactionRepository.save(Transaction.builder()
+                .account(testAccount)
+                .type(type)
+                .amount(new BigDecimal(amount))
+                .status(status)
+                .build());
+        jdbcTemplate.update("UPDATE transactions SET created_at = ?, updated_at = ? WHERE id = ?",
+                at, at, transaction.getId());
+    }
+
+    private void assertBalanceAt(String at, int balance) throws Exception {
+        mockMvc.perform(get("/api/accounts/me/balance").param("at", at))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(balance))
+                .andExpect(jsonPath("$.at").exists());
+    }
+
+    @Test
+    @WithMockUser(username = "admin@example.com", roles = "ADMIN")
+    void testGetBalanceAtForUnknownAccount() throws Exception {
+        mockMvc.perform(get("/api/accounts/" + (testAccount.getId() + 1000) + "/balance")
+                        .param("at", "2025-01-01T00:00:00"))
+                .andExpect(status().isNotFound());
+    }
 }
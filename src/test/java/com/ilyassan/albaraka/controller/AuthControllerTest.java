@@ -1,23 +1,39 @@
 package com.ilyassan.albaraka.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ilyassan.albaraka.dto.LoginRequest;
+import com.ilyassan.albaraka.dto.RefreshTokenRequest;
+import com.ilyassan.albaraka.entity.Account;
 import com.ilyassan.albaraka.entity.User;
 import com.ilyassan.albaraka.entity.UserRole;
 import com.ilyassan.albaraka.repository.AccountRepository;
 import com.ilyassan.albaraka.repository.UserRepository;
 import com.ilyassan.albaraka.security.JwtTokenProvider;
+import com.ilyassan.albaraka.security.PrincipalCache;
+import com.ilyassan.albaraka.security.VerifiedTokenCache;
+import com.ilyassan.albaraka.service.TokenRevocationService;
+import com.ilyassan.albaraka.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
 
+import java.math.BigDecimal;
 import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -41,6 +57,18 @@ class AuthControllerTest {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     private User testUser;
     private LoginRequest validLoginRequest;
 
@@ -68,15 +96,36 @@ class AuthControllerTest {
 
     @Test
     void testLoginSuccess() throws Exception {
-        mockMvc.perform(post("/api/auth/login")
-                .contentType("application/json")
-                .content(objectMapper.writeValueAsString(validLoginRequest)))
+        login(validLoginRequest)
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.email").value("test@example.com"))
                 .andExpect(jsonPath("$.firstName").value("John"))
                 .andExpect(jsonPath("$.token").exists());
     }
 
+    @Test
+    void testLoginTokenIdentifiesAccountWithoutLookup() throws Exception {
+        Account account = accountRepository.save(Account.builder()
+                .accountNumber("ALBARAKA20251217163045AUTH0001")
+                .user(testUser)
+                .balance(new BigDecimal("125.50"))
+                .build());
+
+        String response = login(validLoginRequest)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String token = objectMapper.readTree(response).get("token").asText();
+
+        VerifiedTokenCache.VerifiedToken verified = tokenProvider.verify(token);
+        assertEquals(testUser.getId(), verified.userId());
+        assertEquals(UserRole.CLIENT, verified.role());
+        assertEquals(account.getId(), verified.accountId());
+
+        mockMvc.perform(get("/api/accounts/me/balance").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(125.5));
+    }
+
     @Test
     void testLoginWithInvalidPassword() throws Exception {
         LoginRequest invalidRequest = LoginRequest.builder()
@@ -84,9 +133,7 @@ class AuthControllerTest {
                 .password("wrongpassword")
                 .build();
 
-        mockMvc.perform(post("/api/auth/login")
-                .contentType("application/json")
-                .content(objectMapper.writeValueAsString(invalidRequest)))
+        login(invalidRequest)
                 .andExpect(status().isUnauthorized());
     }
 
@@ -97,9 +144,7 @@ class AuthControllerTest {
                 .password("password123")
                 .build();
 
-        mockMvc.perform(post("/api/auth/login")
-                .contentType("application/json")
-                .content(objectMapper.writeValueAsString(invalidRequest)))
+        login(invalidRequest)
                 .andExpect(status().isUnauthorized());
     }
 
@@ -115,4 +160,123 @@ class AuthControllerTest {
                 .content(objectMapper.writeValueAsString(invalidRequest)))
                 .andExpect(status().isBadRequest());
     }
+
+    @Test
+    void testTokenAuthenticationUsesPrincipalCacheAndStopsAfterDeactivation() throws Exception {
+        User tokenUser = userRepository.save(User.builder()
+                .email("token-user@example.com")
+                .password(passwordEncoder.encode("password123"))
+                .firstName("Jane")
+                .lastName("Doe")
+                .role(UserRole.CLIENT)
+                .enabled(true)
+                .build());
+        String token = tokenProvider.generateTokenFromEmail(tokenUser.getEmail());
+        long hitsBefore = principalCache.getStats().getHits();
+
+        // Authenticated, but this user has no account
+        mockMvc.perform(get("/api/accounts/me").header("Authorization", "Bearer " + token))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/accounts/me").header("Authorization", "Bearer " + token))
+                .andExpect(status().isNotFound());
+        assertTrue(principalCache.getStats().getHits() > hitsBefore);
+
+        userService.deactivateUser(tokenUser.getId());
+
+        mockMvc.perform(get("/api/accounts/me").header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void testLoginRehashesPasswordStoredWithLowerCost() throws Exception {
+        testUser.setPassword(new BCryptPasswordEncoder(4).encode("password123"));
+        userRepository.save(testUser);
+
+        login(validLoginRequest).andExpect(status().isOk());
+
+        String stored = userRepository.findByEmail("test@example.com").orElseThrow().getPassword();
+        assertTrue(stored.startsWith("$2a$05$"), stored);
+        assertTrue(passwordEncoder.matches("password123", stored));
+        login(validLoginRequest).andExpect(status().isOk());
+    }
+
+    @Test
+    void testRefreshRotatesTokenAndRevokesFamilyOnReuse() throws Exception {
+        JsonNode login = objectMapper.readTree(login(validLoginRequest)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.expiresIn").value(900))
+                .andReturn().getResponse().getContentAsString());
+        String firstRefresh = login.get("refreshToken").asText();
+
+        JsonNode refreshed = objectMapper.readTree(refresh(firstRefresh)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value("test@example.com"))
+                .andReturn().getResponse().getContentAsString());
+        String secondRefresh = refreshed.get("refreshToken").asText();
+        assertNotEquals(firstRefresh, secondRefresh);
+        mockMvc.perform(get("/api/accounts/me").header("Authorization", "Bearer " + refreshed.get("token").asText()))
+                .andExpect(status().isNotFound());
+
+        // Replaying the consumed token revokes its successor too
+        refresh(firstRefresh).andExpect(status().isUnauthorized());
+        refresh(secondRefresh).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void testLogoutRevokesAccessAndRefreshTokens() throws Exception {
+        JsonNode login = objectMapper.readTree(login(validLoginRequest)
+                .andReturn().getResponse().getContentAsString());
+        String token = login.get("token").asText();
+        String refreshToken = login.get("refreshToken").asText();
+
+        mockMvc.perform(get("/api/accounts/me").header("Authorization", "Bearer " + token))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(post("/api/auth/logout")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(new RefreshTokenRequest(refreshToken))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/accounts/me").header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+        refresh(refreshToken).andExpect(status().isUnauthorized());
+
+        // Rebuilt from the revocation table, the filter still rejects the token
+        tokenRevocationService.rebuild();
+        mockMvc.perform(get("/api/accounts/me").header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void testDeactivationRevokesTokensIssuedBefore() throws Exception {
+        JsonNode login = objectMapper.readTree(login(validLoginRequest)
+                .andReturn().getResponse().getContentAsString());
+        String token = login.get("token").asText();
+
+        userService.deactivateUser(testUser.getId());
+        User reactivated = userRepository.findById(testUser.getId()).orElseThrow();
+        reactivated.setEnabled(true);
+        userRepository.save(reactivated);
+        principalCache.invalidate(reactivated.getEmail());
+
+        mockMvc.perform(get("/api/accounts/me").header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+        refresh(login.get("refreshToken").asText()).andExpect(status().isUnauthorized());
+    }
+
+    private ResultActions refresh(String refreshToken) throws Exception {
+        return mockMvc.perform(post("/api/auth/refresh")
+                .contentType("application/json")
+                .content(objectMapper.writeValueAsString(new RefreshTokenRequest(refreshToken))));
+    }
+
+    private ResultActions login(LoginRequest request) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/auth/login")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
 }
@@ -0,0 +1,420 @@
+package com.ilyassan.albaraka.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ilyassan.albaraka.dto.BatchTransactionRequest;
+import com.ilyassan.albaraka.dto.TransactionRequest;
+import com.ilyassan.albaraka.entity.Account;
+import com.ilyassan.albaraka.entity.Transaction;
+import com.ilyassan.albaraka.service.Camt053StatementService;
+import com.ilyassan.albaraka.service.PendingTransactionCounter;
+import com.ilyassan.albaraka.service.TransactionService;
+import com.ilyassan.albaraka.support.ConcurrencyTestSupport;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+class TransactionControllerTest extends ConcurrencyTestSupport {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PendingTransactionCounter pendingTransactionCounter;
+
+    private Account testAccount;
+    private Account beneficiaryAccount;
+
+    @BeforeEach
+    void setUp() {
+        testAccount = createAccount("client@example.com", "ALBARAKA202512171630459a7b8c9d", new BigDecimal("1000"));
+        beneficiaryAccount = createAccount("beneficiary@example.com", "ALBARAKA202512171630459a7b8c9e", BigDecimal.ZERO);
+    }
+
+    @Test
+    @WithMockUser(username = "client@example.com", roles = "CLIENT")
+    void testCreateBatch() throws Exception {
+        BatchTransactionRequest request = BatchTransactionRequest.builder()
+                .items(List.of(
+                        TransactionRequest.builder().type("DEPOSIT").amount(new BigDecimal("250")).build(),
+                        TransactionRequest.builder().type("TRANSFER").amount(new BigDecimal("1000"))
+                                .beneficiaryAccountId(beneficiaryAccount.getId()).build(),
+                        TransactionRequest.builder().type("WITHDRAWAL").amount(new BigDecimal("500")).build(),
+                        TransactionRequest.builder().type("WITHDRAWAL").build()))
+                .build();
+
+        mockMvc.perform(post("/api/transactions/batch")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(4))
+                .andExpect(jsonPath("$.succeeded").value(2))
+                .andExpect(jsonPath("$.results[0].transaction.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.results[1].transaction.beneficiaryAccountId").value(beneficiaryAccount.getId()))
+                .andExpect(jsonPath("$.results[2].error").value("Insufficient balance"))
+                .andExpect(jsonPath("$.results[3].error").value("Amount is required"));
+
+        assertEquals(0, new BigDecimal("250").compareTo(accountRepository.findById(testAccount.getId()).orElseThrow().getBalance()));
+        assertEquals(0, new BigDecimal("1000").compareTo(accountRepository.findById(beneficiaryAccount.getId()).orElseThrow().getBalance()));
+        assertEquals(2, transactionRepository.count());
+    }
+
+    @Test
+    @WithMockUser(username = "client@example.com", roles = "CLIENT")
+    void testCreateBatchEmpty() throws Exception {
+        mockMvc.perform(post("/api/transactions/batch")
+                        .contentType("application/json")
+                        .content("{\"items\":[]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "client@example.com", roles = "CLIENT")
+    void testRetriedDepositWithIdempotencyKeyIsReplayed() throws Exception {
+        String body = objectMapper.writeValueAsString(TransactionRequest.builder().amount(new BigDecimal("300")).build());
+
+        String first = mockMvc.perform(post("/api/transactions/deposit")
+                        .header("Idempotency-Key", "deposit-retry-1")
+                        .contentType("application/json")
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "false"))
+                .andReturn().getResponse().getContentAsString();
+
+        String retried = mockMvc.perform(post("/api/transactions/deposit")
+                        .header("Idempotency-Key", "deposit-retry-1")
+                        .contentType("application/json")
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals(objectMapper.readTree(first).get("id"), objectMapper.readTree(retried).get("id"));
+        assertEquals(1, transactionRepository.count());
+        assertEquals(0, new BigDecimal("1300").compareTo(accountRepository.findById(testAccount.getId()).orElseThrow().getBalance()));
+    }
+
+    @Test
+    @WithMockUser(username = "client@example.com", roles = "CLIENT")
+    void testIdempotencyKeyReusedForDifferentRequest() throws Exception {
+        mockMvc.perform(post("/api/transactions/withdrawal")
+                        .header("Idempotency-Key", "withdrawal-1")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(TransactionRequest.builder().amount(new BigDecimal("100")).build())))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(post("/api/transactions/withdrawal")
+                        .header("Idempotency-Key", "withdrawal-1")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(TransactionRequest.builder().amount(new BigDecimal("200")).build())))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Idempotency-Key was already used for a different request"));
+
+        assertEquals(1, transactionRepository.count());
+    }
+
+    @Test
+    @WithMockUser(username = "client@example.com", roles = "CLIENT")
+    void testCursorPagesCoverHistoryWithoutOverlap() throws Exception {
+        for (int i = 1; i <= 5; i++) {
+            transactionService.createDeposit(testAccount.getId(), new BigDecimal(i));
+        }
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            MockHttpServletRequestBuilder request = get("/api/transactions/me/cursor").param("size", "2");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            JsonNode page = objectMapper.readTree(mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            page.get("items").forEach(item -> seen.add(item.get("id").asLong()));
+            cursor = page.get("hasMore").asBoolean() ? page.get("nextCursor").asText() : null;
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(5, seen.size());
+        assertEquals(5, new HashSet<>(seen).size());
+        // Newest first
+        assertEquals(transactionRepository.findAll().stream().map(Transaction::getId).max(Long::compare).orElseThrow(), seen.get(0));
+    }
+
+    @Test
+    @WithMockUser(username = "client@example.com", roles = "CLIENT")
+    void testCursorRejectsMalformedToken() throws Exception {
+        mockMvc.perform(get("/api/transactions/me/cursor").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Invalid cursor"));
+    }
+
+    @Test
+    @WithMockUser(username = "beneficiary@example.com", roles = "CLIENT")
+    void testExportStatementAsCsv() throws Exception {
+        transactionService.createDeposit(beneficiaryAccount.getId(), new BigDecimal("200"));
+        transactionService.createTransfer(testAccount.getId(), beneficiaryAccount.getId(), new BigDecimal("150.50"));
+        transactionService.createWithdrawal(beneficiaryAccount.getId(), new BigDecimal("20"));
+        // Pending deposits have not moved money yet and stay out of the statement
+        transactionService.createDeposit(beneficiaryAccount.getId(), new BigDecimal("20000"));
+
+        MvcResult started = mockMvc.perform(get("/api/transactions/me/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String[] lines = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+                .andReturn().getResponse().getContentAsString().split("\n");
+
+        assertEquals(4, lines.length);
+        assertEquals("transactionId,createdAt,type,direction,amount,counterpartyAccountId", lines[0]);
+        assertTrue(lines[1].endsWith(",DEPOSIT,CREDIT,200.00,"));
+        assertTrue(lines[2].endsWith(",TRANSFER,CREDIT,150.50," + testAccount.getId()));
+        assertTrue(lines[3].endsWith(",WITHDRAWAL,DEBIT,20.00,"));
+    }
+
+    @Test
+    @WithMockUser(username = "client@example.com", roles = "CLIENT")
+    void testExportStatementAsGzippedNdjsonWithDateRange() throws Exception {
+        transactionService.createTransfer(testAccount.getId(), beneficiaryAccount.getId(), new BigDecimal("100"));
+        LocalDateTime cutoff = LocalDateTime.now();
+        Thread.sleep(5);
+        transactionService.createDeposit(testAccount.getId(), new BigDecimal("40"));
+
+        MvcResult started = mockMvc.perform(get("/api/transactions/me/export")
+                        .param("format", "ndjson")
+                        .param("from", cutoff.toString())
+                        .header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        String ndjson;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            ndjson = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        String[] lines = ndjson.split("\n");
+        assertEquals(1, lines.length);
+        JsonNode line = objectMapper.readTree(lines[0]);
+        assertEquals("DEPOSIT", line.get("type").asText());
+        assertEquals("CREDIT", line.get("direction").asText());
+        assertEquals(0, new BigDecimal("40").compareTo(line.get("amount").decimalValue()));
+    }
+
+    @Test
+    @WithMockUser(username = "client@example.com", roles = "CLIENT")
+    void testExportStatementDatesApprovedTransactionsWhenPosted() throws Exception {
+        Transaction deposit = transactionService.createDeposit(testAccount.getId(), new BigDecimal("20000"));
+        LocalDateTime cutoff = LocalDateTime.now();
+        Thread.sleep(5);
+        transactionService.approveTransaction(deposit.getId());
+
+        assertEquals(1, exportCsv(null, cutoff).length);
+        String[] lines = exportCsv(cutoff, null);
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].startsWith(deposit.getId() + ","));
+        assertTrue(LocalDateTime.parse(lines[1].split(",")[1]).isAfter(cutoff));
+    }
+
+    private String[] exportCsv(LocalDateTime from, LocalDateTime to) throws Exception {
+        MockHttpServletRequestBuilder export = get("/api/transactions/me/export").param("format", "csv");
+        if (from != null) {
+            export.param("from", from.toString());
+        }
+        if (to != null) {
+            export.param("to", to.toString());
+        }
+        MvcResult started = mockMvc.perform(export)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().split("\n");
+    }
+
+    @Test
+    @WithMockUser(username = "client@example.com", roles = "CLIENT")
+    void testExportStatementRejectsInvalidRange() throws Exception {
+        mockMvc.perform(get("/api/transactions/me/export")
+                        .param("from", "2025-12-31T00:00:00")
+                        .param("to", "2025-01-01T00:00:00"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/transactions/me/export").param("format", "xml"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Unsupported format: xml"));
+    }
+
+    @Test
+    @WithMockUser(username = "client@example.com", roles = "CLIENT")
+    void testGetCamt053Statement() throws Exception {
+        transactionService.createTransfer(testAccount.getId(), beneficiaryAccount.getId(), new BigDecimal("100"));
+
+        MvcResult started = mockMvc.perform(get("/api/transactions/me/statement/camt053")
+                        .param("from", LocalDateTime.now().minusDays(1).toString())
+                        .param("to", LocalDateTime.now().plusDays(1).toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String xml = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/xml;charset=UTF-8"))
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(xml.contains("<Document xmlns=\"" + Camt053StatementService.NAMESPACE + "\">"));
+        assertTrue(xml.contains("<Cd>OPBD</Cd></CdOrPrtry></Tp><Amt Ccy=\"MAD\">1000.00</Amt>"));
+        assertTrue(xml.contains("<Cd>CLBD</Cd></CdOrPrtry></Tp><Amt Ccy=\"MAD\">900.00</Amt>"));
+        assertTrue(xml.contains("<CdtDbtInd>DBIT</CdtDbtInd><Sts>BOOK</Sts>"));
+    }
+
+    @Test
+    @WithMockUser(username = "client@example.com", roles = "CLIENT")
+    void testIngestPain001() throws Exception {
+        String file = "<Document xmlns=\"urn:iso:std:iso:20022:tech:xsd:pain.001.001.03\"><CstmrCdtTrfInitn>"
+                + "<GrpHdr><MsgId>MSG-42</MsgId><CreDtTm>2025-12-17T10:00:00</CreDtTm></GrpHdr>"
+                + "<PmtInf><PmtInfId>PMT-1</PmtInfId><PmtMtd>TRF</PmtMtd>"
+                + "<DbtrAcct><Id><Othr><Id>ALBARAKA202512171630459a7b8c9d</Id></Othr></Id></DbtrAcct>"
+                + "<CdtTrfTxInf><PmtId><EndToEndId>E2E-1</EndToEndId></PmtId>"
+                + "<Amt><InstdAmt Ccy=\"MAD\">250.00</InstdAmt></Amt>"
+                + "<CdtrAcct><Id><Othr><Id>ALBARAKA202512171630459a7b8c9e</Id></Othr></Id></CdtrAcct></CdtTrfTxInf>"
+                + "</PmtInf></CstmrCdtTrfInitn></Document>";
+
+        MvcResult started = mockMvc.perform(post("/api/transactions/pain001")
+                        .contentType("application/xml")
+                        .content(file))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String report = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/xml;charset=UTF-8"))
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(report.contains("<OrgnlMsgId>MSG-42</OrgnlMsgId>"));
+        assertTrue(report.contains("<OrgnlEndToEndId>E2E-1</OrgnlEndToEndId><TxSts>ACSC</TxSts>"));
+        assertEquals(0, new BigDecimal("750").compareTo(accountRepository.findById(testAccount.getId()).orElseThrow().getBalance()));
+        assertEquals(0, new BigDecimal("250").compareTo(accountRepository.findById(beneficiaryAccount.getId()).orElseThrow().getBalance()));
+    }
+
+
+    @Test
+    @WithMockUser(username = "admin@example.com", roles = "ADMIN")
+    void testAdmissionMetricsExposeSeparateReadAndWriteLimits() throws Exception {
+        mockMvc.perform(get("/api/transactions/me"));
+
+        mockMvc.perform(get("/api/admin/metrics/admission"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("transaction-writes"))
+                .andExpect(jsonPath("$[1].name").value("transaction-reads"))
+                .andExpect(jsonPath("$[1].inFlight").value(0))
+                .andExpect(jsonPath("$[1].queueDepth").value(0))
+                .andExpect(jsonPath("$[1].limit").isNumber());
+    }
+
+    @Test
+    @WithMockUser(username = "client@example.com", roles = "CLIENT")
+    void testPrometheusScrapeExposesTransactionTimersAndGauges() throws Exception {
+        mockMvc.perform(post("/api/transactions/deposit")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(
+                                TransactionRequest.builder().amount(new BigDecimal("100")).build())))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/api/transactions/deposit")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(
+                                TransactionRequest.builder().amount(new BigDecimal("20000")).build())))
+                .andExpect(status().isCreated());
+        pendingTransactionCounter.refresh();
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isForbidden());
+        String scrape = mockMvc.perform(get("/actuator/prometheus").with(user("admin@example.com").roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(scrape.contains("albaraka_transactions_seconds_bucket{"));
+        assertTrue(scrape.contains("operation=\"create\",outcome=\"completed\",type=\"DEPOSIT\",le=\"0.05\"}"));
+        assertTrue(scrape.contains("albaraka_transactions_amount_total{"));
+        assertTrue(scrape.lines().anyMatch(line -> line.startsWith("albaraka_transactions_pending{") && line.endsWith(" 1.0")));
+        assertTrue(scrape.contains("albaraka_transactions_retries_total{"));
+        assertTrue(scrape.contains("albaraka_admission_limit{"));
+        assertTrue(scrape.contains("limiter=\"transaction-writes\"}"));
+    }
+
+    @Test
+    @WithMockUser(username = "admin@example.com", roles = "ADMIN")
+    void testFlightRecordingCapturesRepositoryCalls() throws Exception {
+        mockMvc.perform(post("/api/admin/profiling/recording").param("durationSeconds", "60"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.state").value("RUNNING"));
+        mockMvc.perform(post("/api/admin/profiling/recording"))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(get("/api/admin/users")).andExpect(status().isOk());
+
+        MvcResult stopped = mockMvc.perform(post("/api/admin/profiling/recording/stop"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] recording = mockMvc.perform(asyncDispatch(stopped))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/octet-stream"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        Path file = Files.createTempFile("recording", ".jfr");
+        try {
+            Files.write(file, recording);
+            assertTrue(RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().equals("com.ilyassan.albaraka.RepositoryCall"))
+                    .anyMatch(event -> "UserRepository".equals(event.getString("repository"))
+                            && "findAll".equals(event.getString("method"))));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        mockMvc.perform(post("/api/admin/profiling/recording/stop"))
+                .andExpect(status().isNotFound());
+    }
+}
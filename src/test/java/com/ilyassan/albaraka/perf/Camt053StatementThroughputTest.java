@@ -0,0 +1,162 @@
+package com.ilyassan.albaraka.perf;
+
+import com.ilyassan.albaraka.entity.Account;
+import com.ilyassan.albaraka.entity.Transaction;
+import com.ilyassan.albaraka.entity.TransactionStatus;
+import com.ilyassan.albaraka.entity.User;
+import com.ilyassan.albaraka.entity.UserRole;
+import com.ilyassan.albaraka.repository.AccountRepository;
+import com.ilyassan.albaraka.repository.LedgerEntryRepository;
+import com.ilyassan.albaraka.repository.TransactionRepository;
+import com.ilyassan.albaraka.repository.UserRepository;
+import com.ilyassan.albaraka.service.Camt053StatementService;
+import com.ilyassan.albaraka.service.LedgerService;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures camt.053 statement generation for an account with a large history, and the heap it retains while
+ * writing. Run with {@code mvn test -Pperf}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("perf")
+@Slf4j
+class Camt053StatementThroughputTest {
+
+    private static final int ENTRIES = 200_000;
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2000, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(9000, 1, 1, 0, 0);
+
+    @Autowired
+    private Camt053StatementService camt053StatementService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        User user = userRepository.save(User.builder()
+                .email("perf-camt@example.com")
+                .password("password")
+                .firstName("John")
+                .lastName("Doe")
+                .role(UserRole.CLIENT)
+                .enabled(true)
+                .build());
+        account = accountRepository.save(Account.builder()
+                .accountNumber("ALBARAKA20251217163045PERF0002")
+                .user(user)
+                .build());
+        seed();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        ledgerEntryRepository.deleteAllInBatch();
+        transactionRepository.deleteAllInBatch();
+        accountRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testStatementThroughput() {
+        // Warm-up pass, then the measured one
+        camt053StatementService.write(account.getId(), FROM, TO, new CountingOutputStream());
+
+        CountingOutputStream out = new CountingOutputStream();
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        long entries = camt053StatementService.write(account.getId(), FROM, TO, out);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long heapAfter = usedHeap();
+
+        log.info("camt.053: {} entries, {} bytes in {} s, {} entries/s, {} MB/s, heap used {} MB -> {} MB",
+                entries, out.count, String.format("%.2f", seconds), Math.round(entries / seconds),
+                String.format("%.1f", out.count / seconds / (1024 * 1024)),
+                heapBefore / (1024 * 1024), heapAfter / (1024 * 1024));
+        assertEquals(ENTRIES, entries);
+    }
+
+    private void seed() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.executeWithoutResult(status -> {
+            List<Transaction> chunk = new ArrayList<>();
+            for (int i = 0; i < ENTRIES; i++) {
+                chunk.add(Transaction.builder()
+                        .account(account)
+                        .type("DEPOSIT")
+                        .amount(new BigDecimal("10.00"))
+                        .status(TransactionStatus.COMPLETED)
+                        .build());
+                if (chunk.size() == 1_000) {
+                    ledgerService.postAll(transactionRepository.saveAll(chunk));
+                    entityManager.flush();
+                    entityManager.clear();
+                    chunk.clear();
+                }
+            }
+            ledgerService.postAll(transactionRepository.saveAll(chunk));
+        });
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
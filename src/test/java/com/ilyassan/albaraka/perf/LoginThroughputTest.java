@@ -0,0 +1,190 @@
+package com.ilyassan.albaraka.perf;
+
+import com.ilyassan.albaraka.entity.Account;
+import com.ilyassan.albaraka.entity.User;
+import com.ilyassan.albaraka.entity.UserRole;
+import com.ilyassan.albaraka.repository.AccountRepository;
+import com.ilyassan.albaraka.repository.LedgerEntryRepository;
+import com.ilyassan.albaraka.repository.TransactionRepository;
+import com.ilyassan.albaraka.repository.UserRepository;
+import com.ilyassan.albaraka.security.JwtTokenProvider;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Saturates the login endpoint with production-cost BCrypt over real HTTP and measures login throughput, how many
+ * logins are shed with 503, and the latency of a cheap authenticated endpoint while the logins run. Run with
+ * {@code mvn test -Pperf}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.security.bcrypt.strength=10",
+        "app.security.hashing.threads=2",
+        "app.security.hashing.queue-capacity=16"
+})
+@ActiveProfiles("test")
+@Tag("perf")
+@Slf4j
+class LoginThroughputTest {
+
+    private static final int LOGIN_CLIENTS = 64;
+
+    private static final int LOGINS_PER_CLIENT = 10;
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${server.servlet.context-path:}")
+    private String contextPath;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    private String balanceToken;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        User user = userRepository.save(User.builder()
+                .email("perf-login@example.com")
+                .password(passwordEncoder.encode("password123"))
+                .firstName("John")
+                .lastName("Doe")
+                .role(UserRole.CLIENT)
+                .enabled(true)
+                .build());
+        Account account = accountRepository.save(Account.builder()
+                .accountNumber("ALBARAKA20251217163045LOGIN001")
+                .user(user)
+                .balance(new BigDecimal("100.00"))
+                .build());
+        balanceToken = tokenProvider.generateToken(user, account.getId());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        ledgerEntryRepository.deleteAllInBatch();
+        transactionRepository.deleteAll();
+        accountRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private String baseUrl() {
+        return "http://localhost:" + port + contextPath;
+    }
+
+    @Test
+    void measureLoginThroughputAtSaturation() throws Exception {
+        HttpRequest login = HttpRequest.newBuilder(URI.create(baseUrl() + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"email\":\"perf-login@example.com\",\"password\":\"password123\"}"))
+                .build();
+        HttpRequest balance = HttpRequest.newBuilder(URI.create(baseUrl() + "/api/accounts/me/balance"))
+                .header("Authorization", "Bearer " + balanceToken)
+                .GET()
+                .build();
+
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger shed = new AtomicInteger();
+        AtomicInteger other = new AtomicInteger();
+        AtomicBoolean loginsRunning = new AtomicBoolean(true);
+        List<Long> balanceLatencies = Collections.synchronizedList(new ArrayList<>());
+
+        ExecutorService clients = Executors.newFixedThreadPool(LOGIN_CLIENTS + 1);
+        Future<?> prober = clients.submit(() -> {
+            while (loginsRunning.get()) {
+                long start = System.nanoTime();
+                HttpResponse<String> response = http.send(balance, HttpResponse.BodyHandlers.ofString());
+                balanceLatencies.add(System.nanoTime() - start);
+                assertEquals(200, response.statusCode());
+                Thread.sleep(5);
+            }
+            return null;
+        });
+
+        long start = System.nanoTime();
+        List<Future<?>> logins = new ArrayList<>();
+        for (int c = 0; c < LOGIN_CLIENTS; c++) {
+            logins.add(clients.submit(() -> {
+                for (int i = 0; i < LOGINS_PER_CLIENT; i++) {
+                    HttpResponse<String> response = http.send(login, HttpResponse.BodyHandlers.ofString());
+                    switch (response.statusCode()) {
+                        case 200 -> succeeded.incrementAndGet();
+                        case 503 -> {
+                            shed.incrementAndGet();
+                            assertEquals("1", response.headers().firstValue("Retry-After").orElse(null));
+                        }
+                        default -> other.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : logins) {
+            future.get(5, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - start;
+        loginsRunning.set(false);
+        prober.get(1, TimeUnit.MINUTES);
+        clients.shutdown();
+
+        List<Long> sorted = new ArrayList<>(balanceLatencies);
+        Collections.sort(sorted);
+        double p50 = sorted.get(sorted.size() / 2) / 1e6;
+        double p99 = sorted.get((int) (sorted.size() * 0.99)) / 1e6;
+        log.info("Logins: {} ok, {} shed with 503 in {} ms ({} logins/s); balance under load: {} requests, p50 {} ms, p99 {} ms",
+                succeeded.get(), shed.get(), elapsed / 1_000_000, String.format("%.1f", succeeded.get() / (elapsed / 1e9)),
+                sorted.size(), String.format("%.2f", p50), String.format("%.2f", p99));
+
+        assertEquals(0, other.get());
+        assertEquals(LOGIN_CLIENTS * LOGINS_PER_CLIENT, succeeded.get() + shed.get());
+        assertTrue(succeeded.get() > 0);
+        assertFalse(sorted.isEmpty());
+        // BCrypt runs on two pool threads, so request threads stay free for other endpoints
+        assertTrue(p99 < 500, "balance p99 " + p99 + " ms under login load");
+    }
+}
@@ -0,0 +1,201 @@
+package com.ilyassan.albaraka.perf;
+
+import com.ilyassan.albaraka.entity.EntryDirection;
+import com.ilyassan.albaraka.entity.LedgerEntry;
+import com.ilyassan.albaraka.entity.Transaction;
+import com.ilyassan.albaraka.entity.TransactionStatus;
+import com.ilyassan.albaraka.support.ConcurrencyTestSupport;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fires a seeded random mix of deposits, withdrawals, transfers, approvals and rejections at a few hot accounts and
+ * checks that no money is created or lost. Amounts above the validation threshold go through the pending queue, and
+ * some approvals are raced against a second approval of the same transaction.
+ * <p>
+ * Run with {@code mvn test -Pperf}. The run is sized with {@code -Dstress.operations} and {@code -Dstress.threads};
+ * setting {@code -Dstress.min-ops-per-second} also fails the run when throughput drops below that floor.
+ */
+@Tag("perf")
+@Slf4j
+class MoneyConservationStressTest extends ConcurrencyTestSupport {
+
+    private static final int OPERATIONS = Integer.getInteger("stress.operations", 2000);
+    private static final int THREADS = Integer.getInteger("stress.threads", 8);
+    private static final double MIN_OPS_PER_SECOND =
+            Double.parseDouble(System.getProperty("stress.min-ops-per-second", "0"));
+    private static final long RANDOM_SEED = Long.getLong("stress.seed", 20251217L);
+
+    private static final int ACCOUNTS = 4;
+    private static final BigDecimal SEED_BALANCE = new BigDecimal("20000.00");
+    private static final Set<String> EXPECTED_REJECTIONS = Set.of("Insufficient balance", "Transaction is not pending");
+
+    private final List<Long> accountIds = new ArrayList<>();
+
+    // Pending transactions waiting for an approval or rejection operation to pick them up
+    private final Queue<Long> pending = new ConcurrentLinkedQueue<>();
+
+    // What the test itself saw complete, kept independently of the database
+    private final AtomicLong netDepositCents = new AtomicLong();
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger refused = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 1; i <= ACCOUNTS; i++) {
+            accountIds.add(createAccount("stress" + i + "@example.com", "ALBARAKA20251217163045STRS000" + i,
+                    SEED_BALANCE).getId());
+        }
+    }
+
+    @Test
+    void testConcurrentOperationsConserveMoney() throws Exception {
+        List<Callable<Void>> operations = plan(new Random(RANDOM_SEED));
+
+        long start = System.nanoTime();
+        runConcurrently(THREADS, operations);
+        long elapsedNanos = System.nanoTime() - start;
+
+        double opsPerSecond = OPERATIONS / (elapsedNanos / 1e9);
+        log.info("Money conservation stress: {} operations on {} threads over {} accounts in {} ms ({} ops/s), "
+                        + "{} completed, {} refused, {} left pending",
+                OPERATIONS, THREADS, ACCOUNTS, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), Math.round(opsPerSecond),
+                completed.get(), refused.get(), transactionRepository.countByStatus(TransactionStatus.PENDING));
+
+        assertBalancesConserved();
+        assertEveryCompletedTransactionPostedOnce();
+
+        if (MIN_OPS_PER_SECOND > 0) {
+            assertTrue(opsPerSecond >= MIN_OPS_PER_SECOND,
+                    String.format("Throughput %.0f ops/s is below the floor of %.0f ops/s", opsPerSecond, MIN_OPS_PER_SECOND));
+        }
+    }
+
+    private void assertBalancesConserved() {
+        BigDecimal seedTotal = SEED_BALANCE.multiply(BigDecimal.valueOf(ACCOUNTS));
+        BigDecimal netDeposits = BigDecimal.valueOf(netDepositCents.get(), 2);
+        BigDecimal total = BigDecimal.ZERO;
+
+        for (Long accountId : accountIds) {
+            BigDecimal balance = accountRepository.findById(accountId).orElseThrow().getBalance();
+            assertTrue(balance.signum() >= 0, "Account " + accountId + " is overdrawn: " + balance);
+            assertEquals(0, balance.subtract(SEED_BALANCE).compareTo(ledgerEntryRepository.sumByAccountId(accountId)),
+                    "Balance of account " + accountId + " does not match its ledger");
+            total = total.add(balance);
+        }
+
+        assertEquals(0, seedTotal.add(netDeposits).compareTo(total),
+                "Total balance " + total + " differs from seed " + seedTotal + " plus net deposits " + netDeposits);
+    }
+
+    private void assertEveryCompletedTransactionPostedOnce() {
+        List<Transaction> transactions = transactionRepository.findAll();
+        Map<Long, List<LedgerEntry>> entriesByTransaction = ledgerEntryRepository.findAll().stream()
+                .collect(Collectors.groupingBy(LedgerEntry::getTransactionId));
+
+        int completedInDatabase = 0;
+        for (Transaction transaction : transactions) {
+            List<LedgerEntry> entries = entriesByTransaction.getOrDefault(transaction.getId(), List.of());
+            if (transaction.getStatus() != TransactionStatus.COMPLETED) {
+                assertTrue(entries.isEmpty(), "Transaction " + transaction.getId() + " is "
+                        + transaction.getStatus() + " but was posted");
+                continue;
+            }
+
+            completedInDatabase++;
+            assertEquals(2, entries.size(), "Transaction " + transaction.getId() + " was not posted exactly once");
+            assertEquals(1, entries.stream().filter(e -> e.getDirection() == EntryDirection.DEBIT).count());
+            assertEquals(1, entries.stream().filter(e -> e.getDirection() == EntryDirection.CREDIT).count());
+            for (LedgerEntry entry : entries) {
+                assertEquals(0, transaction.getAmount().compareTo(entry.getAmount()));
+            }
+        }
+
+        assertEquals(completed.get(), completedInDatabase);
+        assertEquals(2L * completedInDatabase, ledgerEntryRepository.count());
+    }
+
+    private List<Callable<Void>> plan(Random random) {
+        List<Callable<Void>> operations = new ArrayList<>(OPERATIONS);
+        for (int i = 0; i < OPERATIONS; i++) {
+            Long account = accountIds.get(random.nextInt(ACCOUNTS));
+            Long beneficiary = accountIds.get((accountIds.indexOf(account) + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS);
+            // One operation in twenty is large enough to need validation
+            BigDecimal amount = random.nextInt(20) == 0
+                    ? BigDecimal.valueOf(1_000_001 + random.nextInt(500_000), 2)
+                    : BigDecimal.valueOf(1_000 + random.nextInt(49_000), 2);
+            int roll = random.nextInt(100);
+            boolean raceApproval = random.nextInt(4) == 0;
+
+            if (roll < 25) {
+                operations.add(() -> run(() -> transactionService.createDeposit(account, amount)));
+            } else if (roll < 45) {
+                operations.add(() -> run(() -> transactionService.createWithdrawal(account, amount)));
+            } else if (roll < 80) {
+                operations.add(() -> run(() -> transactionService.createTransfer(account, beneficiary, amount)));
+            } else if (roll < 95) {
+                operations.add(() -> decide(true, raceApproval));
+            } else {
+                operations.add(() -> decide(false, false));
+            }
+        }
+        return operations;
+    }
+
+    private Void decide(boolean approve, boolean race) {
+        Long transactionId = pending.poll();
+        if (transactionId == null) {
+            return null;
+        }
+        if (race) {
+            // Leave the transaction queued so another thread tries to decide it at the same time
+            pending.offer(transactionId);
+        }
+        return run(() -> approve
+                ? transactionService.approveTransaction(transactionId)
+                : transactionService.rejectTransaction(transactionId));
+    }
+
+    private Void run(Supplier<Transaction> operation) {
+        Transaction transaction;
+        try {
+            transaction = operation.get();
+        } catch (IllegalArgumentException e) {
+            assertTrue(EXPECTED_REJECTIONS.contains(e.getMessage()), "Unexpected rejection: " + e.getMessage());
+            refused.incrementAndGet();
+            return null;
+        }
+
+        if (transaction.getStatus() == TransactionStatus.PENDING) {
+            pending.offer(transaction.getId());
+        } else if (transaction.getStatus() == TransactionStatus.COMPLETED) {
+            completed.incrementAndGet();
+            long cents = transaction.getAmount().movePointRight(2).longValueExact();
+            if ("DEPOSIT".equals(transaction.getType())) {
+                netDepositCents.addAndGet(cents);
+            } else if ("WITHDRAWAL".equals(transaction.getType())) {
+                netDepositCents.addAndGet(-cents);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,147 @@
+package com.ilyassan.albaraka.perf;
+
+import com.ilyassan.albaraka.entity.Account;
+import com.ilyassan.albaraka.entity.User;
+import com.ilyassan.albaraka.entity.UserRole;
+import com.ilyassan.albaraka.repository.AccountRepository;
+import com.ilyassan.albaraka.repository.LedgerEntryRepository;
+import com.ilyassan.albaraka.repository.TransactionRepository;
+import com.ilyassan.albaraka.repository.UserRepository;
+import com.ilyassan.albaraka.service.Pain001IngestionService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures pain.001 ingestion in payments per second. The file is generated on the fly and the report discarded, so
+ * neither is held in memory. Run with {@code mvn test -Pperf}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("perf")
+@Slf4j
+class Pain001IngestionThroughputTest {
+
+    private static final int PAYMENTS = 50_000;
+    private static final int BENEFICIARIES = 100;
+
+    @Autowired
+    private Pain001IngestionService pain001IngestionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Account debtor;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        debtor = createAccount(0, new BigDecimal("100000000"));
+        for (int i = 1; i <= BENEFICIARIES; i++) {
+            createAccount(i, BigDecimal.ZERO);
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        ledgerEntryRepository.deleteAllInBatch();
+        transactionRepository.deleteAllInBatch();
+        accountRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testIngestionThroughput() {
+        // Warm-up file, then the measured one
+        pain001IngestionService.ingest(debtor, file("WARMUP", 5_000), OutputStream.nullOutputStream());
+        Pain001IngestionService.Result result = pain001IngestionService.ingest(debtor, file("MEASURED", PAYMENTS),
+                OutputStream.nullOutputStream());
+
+        log.info("pain.001 ingestion: {} payments in {} ms, {} payments/s", result.payments(),
+                result.elapsedNanos() / 1_000_000, Math.round(result.paymentsPerSecond()));
+        assertEquals(PAYMENTS, result.payments());
+        assertEquals(PAYMENTS, result.completed());
+    }
+
+    /**
+     * A pain.001 file with {@code payments} transfers spread over the beneficiary accounts, produced lazily.
+     */
+    private InputStream file(String messageId, int payments) {
+        String head = "<Document xmlns=\"" + Pain001IngestionService.PAIN_001_NAMESPACE + "\"><CstmrCdtTrfInitn>"
+                + "<GrpHdr><MsgId>" + messageId + "</MsgId><CreDtTm>2025-12-17T10:00:00</CreDtTm></GrpHdr>"
+                + "<PmtInf><PmtInfId>" + messageId + "-1</PmtInfId><PmtMtd>TRF</PmtMtd>"
+                + "<DbtrAcct><Id><Othr><Id>" + debtor.getAccountNumber() + "</Id></Othr></Id></DbtrAcct>";
+        String tail = "</PmtInf></CstmrCdtTrfInitn></Document>";
+
+        Enumeration<InputStream> parts = new Enumeration<>() {
+            private int next = -1;
+
+            @Override
+            public boolean hasMoreElements() {
+                return next <= payments;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                int part = next++;
+                String xml;
+                if (part == -1) {
+                    xml = head;
+                } else if (part == payments) {
+                    xml = tail;
+                } else {
+                    xml = "<CdtTrfTxInf><PmtId><EndToEndId>" + messageId + "-" + part + "</EndToEndId></PmtId>"
+                            + "<Amt><InstdAmt Ccy=\"MAD\">10.00</InstdAmt></Amt>"
+                            + "<CdtrAcct><Id><Othr><Id>" + accountNumber(part % BENEFICIARIES + 1)
+                            + "</Id></Othr></Id></CdtrAcct></CdtTrfTxInf>";
+                }
+                return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+            }
+        };
+        return new SequenceInputStream(parts);
+    }
+
+    private static String accountNumber(int index) {
+        return String.format("ALBARAKA2025121716PAIN%08d", index);
+    }
+
+    private Account createAccount(int index, BigDecimal balance) {
+        User user = userRepository.save(User.builder()
+                .email("perf-pain" + index + "@example.com")
+                .password("password")
+                .firstName("John")
+                .lastName("Doe")
+                .role(UserRole.CLIENT)
+                .enabled(true)
+                .build());
+        return accountRepository.save(Account.builder()
+                .accountNumber(accountNumber(index))
+                .user(user)
+                .balance(balance)
+                .build());
+    }
+}
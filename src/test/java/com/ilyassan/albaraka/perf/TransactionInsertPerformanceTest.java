@@ -0,0 +1,130 @@
+package com.ilyassan.albaraka.perf;
+
+import com.ilyassan.albaraka.entity.Account;
+import com.ilyassan.albaraka.entity.Transaction;
+import com.ilyassan.albaraka.entity.TransactionStatus;
+import com.ilyassan.albaraka.entity.User;
+import com.ilyassan.albaraka.entity.UserRole;
+import com.ilyassan.albaraka.repository.AccountRepository;
+import com.ilyassan.albaraka.repository.LedgerEntryRepository;
+import com.ilyassan.albaraka.repository.TransactionRepository;
+import com.ilyassan.albaraka.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures bulk transaction inserts with and without JDBC batching. Run with {@code mvn test -Pperf}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("perf")
+@Slf4j
+class TransactionInsertPerformanceTest {
+
+    private static final int WARMUP_ROWS = 2_000;
+    private static final int MEASURED_ROWS = 20_000;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        User user = userRepository.save(User.builder()
+                .email("perf@example.com")
+                .password("password")
+                .firstName("John")
+                .lastName("Doe")
+                .role(UserRole.CLIENT)
+                .enabled(true)
+                .build());
+        account = accountRepository.save(Account.builder()
+                .accountNumber("ALBARAKA20251217163045PERF0001")
+                .user(user)
+                .balance(BigDecimal.ZERO)
+                .build());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        ledgerEntryRepository.deleteAllInBatch();
+        transactionRepository.deleteAllInBatch();
+        accountRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testBulkInsertThroughput() {
+        insert(WARMUP_ROWS, 1);
+        insert(WARMUP_ROWS, null);
+
+        double unbatched = insert(MEASURED_ROWS, 1);
+        double batched = insert(MEASURED_ROWS, null);
+
+        log.info("Bulk transaction inserts: {} rows, unbatched {} inserts/s, batched {} inserts/s ({}x)",
+                MEASURED_ROWS, Math.round(unbatched), Math.round(batched), String.format("%.1f", batched / unbatched));
+        assertEquals(2L * (WARMUP_ROWS + MEASURED_ROWS), transactionRepository.count());
+    }
+
+    /**
+     * @param jdbcBatchSize session batch size override, or {@code null} for the configured one
+     * @return inserts per second
+     */
+    private double insert(int rows, Integer jdbcBatchSize) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        long start = System.nanoTime();
+        template.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+            List<Transaction> chunk = new ArrayList<>();
+            for (int i = 0; i < rows; i++) {
+                chunk.add(Transaction.builder()
+                        .account(account)
+                        .type("DEPOSIT")
+                        .amount(new BigDecimal("10.00"))
+                        .status(TransactionStatus.COMPLETED)
+                        .build());
+                if (chunk.size() == 1_000) {
+                    transactionRepository.saveAll(chunk);
+                    entityManager.flush();
+                    entityManager.clear();
+                    chunk.clear();
+                }
+            }
+            transactionRepository.saveAll(chunk);
+        });
+        return rows / ((System.nanoTime() - start) / 1e9);
+    }
+}
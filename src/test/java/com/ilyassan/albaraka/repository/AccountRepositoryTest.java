@@ -7,9 +7,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -24,6 +26,9 @@ class AccountRepositoryTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     private User testUser;
     private Account testAccount;
 
@@ -102,6 +107,29 @@ class AccountRepositoryTest {
         assertEquals(new BigDecimal("5000"), result.get().getBalance());
     }
 
+    @Test
+    void testApplyBalanceDeltaCredit() {
+        Account savedAccount = accountRepository.save(testAccount);
+
+        int updated = accountRepository.applyBalanceDelta(savedAccount.getId(), new BigDecimal("250.50"), LocalDateTime.now());
+        entityManager.clear();
+
+        assertEquals(1, updated);
+        assertEquals(0, new BigDecimal("250.50").compareTo(accountRepository.findById(savedAccount.getId()).get().getBalance()));
+    }
+
+    @Test
+    void testApplyBalanceDeltaRejectsOverdraft() {
+        testAccount.setBalance(new BigDecimal("100"));
+        Account savedAccount = accountRepository.save(testAccount);
+
+        int updated = accountRepository.applyBalanceDelta(savedAccount.getId(), new BigDecimal("-100.01"), LocalDateTime.now());
+        entityManager.clear();
+
+        assertEquals(0, updated);
+        assertEquals(0, new BigDecimal("100").compareTo(accountRepository.findById(savedAccount.getId()).get().getBalance()));
+    }
+
     @Test
     void testDeleteAccount() {
         Account savedAccount = accountRepository.save(testAccount);
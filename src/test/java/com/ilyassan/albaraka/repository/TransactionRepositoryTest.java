@@ -9,9 +9,14 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -29,6 +34,9 @@ class TransactionRepositoryTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     private Account testAccount;
     private Transaction testTransaction;
 
@@ -120,4 +128,40 @@ class TransactionRepositoryTest {
 
         assertEquals(2, result.size());
     }
+
+    @Test
+    void testKeysetPagesBreakTimestampTiesById() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(transactionRepository.save(Transaction.builder()
+                    .account(testAccount)
+                    .type("DEPOSIT")
+                    .amount(new BigDecimal("10"))
+                    .status(TransactionStatus.COMPLETED)
+                    .build()).getId());
+        }
+        entityManager.flush();
+        entityManager.getEntityManager()
+                .createNativeQuery("UPDATE transactions SET created_at = :createdAt")
+                .setParameter("createdAt", LocalDateTime.of(2025, 12, 17, 16, 30))
+                .executeUpdate();
+        entityManager.clear();
+
+        List<Transaction> first = transactionRepository.findLatestByAccountId(testAccount.getId(), PageRequest.of(0, 2));
+        Transaction last = first.get(1);
+        List<Transaction> second = transactionRepository.findByAccountIdBefore(
+                testAccount.getId(), last.getCreatedAt(), last.getId(), PageRequest.of(0, 2));
+        last = second.get(1);
+        List<Transaction> third = transactionRepository.findByAccountIdBefore(
+                testAccount.getId(), last.getCreatedAt(), last.getId(), PageRequest.of(0, 2));
+
+        List<Long> seen = new ArrayList<>();
+        first.forEach(t -> seen.add(t.getId()));
+        second.forEach(t -> seen.add(t.getId()));
+        third.forEach(t -> seen.add(t.getId()));
+
+        assertEquals(1, third.size());
+        Collections.reverse(ids);
+        assertEquals(ids, seen);
+    }
 }
@@ -0,0 +1,93 @@
+package com.ilyassan.albaraka.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void testLimitGrowsOnlyWhileSaturatedAndFast() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 0, Duration.ZERO);
+
+        // One request in flight of a limit of four does not need a higher limit
+        assertTrue(limiter.tryAcquire());
+        limiter.release(FAST, false);
+        assertEquals(4, limiter.getLimit());
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        limiter.release(FAST, false);
+        assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    void testSlowOrFailedRequestsCutTheLimit() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 0, Duration.ZERO);
+
+        assertTrue(limiter.tryAcquire());
+        limiter.release(SLOW, false);
+        assertEquals(5, limiter.getLimit());
+
+        assertTrue(limiter.tryAcquire());
+        limiter.release(FAST, true);
+        assertEquals(2, limiter.getLimit());
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(SLOW, false);
+        }
+        assertEquals(2, limiter.getLimit());
+        assertEquals(7, limiter.getStats().getCongestionSignals());
+    }
+
+    @Test
+    void testRequestsBeyondLimitAndQueueAreShed() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(2, 0, Duration.ZERO);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(1, limiter.getStats().getRejected());
+        assertEquals(2, limiter.getInFlight());
+    }
+
+    @Test
+    void testQueuedRequestIsAdmittedWhenSlotFrees() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(2, 1, Duration.ofSeconds(5));
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+
+        CompletableFuture<Boolean> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return limiter.tryAcquire();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (limiter.getQueueDepth() == 0) {
+            Thread.onSpinWait();
+        }
+        // The queue holds one request
+        assertFalse(limiter.tryAcquire());
+
+        limiter.release(FAST, false);
+        assertTrue(waiting.get(5, TimeUnit.SECONDS));
+        assertEquals(0, limiter.getQueueDepth());
+        assertEquals(2, limiter.getInFlight());
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter(int initialLimit, int maxQueue, Duration maxWait) {
+        return new AdaptiveConcurrencyLimiter("test", initialLimit, 2, 10, Duration.ofMillis(250), 0.5,
+                maxQueue, maxWait);
+    }
+}
@@ -0,0 +1,128 @@
+package com.ilyassan.albaraka.security;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlFilterTest {
+
+    private TransactionAdmissionControl admissionControl;
+
+    private AdmissionControlFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        // Generous latency thresholds, so only failures move the limits
+        admissionControl = new TransactionAdmissionControl(10, 1, 100, Duration.ofMinutes(1),
+                10, 1, 100, Duration.ofMinutes(1), 0.5, 0, Duration.ZERO);
+        filter = new AdmissionControlFilter(admissionControl);
+    }
+
+    @Test
+    void testAsyncRequestHoldsItsSlotUntilCompletion() throws Exception {
+        MockHttpServletRequest request = request("POST", "/api/transactions/pain001");
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+
+        assertEquals(1, admissionControl.getWrites().getInFlight());
+
+        request.getAsyncContext().complete();
+        assertEquals(0, admissionControl.getWrites().getInFlight());
+        assertEquals(10, admissionControl.getWrites().getLimit());
+    }
+
+    @Test
+    void testAsyncTimeoutCountsAsFailure() throws Exception {
+        MockHttpServletRequest request = request("GET", "/api/transactions/me/statement");
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+
+        MockAsyncContext asyncContext = (MockAsyncContext) request.getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+        asyncContext.complete();
+
+        assertEquals(0, admissionControl.getReads().getInFlight());
+        assertEquals(5, admissionControl.getReads().getLimit());
+    }
+
+    @Test
+    void testServerErrorsExceptionsAndMarkedRequestsCountAsFailures() throws Exception {
+        filter.doFilter(request("POST", "/api/transactions/deposit"), new MockHttpServletResponse(),
+                (req, res) -> ((MockHttpServletResponse) res).setStatus(503));
+        assertEquals(5, admissionControl.getWrites().getLimit());
+
+        FilterChain throwing = (req, res) -> {
+            throw new IllegalStateException("Connection is not available");
+        };
+        assertThrows(IllegalStateException.class, () -> filter.doFilter(request("POST", "/api/transactions/deposit"),
+                new MockHttpServletResponse(), throwing));
+        assertEquals(2, admissionControl.getWrites().getLimit());
+
+        // A database error the controller answered with 400
+        filter.doFilter(request("POST", "/api/transactions/deposit"), new MockHttpServletResponse(), (req, res) -> {
+            AdmissionControlFilter.markFailed(req);
+            ((MockHttpServletResponse) res).setStatus(400);
+        });
+        assertEquals(1, admissionControl.getWrites().getLimit());
+        assertEquals(0, admissionControl.getWrites().getInFlight());
+    }
+
+    @Test
+    void testOnlyServiceTimeIsALatencySignal() throws Exception {
+        TransactionAdmissionControl strict = new TransactionAdmissionControl(10, 1, 100, Duration.ofMillis(20),
+                10, 1, 100, Duration.ofMillis(20), 0.5, 0, Duration.ZERO);
+        AdmissionControlFilter strictFilter = new AdmissionControlFilter(strict);
+
+        // A slow request whose service call was fast
+        strictFilter.doFilter(request("POST", "/api/transactions/deposit"), new MockHttpServletResponse(), (req, res) -> {
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes((HttpServletRequest) req));
+            try {
+                AdmissionControlFilter.recordServiceTime(TimeUnit.MILLISECONDS.toNanos(1));
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                RequestContextHolder.resetRequestAttributes();
+            }
+        });
+        assertEquals(10, strict.getWrites().getLimit());
+
+        // A streamed statement that the client reads slowly
+        MockHttpServletRequest request = request("GET", "/api/transactions/me/export");
+        strictFilter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+        Thread.sleep(50);
+        request.getAsyncContext().complete();
+        assertEquals(10, strict.getReads().getLimit());
+        assertEquals(0, strict.getReads().getInFlight());
+
+        // Without a service call the dispatch time is the latency
+        strictFilter.doFilter(request("GET", "/api/transactions/me"), new MockHttpServletResponse(),
+                (req, res) -> {
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+        assertEquals(5, strict.getReads().getLimit());
+    }
+
+    private MockHttpServletRequest request(String method, String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setAsyncSupported(true);
+        return request;
+    }
+}
@@ -0,0 +1,108 @@
+package com.ilyassan.albaraka.security;
+
+import com.ilyassan.albaraka.entity.User;
+import com.ilyassan.albaraka.entity.UserRole;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtTokenProviderTest {
+
+    private JwtTokenProvider tokenProvider;
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @BeforeEach
+    void setUp() {
+        tokenProvider = new JwtTokenProvider();
+        verifiedTokenCache = new VerifiedTokenCache(2);
+        ReflectionTestUtils.setField(tokenProvider, "verifiedTokenCache", verifiedTokenCache);
+    }
+
+    @Test
+    void testVerifyCachesValidToken() {
+        String token = tokenProvider.generateTokenFromEmail("client@example.com");
+
+        VerifiedTokenCache.VerifiedToken first = tokenProvider.verify(token);
+        VerifiedTokenCache.VerifiedToken second = tokenProvider.verify(token);
+
+        assertEquals("client@example.com", first.subject());
+        assertTrue(first.expiresAtMillis() > System.currentTimeMillis());
+        assertSame(first, second);
+        assertEquals(1, verifiedTokenCache.size());
+    }
+
+    @Test
+    void testIdentityClaimsRoundTrip() {
+        User user = User.builder().id(7L).email("client@example.com").role(UserRole.CLIENT).build();
+
+        VerifiedTokenCache.VerifiedToken verified = tokenProvider.verify(tokenProvider.generateToken(user, 42L));
+
+        assertTrue(verified.hasIdentityClaims());
+        assertEquals(7L, verified.userId());
+        assertEquals(UserRole.CLIENT, verified.role());
+        assertEquals(42L, verified.accountId());
+        assertNotNull(verified.tokenId());
+        assertTrue(verified.issuedAtMillis() > 0);
+    }
+
+    @Test
+    void testTokenWithoutAccountOrClaims() {
+        User admin = User.builder().id(1L).email("admin@example.com").role(UserRole.ADMIN).build();
+
+        assertNull(tokenProvider.verify(tokenProvider.generateToken(admin, null)).accountId());
+        assertFalse(tokenProvider.verify(tokenProvider.generateTokenFromEmail("legacy@example.com")).hasIdentityClaims());
+    }
+
+    @Test
+    void testVerifyRejectsTamperedToken() {
+        String token = tokenProvider.generateTokenFromEmail("client@example.com");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertNull(tokenProvider.verify(tampered));
+        assertNull(tokenProvider.verify("not-a-token"));
+        assertEquals(0, verifiedTokenCache.size());
+    }
+
+    @Test
+    void testVerifyRejectsExpiredToken() {
+        ReflectionTestUtils.setField(tokenProvider, "accessTokenTtl", Duration.ofSeconds(-1));
+        String token = tokenProvider.generateTokenFromEmail("client@example.com");
+
+        assertNull(tokenProvider.verify(token));
+        assertFalse(tokenProvider.validateToken(token));
+    }
+
+    @Test
+    void testCachedTokenIsNotServedPastExpiry() {
+        long now = System.currentTimeMillis();
+        VerifiedTokenCache.VerifiedToken verified = new VerifiedTokenCache.VerifiedToken("client@example.com", "jti-1", 1L, UserRole.CLIENT, 2L, now, now + 60_000);
+        verifiedTokenCache.put("token", verified);
+
+        assertSame(verified, verifiedTokenCache.get("token", now + 59_999));
+        assertNull(verifiedTokenCache.get("token", now + 60_000));
+        assertEquals(0, verifiedTokenCache.size());
+    }
+
+    @Test
+    void testExpiredTokensLeaveTheCacheWithoutBeingRead() {
+        long now = System.currentTimeMillis();
+        verifiedTokenCache.put("expired", new VerifiedTokenCache.VerifiedToken("client@example.com", "jti-1", 1L, UserRole.CLIENT, 2L, now - 60_000, now - 1));
+        verifiedTokenCache.put("valid", new VerifiedTokenCache.VerifiedToken("client@example.com", "jti-2", 1L, UserRole.CLIENT, 2L, now, now + 60_000));
+
+        assertEquals(1, verifiedTokenCache.size());
+        assertNotNull(verifiedTokenCache.get("valid", now));
+    }
+
+    @Test
+    void testCacheIsBounded() {
+        tokenProvider.verify(tokenProvider.generateTokenFromEmail("a@example.com"));
+        tokenProvider.verify(tokenProvider.generateTokenFromEmail("b@example.com"));
+        tokenProvider.verify(tokenProvider.generateTokenFromEmail("c@example.com"));
+
+        assertEquals(2, verifiedTokenCache.size());
+    }
+}
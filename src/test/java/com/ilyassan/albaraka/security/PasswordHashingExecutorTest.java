@@ -0,0 +1,51 @@
+package com.ilyassan.albaraka.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingExecutorTest {
+
+    @Test
+    void testWorkBeyondQueueCapacityIsRejected() throws Exception {
+        PasswordHashingExecutor executor = new PasswordHashingExecutor(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture<String> running = executor.submit(() -> await(release, "running"));
+            CompletableFuture<String> queued = executor.submit(() -> "queued");
+
+            assertThrows(RejectedExecutionException.class, () -> executor.submit(() -> "rejected"));
+            assertEquals(1, executor.getRejectedCount());
+            assertEquals(1, executor.getQueueDepth());
+
+            release.countDown();
+            assertEquals("running", running.get());
+            assertEquals("queued", queued.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testCalibratedStrengthDoublesWorkPerStep() {
+        long probe = 10_000_000;
+
+        assertEquals(8, BCryptStrengthCalibrator.strengthFor(probe, probe, 4, 14));
+        assertEquals(12, BCryptStrengthCalibrator.strengthFor(16 * probe, probe, 4, 14));
+        assertEquals(10, BCryptStrengthCalibrator.strengthFor(probe, probe, 10, 14));
+        assertEquals(14, BCryptStrengthCalibrator.strengthFor(1024 * probe, probe, 4, 14));
+    }
+
+    private static String await(CountDownLatch latch, String result) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,97 @@
+package com.ilyassan.albaraka.security;
+
+import com.ilyassan.albaraka.dto.PrincipalCacheStatsResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrincipalCacheTest {
+
+    @Test
+    void testSecondLookupIsServedFromCache() {
+        PrincipalCache cache = new PrincipalCache(10, Duration.ofMinutes(5));
+        AtomicInteger loads = new AtomicInteger();
+
+        UserDetails first = cache.get("client@example.com", () -> principal("client@example.com", loads));
+        UserDetails second = cache.get("client@example.com", () -> principal("client@example.com", loads));
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        PrincipalCacheStatsResponse stats = cache.getStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(0.5, stats.getHitRatio());
+        assertEquals(1, stats.getSize());
+    }
+
+    @Test
+    void testExpiredEntryIsReloaded() {
+        PrincipalCache cache = new PrincipalCache(10, Duration.ZERO);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("client@example.com", () -> principal("client@example.com", loads));
+        cache.get("client@example.com", () -> principal("client@example.com", loads));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testCacheIsBounded() {
+        PrincipalCache cache = new PrincipalCache(2, Duration.ofMinutes(5));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("a@example.com", () -> principal("a@example.com", loads));
+        cache.get("b@example.com", () -> principal("b@example.com", loads));
+        cache.get("c@example.com", () -> principal("c@example.com", loads));
+
+        assertEquals(2, cache.getStats().getSize());
+    }
+
+    @Test
+    void testInvalidationWaitsForCommit() {
+        PrincipalCache cache = new PrincipalCache(10, Duration.ofMinutes(5));
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("client@example.com", () -> principal("client@example.com", loads));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.invalidate("client@example.com");
+            assertEquals(1, cache.getStats().getSize());
+
+            TransactionSynchronizationUtils.triggerAfterCommit();
+            assertEquals(0, cache.getStats().getSize());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        cache.get("client@example.com", () -> principal("client@example.com", loads));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testLoadRacingAnInvalidationIsNotCached() {
+        PrincipalCache cache = new PrincipalCache(10, Duration.ofMinutes(5));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("client@example.com", () -> {
+            // The user changes while its old row is being read
+            cache.invalidate("client@example.com");
+            return principal("client@example.com", loads);
+        });
+
+        assertEquals(0, cache.getStats().getSize());
+        assertEquals(1, cache.getStats().getInvalidations());
+    }
+
+    private UserDetails principal(String email, AtomicInteger loads) {
+        loads.incrementAndGet();
+        return User.withUsername(email).password("").roles("CLIENT").build();
+    }
+}
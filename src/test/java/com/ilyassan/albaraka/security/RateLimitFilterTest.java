@@ -0,0 +1,110 @@
+package com.ilyassan.albaraka.security;
+
+import com.ilyassan.albaraka.entity.User;
+import com.ilyassan.albaraka.entity.UserRole;
+import com.ilyassan.albaraka.repository.AccountRepository;
+import com.ilyassan.albaraka.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "app.rate-limit.auth.burst=2",
+        "app.rate-limit.auth.per-second=0.01",
+        "app.rate-limit.transactions.burst=3",
+        "app.rate-limit.transactions.per-second=0.01"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RateLimitFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        accountRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testLoginIsLimitedPerAddressBeforeAuthentication() throws Exception {
+        String body = "{\"email\":\"nobody@example.com\",\"password\":\"password123\"}";
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/api/auth/login").contentType("application/json").content(body))
+                    .andExpect(request().asyncStarted());
+        }
+
+        mockMvc.perform(post("/api/auth/login").contentType("application/json").content(body)
+                        .with(request -> {
+                            request.setRemoteAddr("127.0.0.1");
+                            return request;
+                        }))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "100"));
+
+        // Another address has its own bucket
+        mockMvc.perform(post("/api/auth/login").contentType("application/json").content(body)
+                        .with(request -> {
+                            request.setRemoteAddr("10.1.2.3");
+                            return request;
+                        }))
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    void testTransactionEndpointsAreLimitedPerUser() throws Exception {
+        User first = saveUser("first-limited@example.com");
+        User second = saveUser("second-limited@example.com");
+        String firstToken = tokenProvider.generateToken(first, null);
+        String secondToken = tokenProvider.generateToken(second, null);
+
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/api/transactions/me").header("Authorization", "Bearer " + firstToken))
+                    .andExpect(status().isNotFound());
+        }
+        mockMvc.perform(get("/api/transactions/me").header("Authorization", "Bearer " + firstToken))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+
+        mockMvc.perform(get("/api/transactions/me").header("Authorization", "Bearer " + secondToken))
+                .andExpect(status().isNotFound());
+        // Endpoints outside the transaction class are not limited
+        mockMvc.perform(get("/api/accounts/me").header("Authorization", "Bearer " + firstToken))
+                .andExpect(status().isNotFound());
+    }
+
+    private User saveUser(String email) {
+        return userRepository.save(User.builder()
+                .email(email)
+                .password("password")
+                .firstName("John")
+                .lastName("Doe")
+                .role(UserRole.CLIENT)
+                .enabled(true)
+                .build());
+    }
+}
@@ -0,0 +1,59 @@
+package com.ilyassan.albaraka.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final AtomicLong clock = new AtomicLong(42 * SECOND);
+
+    private final RateLimiter rateLimiter = new RateLimiter(3, 1, 5, 10, clock::get);
+
+    @Test
+    void testBurstThenRefillAtConfiguredRate() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, rateLimiter.tryAcquire(RateLimiter.EndpointClass.AUTH, "ip:10.0.0.1"));
+        }
+
+        long wait = rateLimiter.tryAcquire(RateLimiter.EndpointClass.AUTH, "ip:10.0.0.1");
+        assertEquals(SECOND, wait);
+        assertEquals(1, rateLimiter.getRejectedCount(RateLimiter.EndpointClass.AUTH));
+
+        clock.addAndGet(SECOND);
+        assertEquals(0, rateLimiter.tryAcquire(RateLimiter.EndpointClass.AUTH, "ip:10.0.0.1"));
+        assertTrue(rateLimiter.tryAcquire(RateLimiter.EndpointClass.AUTH, "ip:10.0.0.1") > 0);
+    }
+
+    @Test
+    void testClientsAndEndpointClassesHaveSeparateBuckets() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire(RateLimiter.EndpointClass.AUTH, "ip:10.0.0.1");
+        }
+
+        assertTrue(rateLimiter.tryAcquire(RateLimiter.EndpointClass.AUTH, "ip:10.0.0.1") > 0);
+        assertEquals(0, rateLimiter.tryAcquire(RateLimiter.EndpointClass.AUTH, "ip:10.0.0.2"));
+        assertEquals(0, rateLimiter.tryAcquire(RateLimiter.EndpointClass.TRANSACTIONS, "ip:10.0.0.1"));
+    }
+
+    @Test
+    void testRefilledBucketsAreEvicted() {
+        rateLimiter.tryAcquire(RateLimiter.EndpointClass.TRANSACTIONS, "user:1");
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.tryAcquire(RateLimiter.EndpointClass.TRANSACTIONS, "user:2");
+        }
+
+        // user:1 refills after 100ms, user:2 after 500ms
+        clock.addAndGet(SECOND / 5);
+        assertEquals(1, rateLimiter.evictIdle());
+        assertEquals(1, rateLimiter.getBucketCount(RateLimiter.EndpointClass.TRANSACTIONS));
+
+        clock.addAndGet(SECOND);
+        assertEquals(1, rateLimiter.evictIdle());
+        assertEquals(0, rateLimiter.getBucketCount(RateLimiter.EndpointClass.TRANSACTIONS));
+    }
+}
@@ -0,0 +1,40 @@
+package com.ilyassan.albaraka.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RevocationBloomFilterTest {
+
+    @Test
+    void testAddedKeysAreAlwaysFound() {
+        RevocationBloomFilter filter = new RevocationBloomFilter(10_000, 0.001);
+
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("jti:" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("jti:" + i));
+        }
+    }
+
+    @Test
+    void testFalsePositiveRateStaysNearTarget() {
+        RevocationBloomFilter filter = new RevocationBloomFilter(10_000, 0.001);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("uid:" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("jti:" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Target is 100 of 100k
+        assertTrue(falsePositives < 300, falsePositives + " false positives");
+        assertEquals(10, filter.getHashCount());
+    }
+}
@@ -0,0 +1,126 @@
+package com.ilyassan.albaraka.service;
+
+import com.ilyassan.albaraka.dto.LockStatsResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountLockManagerTest {
+
+    @Test
+    void testStripeCountRoundedToPowerOfTwo() {
+        assertEquals(16, new AccountLockManager(10, 1000).getStats().getStripes());
+        assertEquals(16, new AccountLockManager(16, 1000).getStats().getStripes());
+        assertEquals(1, new AccountLockManager(1, 1000).getStats().getStripes());
+    }
+
+    @Test
+    void testSameAccountOperationsAreSerialized() throws Exception {
+        AccountLockManager lockManager = new AccountLockManager(64, 5000);
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        for (int i = 0; i < 200; i++) {
+            executor.submit(() -> lockManager.withLocks(List.of(42L), () -> {
+                maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                Thread.onSpinWait();
+                return inside.decrementAndGet();
+            }));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1, maxInside.get());
+        LockStatsResponse stats = lockManager.getStats();
+        assertEquals(200, stats.getAcquisitions());
+        assertEquals(0, stats.getCurrentlyLocked());
+    }
+
+    @Test
+    void testOppositeOrderMultiAccountLocksDoNotDeadlock() throws Exception {
+        AccountLockManager lockManager = new AccountLockManager(1024, 5000);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+
+        Future<?> forward = executor.submit(() -> {
+            start.await();
+            for (int i = 0; i < 5000; i++) {
+                lockManager.withLocks(List.of(1L, 2L), () -> null);
+            }
+            return null;
+        });
+        Future<?> backward = executor.submit(() -> {
+            start.await();
+            for (int i = 0; i < 5000; i++) {
+                lockManager.withLocks(List.of(2L, 1L), () -> null);
+            }
+            return null;
+        });
+        start.countDown();
+
+        forward.get(10, TimeUnit.SECONDS);
+        backward.get(10, TimeUnit.SECONDS);
+        executor.shutdown();
+    }
+
+    @Test
+    void testTimesOutAndRecordsContention() throws Exception {
+        AccountLockManager lockManager = new AccountLockManager(16, 50);
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        executor.submit(() -> lockManager.withLocks(List.of(7L), () -> {
+            held.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        held.await();
+
+        assertThrows(CannotAcquireLockException.class, () -> lockManager.withLocks(List.of(7L), () -> null));
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        LockStatsResponse stats = lockManager.getStats();
+        assertEquals(1, stats.getContendedAcquisitions());
+        assertTrue(stats.getMaxWaitMs() >= 50);
+        assertEquals(1, stats.getContentionByStripe().size());
+        assertEquals(1, lockManager.getContendedAcquisitions());
+        assertEquals(0, lockManager.getQueuedThreads());
+    }
+
+    @Test
+    void testQueuedThreadsCountsWaiters() throws Exception {
+        AccountLockManager lockManager = new AccountLockManager(16, 5000);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        Future<?> waiter = lockManager.withLocks(List.of(7L), () -> {
+            Future<?> queued = executor.submit(() -> lockManager.withLocks(List.of(7L), () -> null));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (lockManager.getQueuedThreads() == 0 && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            assertEquals(1, lockManager.getQueuedThreads());
+            return queued;
+        });
+
+        waiter.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+        assertEquals(0, lockManager.getQueuedThreads());
+    }
+}
@@ -0,0 +1,64 @@
+package com.ilyassan.albaraka.service;
+
+import com.ilyassan.albaraka.entity.Account;
+import com.ilyassan.albaraka.entity.TransactionStatus;
+import com.ilyassan.albaraka.support.ConcurrencyTestSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountServiceConcurrencyTest extends ConcurrencyTestSupport {
+
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 400;
+    private static final BigDecimal SEED_BALANCE = new BigDecimal("1000.00");
+    private static final BigDecimal AMOUNT = new BigDecimal("75.00");
+
+    private Account testAccount;
+
+    @BeforeEach
+    void setUp() {
+        testAccount = createAccount("concurrency@example.com", "ALBARAKA20251217163045CONC0001", SEED_BALANCE);
+    }
+
+    @Test
+    void testConcurrentDepositsAndWithdrawalsConserveMoney() throws Exception {
+        List<Callable<BigDecimal>> operations = new ArrayList<>();
+        for (int i = 0; i < OPERATIONS; i++) {
+            boolean deposit = i % 2 == 0;
+            operations.add(() -> {
+                try {
+                    if (deposit) {
+                        transactionService.createDeposit(testAccount.getId(), AMOUNT);
+                        return AMOUNT;
+                    }
+                    transactionService.createWithdrawal(testAccount.getId(), AMOUNT);
+                    return AMOUNT.negate();
+                } catch (IllegalArgumentException e) {
+                    assertEquals("Insufficient balance", e.getMessage());
+                    return BigDecimal.ZERO;
+                }
+            });
+        }
+
+        BigDecimal applied = runConcurrently(THREADS, operations).stream()
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        BigDecimal finalBalance = accountRepository.findById(testAccount.getId()).orElseThrow().getBalance();
+        BigDecimal recorded = transactionRepository.findByAccountIdAndStatus(testAccount.getId(), TransactionStatus.COMPLETED)
+                .stream()
+                .map(t -> "DEPOSIT".equals(t.getType()) ? t.getAmount() : t.getAmount().negate())
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        assertEquals(0, SEED_BALANCE.add(applied).compareTo(finalBalance));
+        assertEquals(0, SEED_BALANCE.add(recorded).compareTo(finalBalance));
+        assertEquals(0, finalBalance.subtract(SEED_BALANCE).compareTo(ledgerEntryRepository.sumByAccountId(testAccount.getId())));
+        assertTrue(finalBalance.signum() >= 0);
+    }
+}
@@ -13,10 +13,12 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -115,15 +117,38 @@ class AccountServiceTest {
 
     @Test
     void testUpdateBalance() {
-        when(accountRepository.findById(1L))
-                .thenReturn(Optional.of(testAccount));
-        when(accountRepository.save(any(Account.class)))
-                .thenReturn(testAccount);
+        when(accountRepository.applyBalanceDelta(eq(1L), eq(new BigDecimal("1000")), any(LocalDateTime.class)))
+                .thenReturn(1);
 
         accountService.updateBalance(1L, new BigDecimal("1000"));
 
-        verify(accountRepository, times(1)).findById(1L);
-        verify(accountRepository, times(1)).save(any(Account.class));
+        verify(accountRepository, times(1)).applyBalanceDelta(eq(1L), eq(new BigDecimal("1000")), any(LocalDateTime.class));
+        verify(accountRepository, never()).findById(anyLong());
+        verify(accountRepository, never()).save(any(Account.class));
+    }
+
+    @Test
+    void testUpdateBalanceInsufficientFunds() {
+        when(accountRepository.applyBalanceDelta(eq(1L), eq(new BigDecimal("-1000")), any(LocalDateTime.class)))
+                .thenReturn(0);
+        when(accountRepository.existsById(1L)).thenReturn(true);
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> accountService.updateBalance(1L, new BigDecimal("-1000")));
+
+        assertEquals("Insufficient balance", ex.getMessage());
+    }
+
+    @Test
+    void testUpdateBalanceAccountNotFound() {
+        when(accountRepository.applyBalanceDelta(eq(99L), any(BigDecimal.class), any(LocalDateTime.class)))
+                .thenReturn(0);
+        when(accountRepository.existsById(99L)).thenReturn(false);
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> accountService.updateBalance(99L, new BigDecimal("1000")));
+
+        assertEquals("Account not found", ex.getMessage());
     }
 
     @Test
@@ -0,0 +1,144 @@
+package com.ilyassan.albaraka.service;
+
+import com.ilyassan.albaraka.entity.BalanceCheckpoint;
+import com.ilyassan.albaraka.repository.AccountBalance;
+import com.ilyassan.albaraka.repository.AccountRepository;
+import com.ilyassan.albaraka.repository.BalanceCheckpointRepository;
+import com.ilyassan.albaraka.repository.LedgerEntryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceCheckpointServiceTest {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2025, 12, 17, 12, 0);
+
+    @Mock
+    private BalanceCheckpointRepository balanceCheckpointRepository;
+
+    @Mock
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionRetryExecutor transactionRetryExecutor;
+
+    @InjectMocks
+    private BalanceCheckpointService balanceCheckpointService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(balanceCheckpointService, "interval", Duration.ofHours(1));
+        ReflectionTestUtils.setField(balanceCheckpointService, "safetyLag", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(balanceCheckpointService, "maxIntervalsPerRun", 168);
+        lenient().when(transactionRetryExecutor.execute(any())).thenAnswer(invocation -> {
+            Supplier<?> work = invocation.getArgument(0);
+            return work.get();
+        });
+    }
+
+    @Test
+    void testGetBalanceAtAddsDeltaSinceNearestCheckpoint() {
+        LocalDateTime at = NOON.plusMinutes(20);
+        when(accountRepository.existsById(1L)).thenReturn(true);
+        when(balanceCheckpointRepository.findFirstByAccountIdAndAsOfLessThanEqualOrderByAsOfDesc(1L, at))
+                .thenReturn(Optional.of(checkpoint(1L, NOON, "1000")));
+        when(ledgerEntryRepository.sumByAccountIdBetween(1L, NOON, at)).thenReturn(new BigDecimal("-250"));
+
+        assertEquals(new BigDecimal("750"), balanceCheckpointService.getBalanceAt(1L, at));
+        verify(ledgerEntryRepository, never()).sumByAccountIdUpTo(anyLong(), any());
+    }
+
+    @Test
+    void testGetBalanceAtWithoutCheckpointSumsLedger() {
+        when(accountRepository.existsById(1L)).thenReturn(true);
+        when(balanceCheckpointRepository.findFirstByAccountIdAndAsOfLessThanEqualOrderByAsOfDesc(1L, NOON))
+                .thenReturn(Optional.empty());
+        when(ledgerEntryRepository.sumByAccountIdUpTo(1L, NOON)).thenReturn(new BigDecimal("300"));
+
+        assertEquals(new BigDecimal("300"), balanceCheckpointService.getBalanceAt(1L, NOON));
+    }
+
+    @Test
+    void testGetBalanceAtForMissingAccount() {
+        when(accountRepository.existsById(99L)).thenReturn(false);
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> balanceCheckpointService.getBalanceAt(99L, NOON));
+        assertEquals("Account not found", exception.getMessage());
+    }
+
+    @Test
+    void testCreateCheckpointsCarriesPreviousBalanceForward() {
+        when(balanceCheckpointRepository.findLatestAsOf()).thenReturn(Optional.of(NOON.minusHours(1)));
+        when(ledgerEntryRepository.sumByAccountBetween(NOON.minusHours(1), NOON))
+                .thenReturn(List.of(new AccountBalance(1L, new BigDecimal("200")), new AccountBalance(2L, new BigDecimal("-50"))));
+        when(balanceCheckpointRepository.findLatestByAccountIdIn(List.of(1L, 2L)))
+                .thenReturn(List.of(checkpoint(1L, NOON.minusHours(3), "1000")));
+
+        // 12:04 is still inside the safety lag of the 12:00 boundary
+        assertEquals(0, balanceCheckpointService.createCheckpoints(NOON.plusMinutes(4)));
+        assertEquals(2, balanceCheckpointService.createCheckpoints(NOON.plusMinutes(6)));
+
+        List<BalanceCheckpoint> saved = captureSavedCheckpoints();
+        assertEquals(NOON, saved.get(0).getAsOf());
+        assertEquals(new BigDecimal("1200"), saved.get(0).getBalance());
+        assertEquals(new BigDecimal("-50"), saved.get(1).getBalance());
+    }
+
+    @Test
+    void testCreateCheckpointsSkipsQuietIntervalsWithoutReloadingWatermark() {
+        when(balanceCheckpointRepository.findLatestAsOf()).thenReturn(Optional.of(NOON.minusHours(3)));
+        when(ledgerEntryRepository.sumByAccountBetween(any(), any())).thenReturn(List.of());
+
+        assertEquals(0, balanceCheckpointService.createCheckpoints(NOON.plusMinutes(10)));
+        assertEquals(0, balanceCheckpointService.createCheckpoints(NOON.plusHours(1).plusMinutes(10)));
+
+        verify(ledgerEntryRepository, times(4)).sumByAccountBetween(any(), any());
+        verify(balanceCheckpointRepository, times(1)).findLatestAsOf();
+        verify(balanceCheckpointRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void testCreateCheckpointsWithEmptyLedger() {
+        when(balanceCheckpointRepository.findLatestAsOf()).thenReturn(Optional.empty());
+        when(ledgerEntryRepository.findEarliestCreatedAt()).thenReturn(Optional.empty());
+
+        assertEquals(0, balanceCheckpointService.createCheckpoints(NOON));
+        verify(transactionRetryExecutor, never()).execute(any());
+    }
+
+    private BalanceCheckpoint checkpoint(Long accountId, LocalDateTime asOf, String balance) {
+        return BalanceCheckpoint.builder()
+                .accountId(accountId)
+                .asOf(asOf)
+                .balance(new BigDecimal(balance))
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<BalanceCheckpoint> captureSavedCheckpoints() {
+        ArgumentCaptor<List<BalanceCheckpoint>> captor = ArgumentCaptor.forClass(List.class);
+        verify(balanceCheckpointRepository).saveAll(captor.capture());
+        return captor.getValue();
+    }
+}
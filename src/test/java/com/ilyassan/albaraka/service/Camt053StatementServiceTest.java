@@ -0,0 +1,150 @@
+package com.ilyassan.albaraka.service;
+
+import com.ilyassan.albaraka.entity.Account;
+import com.ilyassan.albaraka.entity.Transaction;
+import com.ilyassan.albaraka.support.ConcurrencyTestSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Camt053StatementServiceTest extends ConcurrencyTestSupport {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2025, 2, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2025, 3, 1, 0, 0);
+
+    @Autowired
+    private Camt053StatementService camt053StatementService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Account account;
+    private Account counterparty;
+
+    @BeforeEach
+    void setUp() {
+        account = createAccount("camt@example.com", "ALBARAKA20251217163045CAMT0001", BigDecimal.ZERO);
+        counterparty = createAccount("camt-counterparty@example.com", "ALBARAKA20251217163045CAMT0002", BigDecimal.ZERO);
+    }
+
+    @Test
+    void testStatementBalancesAndEntries() throws Exception {
+        bookAt(transactionService.createDeposit(counterparty.getId(), new BigDecimal("1000")), LocalDateTime.of(2025, 1, 2, 9, 0));
+        bookAt(transactionService.createDeposit(account.getId(), new BigDecimal("1000")), LocalDateTime.of(2025, 1, 5, 9, 0));
+        bookAt(transactionService.createDeposit(account.getId(), new BigDecimal("500")), LocalDateTime.of(2025, 2, 3, 9, 0));
+        bookAt(transactionService.createWithdrawal(account.getId(), new BigDecimal("200")), LocalDateTime.of(2025, 2, 10, 9, 0));
+        Transaction sent = bookAt(transactionService.createTransfer(account.getId(), counterparty.getId(), new BigDecimal("100")),
+                LocalDateTime.of(2025, 2, 20, 9, 0));
+        bookAt(transactionService.createTransfer(counterparty.getId(), account.getId(), new BigDecimal("50")), LocalDateTime.of(2025, 2, 25, 9, 0));
+        bookAt(transactionService.createDeposit(account.getId(), new BigDecimal("300")), LocalDateTime.of(2025, 3, 2, 9, 0));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long entries = camt053StatementService.write(account.getId(), FROM, TO, out);
+
+        assertEquals(4, entries);
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        Document document = factory.newDocumentBuilder().parse(new ByteArrayInputStream(out.toByteArray()));
+
+        Element root = document.getDocumentElement();
+        assertEquals("Document", root.getLocalName());
+        assertEquals(Camt053StatementService.NAMESPACE, root.getNamespaceURI());
+        assertEquals("ALBARAKA20251217163045CAMT0001", text(root, "Acct", "Id"));
+
+        NodeList balances = elements(root, "Bal");
+        assertEquals("OPBD", text((Element) balances.item(0), "Cd"));
+        assertEquals("1000.00", text((Element) balances.item(0), "Amt"));
+        assertEquals("CLBD", text((Element) balances.item(1), "Cd"));
+        assertEquals("1250.00", text((Element) balances.item(1), "Amt"));
+
+        Element summary = (Element) elements(root, "TxsSummry").item(0);
+        assertEquals("4", text(summary, "NbOfNtries"));
+        assertEquals("550.00", text((Element) elements(summary, "TtlCdtNtries").item(0), "Sum"));
+        assertEquals("300.00", text((Element) elements(summary, "TtlDbtNtries").item(0), "Sum"));
+
+        NodeList entryNodes = elements(root, "Ntry");
+        assertEquals(4, entryNodes.getLength());
+        Element transfer = (Element) entryNodes.item(2);
+        assertEquals(String.valueOf(sent.getId()), text(transfer, "NtryRef"));
+        assertEquals("DBIT", text(transfer, "CdtDbtInd"));
+        assertEquals("ICDT", text(transfer, "Fmly", "Cd"));
+        Element received = (Element) entryNodes.item(3);
+        assertEquals("CRDT", text(received, "CdtDbtInd"));
+        assertEquals("RCDT", text(received, "Fmly", "Cd"));
+        assertEquals("MAD", ((Element) elements(received, "Amt").item(0)).getAttribute("Ccy"));
+    }
+
+    @Test
+    void testEmptyPeriodCarriesBalanceThrough() throws Exception {
+        bookAt(transactionService.createDeposit(account.getId(), new BigDecimal("75.25")), LocalDateTime.of(2025, 1, 5, 9, 0));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(0, camt053StatementService.write(account.getId(), FROM, TO, out));
+
+        String xml = out.toString();
+        assertTrue(xml.contains("<Cd>OPBD</Cd></CdOrPrtry></Tp><Amt Ccy=\"MAD\">75.25</Amt>"));
+        assertTrue(xml.contains("<Cd>CLBD</Cd></CdOrPrtry></Tp><Amt Ccy=\"MAD\">75.25</Amt>"));
+        assertFalse(xml.contains("<Ntry>"));
+    }
+
+    @Test
+    void testTransactionApprovedAfterThePeriodIsReportedWhenPosted() throws Exception {
+        bookAt(transactionService.createDeposit(account.getId(), new BigDecimal("1000")), LocalDateTime.of(2025, 1, 5, 9, 0));
+        // Submitted during the period but only approved, and so posted, after it ended
+        Transaction pending = transactionService.createDeposit(account.getId(), new BigDecimal("20000"));
+        jdbcTemplate.update("UPDATE transactions SET created_at = ? WHERE id = ?",
+                Timestamp.valueOf(LocalDateTime.of(2025, 2, 10, 9, 0)), pending.getId());
+        transactionService.approveTransaction(pending.getId());
+
+        ByteArrayOutputStream period = new ByteArrayOutputStream();
+        assertEquals(0, camt053StatementService.write(account.getId(), FROM, TO, period));
+        String xml = period.toString();
+        assertTrue(xml.contains("<Cd>OPBD</Cd></CdOrPrtry></Tp><Amt Ccy=\"MAD\">1000.00</Amt>"));
+        assertTrue(xml.contains("<Cd>CLBD</Cd></CdOrPrtry></Tp><Amt Ccy=\"MAD\">1000.00</Amt>"));
+
+        ByteArrayOutputStream approval = new ByteArrayOutputStream();
+        assertEquals(1, camt053StatementService.write(account.getId(), TO, LocalDateTime.now().plusDays(1), approval));
+        xml = approval.toString();
+        assertTrue(xml.contains("<Cd>OPBD</Cd></CdOrPrtry></Tp><Amt Ccy=\"MAD\">1000.00</Amt>"));
+        assertTrue(xml.contains("<Cd>CLBD</Cd></CdOrPrtry></Tp><Amt Ccy=\"MAD\">21000.00</Amt>"));
+        assertTrue(xml.contains("<NtryRef>" + pending.getId() + "</NtryRef>"));
+    }
+
+    @Test
+    void testUnknownAccountIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> camt053StatementService.write(counterparty.getId() + 1000, FROM, TO, new ByteArrayOutputStream()));
+    }
+
+    private Transaction bookAt(Transaction transaction, LocalDateTime createdAt) {
+        jdbcTemplate.update("UPDATE transactions SET created_at = ? WHERE id = ?", Timestamp.valueOf(createdAt), transaction.getId());
+        jdbcTemplate.update("UPDATE ledger_entries SET created_at = ? WHERE transaction_id = ?", Timestamp.valueOf(createdAt), transaction.getId());
+        return transaction;
+    }
+
+    private NodeList elements(Element parent, String name) {
+        return parent.getElementsByTagNameNS(Camt053StatementService.NAMESPACE, name);
+    }
+
+    private String text(Element parent, String... path) {
+        Element current = parent;
+        for (String name : path) {
+            current = (Element) elements(current, name).item(0);
+        }
+        return current.getTextContent();
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.ilyassan.albaraka.service;
+
+import com.ilyassan.albaraka.dto.FlightRecordingResponse;
+import com.ilyassan.albaraka.jfr.TransactionOperationEvent;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecordingServiceTest {
+
+    private final FlightRecordingService service = new FlightRecordingService(Duration.ofMinutes(1), 16, "default");
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (service.getCurrent().isPresent()) {
+            Files.deleteIfExists(service.stop());
+        }
+    }
+
+    @Test
+    void testRecordingCapturesApplicationEvents() throws Exception {
+        service.start(Duration.ofSeconds(30));
+
+        TransactionOperationEvent event = new TransactionOperationEvent();
+        event.begin();
+        event.operation = "create";
+        event.type = "DEPOSIT";
+        event.outcome = "completed";
+        event.commit();
+
+        Path file = service.stop();
+        try {
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                    .filter(recorded -> recorded.getEventType().getName().equals("com.ilyassan.albaraka.TransactionOperation"))
+                    .toList();
+
+            assertEquals(1, events.size());
+            assertEquals("DEPOSIT", events.get(0).getString("type"));
+            assertTrue(service.getCurrent().isEmpty());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void testDurationIsCappedAtMaximum() throws Exception {
+        FlightRecordingResponse response = service.start(Duration.ofHours(2));
+
+        assertEquals("RUNNING", response.getState());
+        assertEquals(60, response.getDurationSeconds());
+        assertEquals(16L * 1024 * 1024, response.getMaxSizeBytes());
+    }
+
+    @Test
+    void testOnlyOneRecordingRunsAtATime() throws Exception {
+        service.start(null);
+
+        assertThrows(IllegalStateException.class, () -> service.start(null));
+    }
+
+    @Test
+    void testStopWithoutRecording() {
+        assertThrows(IllegalStateException.class, service::stop);
+    }
+
+    @Test
+    void testRejectsNonPositiveDuration() {
+        assertThrows(IllegalArgumentException.class, () -> service.start(Duration.ZERO));
+    }
+}
@@ -0,0 +1,196 @@
+package com.ilyassan.albaraka.service;
+
+import com.ilyassan.albaraka.dto.TransactionResponse;
+import com.ilyassan.albaraka.entity.Transaction;
+import com.ilyassan.albaraka.mapper.TransactionMapper;
+import com.ilyassan.albaraka.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class IdempotencyServiceTest {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("500");
+
+    private TransactionRepository transactionRepository;
+
+    private TransactionMapper transactionMapper;
+
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository = mock(TransactionRepository.class);
+        transactionMapper = mock(TransactionMapper.class);
+        idempotencyService = new IdempotencyService(2);
+        ReflectionTestUtils.setField(idempotencyService, "transactionRepository", transactionRepository);
+        ReflectionTestUtils.setField(idempotencyService, "transactionMapper", transactionMapper);
+        when(transactionRepository.findByAccountIdAndIdempotencyKey(anyLong(), anyString())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void testRequestWithoutKeyAlwaysRuns() {
+        AtomicInteger executions = new AtomicInteger();
+
+        idempotencyService.execute(1L, null, "DEPOSIT", AMOUNT, null, () -> response(executions.incrementAndGet()));
+        idempotencyService.execute(1L, null, "DEPOSIT", AMOUNT, null, () -> response(executions.incrementAndGet()));
+
+        assertEquals(2, executions.get());
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void testRetryIsServedFromCache() {
+        AtomicInteger executions = new AtomicInteger();
+
+        IdempotencyService.Outcome first = idempotencyService.execute(1L, "key-1", "DEPOSIT", AMOUNT, null,
+                () -> response(executions.incrementAndGet()));
+        IdempotencyService.Outcome retry = idempotencyService.execute(1L, "key-1", "DEPOSIT", AMOUNT, null,
+                () -> response(executions.incrementAndGet()));
+
+        assertFalse(first.replayed());
+        assertTrue(retry.replayed());
+        assertSame(first.response(), retry.response());
+        assertEquals(1, executions.get());
+        verify(transactionRepository, times(1)).findByAccountIdAndIdempotencyKey(1L, "key-1");
+    }
+
+    @Test
+    void testKeysAreScopedPerAccount() {
+        AtomicInteger executions = new AtomicInteger();
+
+        idempotencyService.execute(1L, "shared", "DEPOSIT", AMOUNT, null, () -> response(executions.incrementAndGet()));
+        idempotencyService.execute(2L, "shared", "DEPOSIT", AMOUNT, null, () -> response(executions.incrementAndGet()));
+
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void testEvictedKeyIsAnsweredFromDurableStore() {
+        Transaction stored = Transaction.builder().id(7L).build();
+        TransactionResponse storedResponse = response(7L);
+
+        idempotencyService.execute(1L, "key-1", "DEPOSIT", AMOUNT, null, () -> response(7L));
+        idempotencyService.execute(1L, "key-2", "DEPOSIT", AMOUNT, null, () -> response(8L));
+        idempotencyService.execute(1L, "key-3", "DEPOSIT", AMOUNT, null, () -> response(9L));
+
+        when(transactionRepository.findByAccountIdAndIdempotencyKey(1L, "key-1")).thenReturn(Optional.of(stored));
+        when(transactionMapper.toTransactionResponse(stored)).thenReturn(storedResponse);
+
+        IdempotencyService.Outcome outcome = idempotencyService.execute(1L, "key-1", "DEPOSIT", AMOUNT, null,
+                () -> fail("Evicted key must not execute again"));
+
+        assertTrue(outcome.replayed());
+        assertEquals(7L, outcome.response().getId());
+    }
+
+    @Test
+    void testUniqueViolationFromAnotherInstanceIsReplayed() {
+        Transaction stored = Transaction.builder().id(11L).build();
+        when(transactionRepository.findByAccountIdAndIdempotencyKey(1L, "key-1"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(stored));
+        when(transactionMapper.toTransactionResponse(stored)).thenReturn(response(11L));
+
+        IdempotencyService.Outcome outcome = idempotencyService.execute(1L, "key-1", "DEPOSIT", AMOUNT, null, () -> {
+            throw new DataIntegrityViolationException("uk_transactions_account_idempotency_key");
+        });
+
+        assertTrue(outcome.replayed());
+        assertEquals(11L, outcome.response().getId());
+    }
+
+    @Test
+    void testKeyReusedForDifferentRequestIsRejected() {
+        idempotencyService.execute(1L, "key-1", "DEPOSIT", AMOUNT, null, () -> response(1L));
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> idempotencyService.execute(1L, "key-1", "DEPOSIT", new BigDecimal("600"), null, () -> response(2L)));
+        assertEquals("Idempotency-Key was already used for a different request", exception.getMessage());
+    }
+
+    @Test
+    void testFailedRequestIsNotRemembered() {
+        assertThrows(IllegalArgumentException.class, () -> idempotencyService.execute(1L, "key-1", "DEPOSIT", AMOUNT, null,
+                () -> {
+                    throw new IllegalArgumentException("Insufficient balance");
+                }));
+
+        IdempotencyService.Outcome outcome = idempotencyService.execute(1L, "key-1", "DEPOSIT", AMOUNT, null, () -> response(3L));
+        assertFalse(outcome.replayed());
+    }
+
+    @Test
+    void testConcurrentRequestsWithSameKeyExecuteOnce() throws Exception {
+        int threads = 8;
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<IdempotencyService.Outcome>> results = new ArrayList<>();
+
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> idempotencyService.execute(1L, "key-1", "DEPOSIT", AMOUNT, null, () -> {
+                executions.incrementAndGet();
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return response(42L);
+            })));
+        }
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        release.countDown();
+
+        int replayed = 0;
+        for (Future<IdempotencyService.Outcome> result : results) {
+            IdempotencyService.Outcome outcome = result.get(5, TimeUnit.SECONDS);
+            assertEquals(42L, outcome.response().getId());
+            replayed += outcome.replayed() ? 1 : 0;
+        }
+        executor.shutdown();
+
+        assertEquals(1, executions.get());
+        assertEquals(threads - 1, replayed);
+    }
+
+    @Test
+    void testOverlongKeyIsRejected() {
+        String key = "k".repeat(IdempotencyService.MAX_KEY_LENGTH + 1);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> idempotencyService.execute(1L, key, "DEPOSIT", AMOUNT, null, () -> response(1L)));
+        verify(transactionMapper, never()).toTransactionResponse(any());
+    }
+
+    private TransactionResponse response(long id) {
+        return TransactionResponse.builder()
+                .id(id)
+                .type("DEPOSIT")
+                .amount(AMOUNT)
+                .status("COMPLETED")
+                .build();
+    }
+}
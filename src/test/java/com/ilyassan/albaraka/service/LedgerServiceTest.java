@@ -0,0 +1,177 @@
+package com.ilyassan.albaraka.service;
+
+import com.ilyassan.albaraka.entity.Account;
+import com.ilyassan.albaraka.entity.EntryDirection;
+import com.ilyassan.albaraka.entity.LedgerEntry;
+import com.ilyassan.albaraka.entity.Transaction;
+import com.ilyassan.albaraka.entity.TransactionStatus;
+import com.ilyassan.albaraka.repository.AccountRepository;
+import com.ilyassan.albaraka.repository.LedgerEntryRepository;
+import com.ilyassan.albaraka.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerServiceTest {
+
+    @Mock
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Mock
+    private AccountService accountService;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @InjectMocks
+    private LedgerService ledgerService;
+
+    private Account testAccount;
+
+    @BeforeEach
+    void setUp() {
+        testAccount = Account.builder()
+                .id(1L)
+                .accountNumber("ALBARAKA202512171630459a7b8c9d")
+                .balance(new BigDecimal("5000"))
+                .build();
+    }
+
+    @Test
+    void testPostDepositWritesBalancedEntries() {
+        Transaction deposit = transaction(10L, "DEPOSIT", "500", null);
+
+        ledgerService.post(deposit);
+
+        List<LedgerEntry> entries = captureSavedEntries();
+        assertEquals(2, entries.size());
+        assertEntry(entries.get(0), null, EntryDirection.DEBIT);
+        assertEntry(entries.get(1), 1L, EntryDirection.CREDIT);
+        assertEquals(0, entries.stream().map(LedgerEntry::signedAmount).reduce(BigDecimal.ZERO, BigDecimal::add)
+                .compareTo(BigDecimal.ZERO));
+        verify(accountService).updateBalance(1L, new BigDecimal("500"));
+    }
+
+    @Test
+    void testPostTransferDebitsBeforeCrediting() {
+        Transaction transfer = transaction(11L, "TRANSFER", "750", 2L);
+
+        ledgerService.post(transfer);
+
+        InOrder inOrder = inOrder(accountService);
+        inOrder.verify(accountService).updateBalance(1L, new BigDecimal("-750"));
+        inOrder.verify(accountService).updateBalance(2L, new BigDecimal("750"));
+
+        List<LedgerEntry> entries = captureSavedEntries();
+        assertEntry(entries.get(0), 1L, EntryDirection.DEBIT);
+        assertEntry(entries.get(1), 2L, EntryDirection.CREDIT);
+    }
+
+    @Test
+    void testPostDoesNotWriteEntriesWhenDebitFails() {
+        Transaction withdrawal = transaction(12L, "WITHDRAWAL", "9000", null);
+        doThrow(new IllegalArgumentException("Insufficient balance"))
+                .when(accountService).updateBalance(1L, new BigDecimal("-9000"));
+
+        assertThrows(IllegalArgumentException.class, () -> ledgerService.post(withdrawal));
+        verify(ledgerEntryRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void testPostAllAppliesNetDeltasOnce() {
+        ledgerService.postAll(List.of(
+                transaction(20L, "DEPOSIT", "100", null),
+                transaction(21L, "TRANSFER", "40", 2L),
+                transaction(22L, "WITHDRAWAL", "10", null)));
+
+        verify(accountService).applyBalanceDeltas(Map.of(1L, new BigDecimal("50"), 2L, new BigDecimal("40")));
+        verify(accountService, never()).updateBalance(anyLong(), any());
+        assertEquals(6, captureSavedEntries().size());
+    }
+
+    @Test
+    void testPostOpeningBalancesBooksOnlyWhatTransactionsDoNotExplain() {
+        LocalDateTime openedAt = LocalDateTime.of(2024, 1, 1, 0, 0);
+        testAccount.setCreatedAt(openedAt);
+        Account alreadyOpened = Account.builder().id(2L).balance(new BigDecimal("300")).build();
+        when(ledgerEntryRepository.findOpenedAccountIdsIn(List.of(1L, 2L))).thenReturn(List.of(2L));
+        when(transactionRepository.findUnpostedByAccountIdIn(List.of(1L, 2L)))
+                .thenReturn(List.of(transaction(10L, "DEPOSIT", "2000", null)));
+        when(ledgerEntryRepository.sumByAccountId(1L)).thenReturn(new BigDecimal("500"));
+        when(accountRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(testAccount, alreadyOpened));
+
+        assertEquals(1, ledgerService.postOpeningBalances(List.of(1L, 2L)));
+
+        verify(accountRepository).lockBalancesByIdIn(List.of(1L, 2L));
+        List<LedgerEntry> entries = captureSavedEntries();
+        assertEquals(2, entries.size());
+        assertEntry(entries.get(0), null, EntryDirection.DEBIT);
+        assertEntry(entries.get(1), 1L, EntryDirection.CREDIT);
+        assertNull(entries.get(1).getTransactionId());
+        // 5000 held, 500 already in the ledger, 2000 from a deposit still to be backfilled
+        assertEquals(0, new BigDecimal("2500").compareTo(entries.get(1).getAmount()));
+        assertEquals(openedAt, entries.get(1).getCreatedAt());
+        verifyNoInteractions(accountService);
+    }
+
+    @Test
+    void testBackfillPostsOldTransactionsAtTheirOwnTimeWithoutTouchingBalances() {
+        LocalDateTime completedAt = LocalDateTime.of(2024, 6, 1, 12, 0);
+        Transaction transfer = transaction(10L, "TRANSFER", "700", 2L);
+        transfer.setUpdatedAt(completedAt);
+        Transaction alreadyPosted = transaction(11L, "DEPOSIT", "100", null);
+        when(transactionRepository.findAllByIdForUpdate(List.of(10L, 11L))).thenReturn(List.of(transfer, alreadyPosted));
+        when(ledgerEntryRepository.findPostedTransactionIdsIn(List.of(10L, 11L))).thenReturn(List.of(11L));
+
+        assertEquals(1, ledgerService.backfill(List.of(10L, 11L)));
+
+        List<LedgerEntry> entries = captureSavedEntries();
+        assertEquals(2, entries.size());
+        assertEntry(entries.get(0), 1L, EntryDirection.DEBIT);
+        assertEntry(entries.get(1), 2L, EntryDirection.CREDIT);
+        assertEquals(completedAt, entries.get(0).getCreatedAt());
+        assertEquals(10L, entries.get(1).getTransactionId());
+        verifyNoInteractions(accountService);
+    }
+
+    private Transaction transaction(Long id, String type, String amount, Long beneficiaryAccountId) {
+        return Transaction.builder()
+                .id(id)
+                .account(testAccount)
+                .type(type)
+                .amount(new BigDecimal(amount))
+                .beneficiaryAccountId(beneficiaryAccountId)
+                .status(TransactionStatus.COMPLETED)
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<LedgerEntry> captureSavedEntries() {
+        ArgumentCaptor<List<LedgerEntry>> captor = ArgumentCaptor.forClass(List.class);
+        verify(ledgerEntryRepository).saveAll(captor.capture());
+        return captor.getValue();
+    }
+
+    private void assertEntry(LedgerEntry entry, Long accountId, EntryDirection direction) {
+        assertEquals(accountId, entry.getAccountId());
+        assertEquals(direction, entry.getDirection());
+    }
+}
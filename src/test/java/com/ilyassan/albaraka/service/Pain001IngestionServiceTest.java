@@ -0,0 +1,189 @@
+package com.ilyassan.albaraka.service;
+
+import com.ilyassan.albaraka.entity.Account;
+import com.ilyassan.albaraka.support.ConcurrencyTestSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Pain001IngestionServiceTest extends ConcurrencyTestSupport {
+
+    private static final String DEBTOR = "ALBARAKA20251217163045PAIN0001";
+    private static final String CREDITOR = "ALBARAKA20251217163045PAIN0002";
+
+    @Autowired
+    private Pain001IngestionService pain001IngestionService;
+
+    private Account debtor;
+    private Account creditor;
+
+    @BeforeEach
+    void setUp() {
+        // Small chunks so that a file spans several database transactions
+        ReflectionTestUtils.setField(pain001IngestionService, "chunkSize", 2);
+        debtor = createAccount("pain-debtor@example.com", DEBTOR, new BigDecimal("1000"));
+        creditor = createAccount("pain-creditor@example.com", CREDITOR, BigDecimal.ZERO);
+    }
+
+    @AfterEach
+    void resetChunkSize() {
+        ReflectionTestUtils.setField(pain001IngestionService, "chunkSize", 500);
+    }
+
+    @Test
+    void testIngestBooksValidPaymentsAndReportsEveryStatus() throws Exception {
+        String file = document("MSG-1",
+                paymentInformation("PMT-1", DEBTOR,
+                        transfer("E2E-1", "MAD", "100.00", CREDITOR),
+                        transfer("E2E-2", "MAD", "50.00", "ALBARAKA20251217163045UNKNOWN0"),
+                        transfer("E2E-3", "EUR", "10.00", CREDITOR),
+                        transfer("E2E-4", "MAD", "5000.00", CREDITOR),
+                        transfer("E2E-5", "MAD", "200.50", CREDITOR)),
+                paymentInformation("PMT-2", CREDITOR,
+                        transfer("E2E-6", "MAD", "1.00", DEBTOR)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Pain001IngestionService.Result result = pain001IngestionService.ingest(debtor,
+                new ByteArrayInputStream(file.getBytes(StandardCharsets.UTF_8)), out);
+
+        assertEquals("MSG-1", result.messageId());
+        assertEquals(6, result.payments());
+        assertEquals(2, result.completed());
+        assertEquals(0, result.pending());
+        assertEquals(4, result.rejected());
+
+        assertEquals(0, new BigDecimal("699.50").compareTo(accountRepository.findById(debtor.getId()).orElseThrow().getBalance()));
+        assertEquals(0, new BigDecimal("300.50").compareTo(accountRepository.findById(creditor.getId()).orElseThrow().getBalance()));
+        assertEquals(2, transactionRepository.count());
+
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        Document report = factory.newDocumentBuilder().parse(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(Pain001IngestionService.PAIN_002_NAMESPACE, report.getDocumentElement().getNamespaceURI());
+        assertEquals("MSG-1", text(report.getDocumentElement(), "OrgnlMsgId"));
+        assertEquals(2, elements(report.getDocumentElement(), "OrgnlPmtInfAndSts").getLength());
+
+        NodeList statuses = elements(report.getDocumentElement(), "TxInfAndSts");
+        assertEquals(6, statuses.getLength());
+        assertStatus(statuses, 0, "E2E-1", "ACSC", null);
+        assertStatus(statuses, 1, "E2E-2", "RJCT", "AC01");
+        assertStatus(statuses, 2, "E2E-3", "RJCT", "AM03");
+        assertStatus(statuses, 3, "E2E-4", "RJCT", "AM04");
+        assertStatus(statuses, 4, "E2E-5", "ACSC", null);
+        assertStatus(statuses, 5, "E2E-6", "RJCT", "AC01");
+        assertFalse(text((Element) statuses.item(0), "AcctSvcrRef").isEmpty());
+    }
+
+    @Test
+    void testReuploadedFileDoesNotBookPaymentsTwice() throws Exception {
+        String file = document("MSG-2",
+                paymentInformation("PMT-1", DEBTOR,
+                        transfer("E2E-1", "MAD", "100.00", CREDITOR),
+                        transfer("E2E-1", "MAD", "100.00", CREDITOR),
+                        transfer("E2E-2", "MAD", "900.00", CREDITOR)));
+
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        Pain001IngestionService.Result firstResult = pain001IngestionService.ingest(debtor,
+                new ByteArrayInputStream(file.getBytes(StandardCharsets.UTF_8)), first);
+
+        assertEquals(2, firstResult.completed());
+        assertEquals(1, firstResult.rejected());
+        assertStatus(statuses(first), 1, "E2E-1", "RJCT", "AM05");
+
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        Pain001IngestionService.Result secondResult = pain001IngestionService.ingest(debtor,
+                new ByteArrayInputStream(file.getBytes(StandardCharsets.UTF_8)), second);
+
+        assertEquals(0, secondResult.completed());
+        assertEquals(3, secondResult.rejected());
+        NodeList statuses = statuses(second);
+        assertStatus(statuses, 0, "E2E-1", "RJCT", "AM05");
+        assertStatus(statuses, 2, "E2E-2", "RJCT", "AM05");
+
+        assertEquals(2, transactionRepository.count());
+        assertEquals(0, BigDecimal.ZERO.compareTo(accountRepository.findById(debtor.getId()).orElseThrow().getBalance()));
+        assertEquals(0, new BigDecimal("1000.00").compareTo(accountRepository.findById(creditor.getId()).orElseThrow().getBalance()));
+    }
+
+    @Test
+    void testChunkSizeAboveTheBatchMaximumIsRefused() {
+        ReflectionTestUtils.setField(pain001IngestionService, "chunkSize", 501);
+        assertThrows(IllegalStateException.class, () -> pain001IngestionService.validateChunkSize());
+
+        ReflectionTestUtils.setField(pain001IngestionService, "chunkSize", 0);
+        assertThrows(IllegalStateException.class, () -> pain001IngestionService.validateChunkSize());
+    }
+
+    @Test
+    void testIngestRejectsOtherDocuments() {
+        String camt = "<Document xmlns=\"urn:iso:std:iso:20022:tech:xsd:camt.053.001.02\"><BkToCstmrStmt/></Document>";
+
+        assertThrows(IllegalArgumentException.class, () -> pain001IngestionService.ingest(debtor,
+                new ByteArrayInputStream(camt.getBytes(StandardCharsets.UTF_8)), new ByteArrayOutputStream()));
+        assertThrows(IllegalArgumentException.class, () -> pain001IngestionService.ingest(debtor,
+                new ByteArrayInputStream("<Document".getBytes(StandardCharsets.UTF_8)), new ByteArrayOutputStream()));
+        assertEquals(0, transactionRepository.count());
+    }
+
+    static String document(String messageId, String... paymentInformation) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                + "<Document xmlns=\"" + Pain001IngestionService.PAIN_001_NAMESPACE + "\"><CstmrCdtTrfInitn>"
+                + "<GrpHdr><MsgId>" + messageId + "</MsgId><CreDtTm>2025-12-17T10:00:00</CreDtTm>"
+                + "<InitgPty><Nm>ACME</Nm><Id><OrgId><Othr><Id>ACME-1</Id></Othr></OrgId></Id></InitgPty></GrpHdr>"
+                + String.join("", paymentInformation)
+                + "</CstmrCdtTrfInitn></Document>";
+    }
+
+    static String paymentInformation(String id, String debtorAccount, String... transfers) {
+        return "<PmtInf><PmtInfId>" + id + "</PmtInfId><PmtMtd>TRF</PmtMtd><ReqdExctnDt>2025-12-17</ReqdExctnDt>"
+                + "<Dbtr><Nm>ACME</Nm></Dbtr><DbtrAcct><Id><Othr><Id>" + debtorAccount + "</Id></Othr></Id></DbtrAcct>"
+                + "<DbtrAgt><FinInstnId><BIC>ALBKMAMC</BIC></FinInstnId></DbtrAgt>"
+                + String.join("", transfers)
+                + "</PmtInf>";
+    }
+
+    static String transfer(String endToEndId, String currency, String amount, String creditorAccount) {
+        return "<CdtTrfTxInf><PmtId><EndToEndId>" + endToEndId + "</EndToEndId></PmtId>"
+                + "<Amt><InstdAmt Ccy=\"" + currency + "\">" + amount + "</InstdAmt></Amt>"
+                + "<Cdtr><Nm>Supplier</Nm></Cdtr><CdtrAcct><Id><Othr><Id>" + creditorAccount + "</Id></Othr></Id></CdtrAcct>"
+                + "</CdtTrfTxInf>";
+    }
+
+    private void assertStatus(NodeList statuses, int index, String endToEndId, String status, String reason) {
+        Element element = (Element) statuses.item(index);
+        assertEquals(endToEndId, text(element, "OrgnlEndToEndId"));
+        assertEquals(status, text(element, "TxSts"));
+        if (reason != null) {
+            assertEquals(reason, text(element, "Cd"));
+        }
+    }
+
+    private NodeList statuses(ByteArrayOutputStream out) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        Document report = factory.newDocumentBuilder().parse(new ByteArrayInputStream(out.toByteArray()));
+        return elements(report.getDocumentElement(), "TxInfAndSts");
+    }
+
+    private NodeList elements(Element parent, String name) {
+        return parent.getElementsByTagNameNS(Pain001IngestionService.PAIN_002_NAMESPACE, name);
+    }
+
+    private String text(Element parent, String name) {
+        return elements(parent, name).item(0).getTextContent();
+    }
+
+}
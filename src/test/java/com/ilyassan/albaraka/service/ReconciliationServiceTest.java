@@ -0,0 +1,161 @@
+package com.ilyassan.albaraka.service;
+
+import com.ilyassan.albaraka.entity.Account;
+import com.ilyassan.albaraka.entity.ReconciliationDiscrepancy;
+import com.ilyassan.albaraka.entity.ReconciliationRun;
+import com.ilyassan.albaraka.entity.ReconciliationStatus;
+import com.ilyassan.albaraka.entity.User;
+import com.ilyassan.albaraka.entity.UserRole;
+import com.ilyassan.albaraka.repository.AccountRepository;
+import com.ilyassan.albaraka.repository.LedgerEntryRepository;
+import com.ilyassan.albaraka.repository.ReconciliationDiscrepancyRepository;
+import com.ilyassan.albaraka.repository.ReconciliationRunRepository;
+import com.ilyassan.albaraka.repository.TransactionRepository;
+import com.ilyassan.albaraka.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ReconciliationServiceTest {
+
+    private static final int ACCOUNTS = 12;
+
+    @Autowired
+    private ReconciliationService reconciliationService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private ReconciliationRunRepository reconciliationRunRepository;
+
+    @Autowired
+    private ReconciliationDiscrepancyRepository reconciliationDiscrepancyRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<Account> accounts = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+
+        for (int i = 0; i < ACCOUNTS; i++) {
+            User user = userRepository.save(User.builder()
+                    .email("reconcile" + i + "@example.com")
+                    .password("password")
+                    .firstName("John")
+                    .lastName("Doe")
+                    .role(UserRole.CLIENT)
+                    .enabled(true)
+                    .build());
+
+            accounts.add(accountRepository.save(Account.builder()
+                    .accountNumber(String.format("ALBARAKA20251217163045RECN%04d", i))
+                    .user(user)
+                    .balance(BigDecimal.ZERO)
+                    .build()));
+        }
+
+        // Small ranges so that the id space is split across several fork/join tasks
+        ReflectionTestUtils.setField(reconciliationService, "rangeSize", 3L);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        ReflectionTestUtils.setField(reconciliationService, "rangeSize", 10000L);
+        reconciliationDiscrepancyRepository.deleteAllInBatch();
+        reconciliationRunRepository.deleteAllInBatch();
+        ledgerEntryRepository.deleteAllInBatch();
+        transactionRepository.deleteAll();
+        accountRepository.deleteAll();
+        userRepository.deleteAll();
+        accounts.clear();
+    }
+
+    @Test
+    void testReconciliationReportsOnlyDriftedAccounts() throws Exception {
+        for (Account account : accounts) {
+            transactionService.createDeposit(account.getId(), new BigDecimal("500"));
+        }
+        transactionService.createTransfer(accounts.get(0).getId(), accounts.get(1).getId(), new BigDecimal("120"));
+        transactionService.createWithdrawal(accounts.get(2).getId(), new BigDecimal("80"));
+
+        // Move money outside the transaction history
+        Long drifted = accounts.get(7).getId();
+        accountService.updateBalance(drifted, new BigDecimal("35.50"));
+
+        ReconciliationRun run = awaitCompletion(reconciliationService.startRun().getId());
+
+        assertEquals(ReconciliationStatus.COMPLETED, run.getStatus());
+        assertEquals(run.getTotalRanges(), run.getCompletedRanges());
+        assertEquals(ACCOUNTS, run.getAccountsChecked());
+        assertEquals(1, run.getDiscrepancies());
+
+        List<ReconciliationDiscrepancy> discrepancies =
+                reconciliationService.getDiscrepancies(run.getId(), PageRequest.of(0, 10)).getContent();
+        assertEquals(1, discrepancies.size());
+        assertEquals(drifted, discrepancies.get(0).getAccountId());
+        assertEquals(0, new BigDecimal("535.50").compareTo(discrepancies.get(0).getRecordedBalance()));
+        assertEquals(0, new BigDecimal("500").compareTo(discrepancies.get(0).getExpectedBalance()));
+        assertEquals(0, new BigDecimal("35.50").compareTo(discrepancies.get(0).getDifference()));
+    }
+
+    @Test
+    void testOnlyOneRunAtATime() throws Exception {
+        Long runId = reconciliationService.startRun().getId();
+        try {
+            reconciliationService.startRun();
+            // The first run may already have finished on a fast machine; then the second start is legitimate
+            assertNotEquals(ReconciliationStatus.RUNNING, reconciliationRunRepository.findById(runId).orElseThrow().getStatus());
+        } catch (IllegalStateException e) {
+            assertEquals("Reconciliation already running", e.getMessage());
+        }
+        awaitIdle();
+    }
+
+    private ReconciliationRun awaitCompletion(Long runId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (System.currentTimeMillis() < deadline) {
+            ReconciliationRun run = reconciliationService.getRun(runId).orElseThrow();
+            if (run.getStatus() != ReconciliationStatus.RUNNING) {
+                return run;
+            }
+            Thread.sleep(20);
+        }
+        fail("Reconciliation run " + runId + " did not finish in time");
+        return null;
+    }
+
+    private void awaitIdle() throws InterruptedException {
+        for (ReconciliationRun run : reconciliationRunRepository.findAll()) {
+            awaitCompletion(run.getId());
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.ilyassan.albaraka.service;
+
+import com.ilyassan.albaraka.entity.UserRole;
+import com.ilyassan.albaraka.repository.TokenRevocationRepository;
+import com.ilyassan.albaraka.security.VerifiedTokenCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationServiceTest {
+
+    @Mock
+    private TokenRevocationRepository tokenRevocationRepository;
+
+    private TokenRevocationService tokenRevocationService;
+
+    @BeforeEach
+    void setUp() {
+        tokenRevocationService = new TokenRevocationService(1000, 0.001);
+        ReflectionTestUtils.setField(tokenRevocationService, "tokenRevocationRepository", tokenRevocationRepository);
+        ReflectionTestUtils.setField(tokenRevocationService, "accessTokenTtl", Duration.ofMinutes(15));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testRevocationCommittedDuringRebuildIsKept() {
+        long expiresAt = System.currentTimeMillis() + 60_000;
+
+        // Revoked in a transaction that has not committed yet when the rebuild starts
+        TransactionSynchronizationManager.initSynchronization();
+        tokenRevocationService.revokeToken("token-1", expiresAt);
+        List<TransactionSynchronization> commit = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        // The rebuild reads the table before the row is visible, and the transaction commits right after
+        when(tokenRevocationRepository.findActiveKeys(any())).thenAnswer(invocation -> {
+            commit.forEach(TransactionSynchronization::afterCommit);
+            return List.of();
+        });
+        when(tokenRevocationRepository.findLatestRevokedAt(eq("jti:token-1"), any()))
+                .thenReturn(Optional.of(LocalDateTime.now()));
+
+        assertEquals(0, tokenRevocationService.rebuild());
+        assertTrue(tokenRevocationService.isRevoked(token("token-1", expiresAt)));
+    }
+
+    @Test
+    void testRebuildDropsRevocationsNoLongerInTheTable() {
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        tokenRevocationService.revokeToken("token-2", expiresAt);
+        when(tokenRevocationRepository.findActiveKeys(any())).thenReturn(List.of());
+
+        tokenRevocationService.rebuild();
+
+        // The filter no longer sends the token to the table at all
+        assertFalse(tokenRevocationService.isRevoked(token("token-2", expiresAt)));
+        assertEquals(0, tokenRevocationService.getFilterHitCount());
+    }
+
+    private VerifiedTokenCache.VerifiedToken token(String tokenId, long expiresAt) {
+        return new VerifiedTokenCache.VerifiedToken("client@example.com", tokenId, null, UserRole.CLIENT, null,
+                System.currentTimeMillis(), expiresAt);
+    }
+}
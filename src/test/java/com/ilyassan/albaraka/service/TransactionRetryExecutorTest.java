@@ -0,0 +1,77 @@
+package com.ilyassan.albaraka.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionRetryExecutorTest {
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionRetryExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        executor = new TransactionRetryExecutor(transactionManager, 3, 1, 2);
+    }
+
+    @Test
+    void testRetriesConcurrencyFailureUntilSuccess() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = executor.execute(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new CannotAcquireLockException("deadlock detected");
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(3, attempts.get());
+        verify(transactionManager, times(2)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+        assertEquals(2, executor.getRetryCount());
+        assertEquals(0, executor.getExhaustedCount());
+    }
+
+    @Test
+    void testGivesUpAfterMaxAttempts() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(PessimisticLockingFailureException.class, () -> executor.execute(() -> {
+            attempts.incrementAndGet();
+            throw new PessimisticLockingFailureException("could not serialize access");
+        }));
+
+        assertEquals(3, attempts.get());
+        assertEquals(2, executor.getRetryCount());
+        assertEquals(1, executor.getExhaustedCount());
+    }
+
+    @Test
+    void testDoesNotRetryBusinessErrors() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(IllegalArgumentException.class, () -> executor.execute(() -> {
+            attempts.incrementAndGet();
+            throw new IllegalArgumentException("Insufficient balance");
+        }));
+
+        assertEquals(1, attempts.get());
+    }
+}
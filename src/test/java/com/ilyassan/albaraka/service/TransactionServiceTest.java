@@ -1,24 +1,33 @@
 package com.ilyassan.albaraka.service;
 
+import com.ilyassan.albaraka.dto.TransactionRequest;
 import com.ilyassan.albaraka.entity.Account;
 import com.ilyassan.albaraka.entity.Transaction;
 import com.ilyassan.albaraka.entity.TransactionStatus;
 import com.ilyassan.albaraka.entity.User;
 import com.ilyassan.albaraka.entity.UserRole;
+import com.ilyassan.albaraka.repository.AccountBalance;
 import com.ilyassan.albaraka.repository.AccountRepository;
 import com.ilyassan.albaraka.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,7 +40,16 @@ class TransactionServiceTest {
     private AccountRepository accountRepository;
 
     @Mock
-    private AccountService accountService;
+    private LedgerService ledgerService;
+
+    @Mock
+    private TransactionRetryExecutor transactionRetryExecutor;
+
+    @Spy
+    private AccountLockManager accountLockManager = new AccountLockManager(16, 1000);
+
+    @Spy
+    private TransactionMetrics transactionMetrics = new TransactionMetrics(new SimpleMeterRegistry());
 
     @InjectMocks
     private TransactionService transactionService;
@@ -42,6 +60,9 @@ class TransactionServiceTest {
 
     @BeforeEach
     void setUp() {
+        lenient().when(transactionRetryExecutor.execute(any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+
         testUser = User.builder()
                 .id(1L)
                 .email("test@example.com")
@@ -86,7 +107,7 @@ class TransactionServiceTest {
         assertEquals(TransactionStatus.COMPLETED, result.getStatus());
         assertEquals("DEPOSIT", result.getType());
         assertEquals(new BigDecimal("5000"), result.getAmount());
-        verify(accountService, times(1)).updateBalance(1L, new BigDecimal("5000"));
+        verify(ledgerService, times(1)).post(depositTransaction);
     }
 
     @Test
@@ -105,7 +126,7 @@ class TransactionServiceTest {
         Transaction result = transactionService.createDeposit(1L, new BigDecimal("15000"));
 
         assertEquals(TransactionStatus.PENDING, result.getStatus());
-        verify(accountService, never()).updateBalance(anyLong(), any());
+        verify(ledgerService, never()).post(any());
     }
 
     @Test
@@ -116,7 +137,7 @@ class TransactionServiceTest {
         Transaction result = transactionService.createWithdrawal(1L, new BigDecimal("2000"));
 
         assertEquals(TransactionStatus.COMPLETED, result.getStatus());
-        verify(accountService, times(1)).updateBalance(1L, new BigDecimal("-2000"));
+        verify(ledgerService, times(1)).post(testTransaction);
     }
 
     @Test
@@ -147,15 +168,50 @@ class TransactionServiceTest {
                 .status(TransactionStatus.COMPLETED)
                 .build();
 
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(testAccount));
-        when(accountRepository.findById(2L)).thenReturn(Optional.of(beneficiaryAccount));
+        when(accountRepository.lockBalanceById(1L)).thenReturn(Optional.of(testAccount.getBalance()));
+        when(accountRepository.lockBalanceById(2L)).thenReturn(Optional.of(beneficiaryAccount.getBalance()));
+        when(accountRepository.getReferenceById(1L)).thenReturn(testAccount);
         when(transactionRepository.save(any(Transaction.class))).thenReturn(transferTransaction);
 
         Transaction result = transactionService.createTransfer(1L, 2L, new BigDecimal("1000"));
 
         assertEquals(TransactionStatus.COMPLETED, result.getStatus());
         assertEquals("TRANSFER", result.getType());
-        verify(accountService, times(2)).updateBalance(anyLong(), any());
+        verify(ledgerService, times(1)).post(transferTransaction);
+    }
+
+    @Test
+    void testCreateTransferLocksAccountsInIdOrder() {
+        when(accountRepository.lockBalanceById(1L)).thenReturn(Optional.of(BigDecimal.ZERO));
+        when(accountRepository.lockBalanceById(2L)).thenReturn(Optional.of(new BigDecimal("5000")));
+        when(accountRepository.getReferenceById(2L)).thenReturn(testAccount);
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        transactionService.createTransfer(2L, 1L, new BigDecimal("1000"));
+
+        InOrder inOrder = inOrder(accountRepository, ledgerService);
+        inOrder.verify(accountRepository).lockBalanceById(1L);
+        inOrder.verify(accountRepository).lockBalanceById(2L);
+        inOrder.verify(ledgerService).post(any(Transaction.class));
+    }
+
+    @Test
+    void testCreateTransferInsufficientBalanceUnderLock() {
+        when(accountRepository.lockBalanceById(1L)).thenReturn(Optional.of(new BigDecimal("100")));
+        when(accountRepository.lockBalanceById(2L)).thenReturn(Optional.of(BigDecimal.ZERO));
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            transactionService.createTransfer(1L, 2L, new BigDecimal("1000"));
+        });
+        verify(ledgerService, never()).post(any());
+    }
+
+    @Test
+    void testCreateTransferToSameAccount() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            transactionService.createTransfer(1L, 1L, new BigDecimal("1000"));
+        });
+        verify(transactionRetryExecutor, never()).execute(any());
     }
 
     @Test
@@ -177,12 +233,14 @@ class TransactionServiceTest {
                 .build();
 
         when(transactionRepository.findById(1L)).thenReturn(Optional.of(pendingTransaction));
+        when(transactionRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(pendingTransaction));
         when(transactionRepository.save(any(Transaction.class))).thenReturn(approvedTransaction);
 
         Transaction result = transactionService.approveTransaction(1L);
 
         assertEquals(TransactionStatus.COMPLETED, result.getStatus());
         verify(transactionRepository, times(1)).save(any(Transaction.class));
+        verify(ledgerService, times(1)).post(approvedTransaction);
     }
 
     @Test
@@ -203,7 +261,7 @@ class TransactionServiceTest {
                 .status(TransactionStatus.REJECTED)
                 .build();
 
-        when(transactionRepository.findById(1L)).thenReturn(Optional.of(pendingTransaction));
+        when(transactionRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(pendingTransaction));
         when(transactionRepository.save(any(Transaction.class))).thenReturn(rejectedTransaction);
 
         Transaction result = transactionService.rejectTransaction(1L);
@@ -219,4 +277,42 @@ class TransactionServiceTest {
             transactionService.approveTransaction(1L);
         });
     }
+
+    @Test
+    void testCreateBatchFailsBadItemsIndividually() {
+        ReflectionTestUtils.setField(transactionService, "batchMaxSize", 10);
+        when(accountRepository.lockBalancesByIdIn(any())).thenReturn(List.of(
+                new AccountBalance(1L, new BigDecimal("1000")),
+                new AccountBalance(2L, BigDecimal.ZERO)));
+        when(accountRepository.getReferenceById(1L)).thenReturn(testAccount);
+        when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<TransactionRequest> items = List.of(
+                TransactionRequest.builder().type("DEPOSIT").amount(new BigDecimal("500")).build(),
+                TransactionRequest.builder().type("TRANSFER").amount(new BigDecimal("1200")).beneficiaryAccountId(2L).build(),
+                TransactionRequest.builder().type("WITHDRAWAL").amount(new BigDecimal("2000")).build(),
+                TransactionRequest.builder().type("REFUND").amount(new BigDecimal("10")).build(),
+                TransactionRequest.builder().type("TRANSFER").amount(new BigDecimal("10")).beneficiaryAccountId(3L).build());
+
+        List<TransactionService.BatchItemOutcome> outcomes = transactionService.createBatch(1L, items);
+
+        assertEquals(5, outcomes.size());
+        assertTrue(outcomes.get(0).isSuccess());
+        assertTrue(outcomes.get(1).isSuccess());
+        assertEquals("Insufficient balance", outcomes.get(2).error());
+        assertEquals("Type must be one of DEPOSIT, WITHDRAWAL or TRANSFER", outcomes.get(3).error());
+        assertEquals("Beneficiary account not found", outcomes.get(4).error());
+        verify(ledgerService).postAll(argThat(posted -> posted.size() == 2));
+    }
+
+    @Test
+    void testCreateBatchRejectsOversizedBatch() {
+        ReflectionTestUtils.setField(transactionService, "batchMaxSize", 1);
+        List<TransactionRequest> items = List.of(
+                TransactionRequest.builder().type("DEPOSIT").amount(BigDecimal.ONE).build(),
+                TransactionRequest.builder().type("DEPOSIT").amount(BigDecimal.ONE).build());
+
+        assertThrows(IllegalArgumentException.class, () -> transactionService.createBatch(1L, items));
+        verify(transactionRepository, never()).saveAll(anyList());
+    }
 }
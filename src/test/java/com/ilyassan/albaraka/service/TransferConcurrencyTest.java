@@ -0,0 +1,69 @@
+package com.ilyassan.albaraka.service;
+
+import com.ilyassan.albaraka.entity.Account;
+import com.ilyassan.albaraka.support.ConcurrencyTestSupport;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+class TransferConcurrencyTest extends ConcurrencyTestSupport {
+
+    private static final int THREADS = 8;
+    private static final int TRANSFERS = 400;
+    private static final BigDecimal SEED_BALANCE = new BigDecimal("2000.00");
+    private static final BigDecimal AMOUNT = new BigDecimal("40.00");
+
+    private Account first;
+    private Account second;
+
+    @BeforeEach
+    void setUp() {
+        first = createAccount("first@example.com", "ALBARAKA20251217163045XFER0001", SEED_BALANCE);
+        second = createAccount("second@example.com", "ALBARAKA20251217163045XFER0002", SEED_BALANCE);
+    }
+
+    @Test
+    void testOpposingTransfersNeitherDeadlockNorOverdraw() throws Exception {
+        List<Callable<Boolean>> transfers = new ArrayList<>();
+        for (int i = 0; i < TRANSFERS; i++) {
+            Long from = i % 2 == 0 ? first.getId() : second.getId();
+            Long to = i % 2 == 0 ? second.getId() : first.getId();
+            transfers.add(() -> {
+                try {
+                    transactionService.createTransfer(from, to, AMOUNT);
+                    return true;
+                } catch (IllegalArgumentException e) {
+                    assertEquals("Insufficient balance", e.getMessage());
+                    return false;
+                }
+            });
+        }
+
+        long start = System.nanoTime();
+        long completed = runConcurrently(THREADS, transfers).stream().filter(Boolean::booleanValue).count();
+        long elapsedNanos = System.nanoTime() - start;
+
+        log.info("Opposing transfers: {} submitted, {} completed on {} threads in {} ms ({} transfers/s)",
+                TRANSFERS, completed, THREADS, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                Math.round(TRANSFERS / (elapsedNanos / 1e9)));
+
+        BigDecimal firstBalance = accountRepository.findById(first.getId()).orElseThrow().getBalance();
+        BigDecimal secondBalance = accountRepository.findById(second.getId()).orElseThrow().getBalance();
+
+        assertEquals(0, SEED_BALANCE.add(SEED_BALANCE).compareTo(firstBalance.add(secondBalance)));
+        assertTrue(firstBalance.signum() >= 0);
+        assertTrue(secondBalance.signum() >= 0);
+        assertEquals(completed, transactionRepository.count());
+        assertEquals(0, firstBalance.subtract(SEED_BALANCE).compareTo(ledgerEntryRepository.sumByAccountId(first.getId())));
+        assertEquals(0, secondBalance.subtract(SEED_BALANCE).compareTo(ledgerEntryRepository.sumByAccountId(second.getId())));
+    }
+}
@@ -3,6 +3,7 @@ package com.ilyassan.albaraka.service;
 import com.ilyassan.albaraka.entity.User;
 import com.ilyassan.albaraka.entity.UserRole;
 import com.ilyassan.albaraka.repository.UserRepository;
+import com.ilyassan.albaraka.security.PrincipalCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -32,6 +33,15 @@ class UserServiceTest {
     @Mock
     private AccountService accountService;
 
+    @Mock
+    private PrincipalCache principalCache;
+
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
     @InjectMocks
     private UserService userService;
 
@@ -156,6 +166,7 @@ class UserServiceTest {
 
         assertNotNull(result);
         verify(userRepository, times(1)).save(any(User.class));
+        verify(principalCache).invalidate("test@example.com");
     }
 
     @Test
@@ -175,6 +186,9 @@ class UserServiceTest {
         userService.deactivateUser(1L);
 
         verify(userRepository, times(1)).save(any(User.class));
+        verify(principalCache).invalidate("test@example.com");
+        verify(refreshTokenService).revokeAllForUser(1L);
+        verify(tokenRevocationService).revokeUser(1L);
     }
 
     @Test
@@ -0,0 +1,106 @@
+package com.ilyassan.albaraka.support;
+
+import com.ilyassan.albaraka.entity.Account;
+import com.ilyassan.albaraka.entity.User;
+import com.ilyassan.albaraka.entity.UserRole;
+import com.ilyassan.albaraka.repository.AccountRepository;
+import com.ilyassan.albaraka.repository.LedgerEntryRepository;
+import com.ilyassan.albaraka.repository.TransactionRepository;
+import com.ilyassan.albaraka.repository.UserRepository;
+import com.ilyassan.albaraka.service.TransactionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Shared fixture of the tests that book transactions against the database: an empty database before and after
+ * each test, client accounts with a seed balance, and a fixed pool that runs a list of operations from many threads.
+ * Subclasses may redeclare {@link SpringBootTest} to pick another web environment.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public abstract class ConcurrencyTestSupport {
+
+    @Autowired
+    protected TransactionService transactionService;
+
+    @Autowired
+    protected TransactionRepository transactionRepository;
+
+    @Autowired
+    protected LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    protected AccountRepository accountRepository;
+
+    @Autowired
+    protected UserRepository userRepository;
+
+    // Runs before the subclass's own @BeforeEach, so accounts it creates are not wiped
+    @BeforeEach
+    protected void cleanUpBefore() {
+        cleanUp();
+    }
+
+    @AfterEach
+    protected void cleanUp() {
+        ledgerEntryRepository.deleteAllInBatch();
+        transactionRepository.deleteAll();
+        accountRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    protected Account createAccount(String email, String accountNumber, BigDecimal balance) {
+        User user = userRepository.save(User.builder()
+                .email(email)
+                .password("password")
+                .firstName("John")
+                .lastName("Doe")
+                .role(UserRole.CLIENT)
+                .enabled(true)
+                .build());
+
+        return accountRepository.save(Account.builder()
+                .accountNumber(accountNumber)
+                .user(user)
+                .balance(balance)
+                .build());
+    }
+
+    /**
+     * Submits every operation to a pool of {@code threads} threads and waits for all of them.
+     *
+     * @return the results in submission order; an operation's exception is rethrown from here
+     */
+    protected static <T> List<T> runConcurrently(int threads, List<Callable<T>> operations) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (Callable<T> operation : operations) {
+                futures.add(executor.submit(operation));
+            }
+
+            List<T> results = new ArrayList<>(futures.size());
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        }
+    }
+}